@@ -0,0 +1,363 @@
+package com.easykit.poi.processor;
+
+import com.easykit.poi.core.ConvertMapping;
+import com.easykit.poi.core.GeneratedExportPlan;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>
+ * 编译期为每个含@ExportConfig字段的实体类生成导出计划(实体类二进制名 + "_ExcelKitPlan", 与实体类同包):
+ * <pre>
+ * 导出列       按字段声明顺序生成ExportItem, 运行时不再扫描注解
+ * 读取器       直接调用getter(无getter时直接读取字段), 所有列均可生成时同时生成整行读取方法
+ * "s:"转换器   内联为switch语句
+ * </pre>
+ * 使用方式: 将本模块加入编译期的注解处理器路径(annotationProcessorPaths), ExcelKit运行时自动加载生成类。
+ * 无法在同包中访问的实体类(private内部类)以及无法访问的属性保留运行时解析。
+ * <p>
+ */
+public class ExportPlanProcessor extends AbstractProcessor {
+    private static final String EXPORT_CONFIG = "com.easykit.poi.annotation.ExportConfig";
+    private static final String CLASS_SUFFIX = GeneratedExportPlan.CLASS_SUFFIX;
+    private static final String CORE = "com.easykit.poi.core.";
+    private static final String EXPORT_ITEM = "com.easykit.poi.pojo.ExportItem";
+    private static final String EXPORT_TYPE = "com.easykit.poi.annotation.ExportType";
+
+    private Elements mElements;
+    private Types mTypes;
+    private Filer mFiler;
+    private Messager mMessager;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.mElements = processingEnv.getElementUtils();
+        this.mTypes = processingEnv.getTypeUtils();
+        this.mFiler = processingEnv.getFiler();
+        this.mMessager = processingEnv.getMessager();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(EXPORT_CONFIG);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement exportConfig = mElements.getTypeElement(EXPORT_CONFIG);
+        if (exportConfig == null || !annotations.contains(exportConfig)) {
+            return false;
+        }
+
+        // 按实体类归集注解字段
+        Set<TypeElement> types = new LinkedHashSet<TypeElement>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(exportConfig)) {
+            if (element.getKind() == ElementKind.FIELD) {
+                types.add((TypeElement) element.getEnclosingElement());
+            }
+        }
+        for (TypeElement type : types) {
+            if (!isAccessible(type)) {
+                mMessager.printMessage(Diagnostic.Kind.NOTE, "ExcelKit: " + type + "不可在同包中访问, 保留运行时解析.", type);
+                continue;
+            }
+            try {
+                generate(type, exportConfig);
+            } catch (IOException e) {
+                mMessager.printMessage(Diagnostic.Kind.ERROR, "ExcelKit: 生成" + type + "的导出计划失败: " + e.getMessage(), type);
+            }
+        }
+        return false;
+    }
+
+    private void generate(TypeElement type, TypeElement exportConfig) throws IOException {
+        List<Column> columns = new ArrayList<Column>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            AnnotationMirror mirror = findAnnotation(field, exportConfig);
+            if (mirror != null) {
+                columns.add(new Column(field, annotationValues(mirror), readExpression(type, field)));
+            }
+        }
+
+        String packageName = mElements.getPackageOf(type).getQualifiedName().toString();
+        String binaryName = mElements.getBinaryName(type).toString();
+        String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + CLASS_SUFFIX;
+        String beanType = mTypes.erasure(type.asType()).toString();
+
+        boolean rowReader = true;
+        for (Column column : columns) {
+            rowReader &= column.mRead != null;
+        }
+
+        StringBuilder src = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            src.append("package ").append(packageName).append(";\n\n");
+        }
+        src.append("/**\n * ExcelKit导出计划(由ExportPlanProcessor根据").append(beanType).append("的@ExportConfig生成, 请勿修改)\n */\n");
+        src.append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})\n");
+        src.append("public final class ").append(simpleName).append(" implements ").append(CORE).append("GeneratedExportPlan");
+        if (rowReader) {
+            src.append(", ").append(CORE).append("RowReader");
+        }
+        src.append(" {\n\n");
+
+        // 导出列
+        src.append("    @Override\n    public java.util.List<").append(EXPORT_ITEM).append("> exportItems() {\n");
+        src.append("        java.util.List<").append(EXPORT_ITEM).append("> items = new java.util.ArrayList<")
+                .append(EXPORT_ITEM).append(">(").append(columns.size()).append(");\n");
+        for (Column column : columns) {
+            src.append("        items.add(new ").append(EXPORT_ITEM).append("()")
+                    .append("\n                .setField(").append(literal(column.mField)).append(")")
+                    .append("\n                .setDisplay(").append(literal(column.display())).append(")")
+                    .append("\n                .setWidth((short) ").append(column.mValues.get("width")).append(")")
+                    .append("\n                .setConvert(").append(literal(column.string("convert"))).append(")")
+                    .append("\n                .setRange(").append(literal(column.string("range"))).append(")")
+                    .append("\n                .setReplace(").append(literal(column.string("replace"))).append(")")
+                    .append("\n                .setType(").append(EXPORT_TYPE).append('.').append(column.mValues.get("type")).append(")")
+                    .append("\n                .setFormat(").append(literal(column.string("format"))).append(")")
+                    .append("\n                .setSharedString(").append(column.mValues.get("sharedString")).append("));\n");
+        }
+        src.append("        return items;\n    }\n\n");
+
+        // 逐列读取器
+        src.append("    @Override\n    public ").append(CORE).append("PropertyGetter[] getters() {\n");
+        src.append("        return new ").append(CORE).append("PropertyGetter[] {\n");
+        for (Column column : columns) {
+            if (column.mRead == null) {
+                src.append("                null,\n");
+            } else {
+                src.append("                new ").append(CORE).append("PropertyGetter() {\n");
+                src.append("                    @Override\n                    public Object get(Object bean) {\n");
+                src.append("                        return ((").append(beanType).append(") bean).").append(column.mRead).append(";\n");
+                src.append("                    }\n                },\n");
+            }
+        }
+        src.append("        };\n    }\n\n");
+
+        // 内联的"s:"转换器
+        src.append("    @Override\n    public ").append(CORE).append("ConvertExpression[] converts() {\n");
+        src.append("        return new ").append(CORE).append("ConvertExpression[] {\n");
+        for (int i = 0; i < columns.size(); i++) {
+            src.append(columns.get(i).mapping() == null ? "                null,\n" : "                new Convert" + i + "(),\n");
+        }
+        src.append("        };\n    }\n");
+
+        // 整行读取
+        if (rowReader) {
+            src.append("\n    @Override\n    public void read(Object bean, Object[] row) {\n");
+            src.append("        ").append(beanType).append(" b = (").append(beanType).append(") bean;\n");
+            for (int i = 0; i < columns.size(); i++) {
+                Column column = columns.get(i);
+                String replace = column.string("replace");
+                src.append("        row[").append(i).append("] = ")
+                        .append(replace.isEmpty() ? "b." + column.mRead : literal(replace)).append(";\n");
+            }
+            src.append("    }\n");
+        }
+
+        for (int i = 0; i < columns.size(); i++) {
+            Map<Integer, String> mapping = columns.get(i).mapping();
+            if (mapping != null) {
+                appendMapping(src, "Convert" + i, mapping);
+            }
+        }
+        src.append("}\n");
+
+        JavaFileObject file = mFiler.createSourceFile(packageName.isEmpty() ? simpleName : packageName + "." + simpleName, type);
+        Writer writer = file.openWriter();
+        try {
+            writer.write(src.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    // 与运行时MappingConvert的行为一致: 非整数值及未匹配的键返回原值的字符串形式
+    private void appendMapping(StringBuilder src, String className, Map<Integer, String> mapping) {
+        src.append("\n    private static final class ").append(className).append(" extends ").append(CORE).append("ConvertExpression {\n");
+        src.append("        @Override\n        public String convert(Object value) {\n");
+        src.append("            int key;\n");
+        src.append("            if (value instanceof Integer || value instanceof Short || value instanceof Byte) {\n");
+        src.append("                key = ((Number) value).intValue();\n");
+        src.append("            } else {\n");
+        src.append("                if (value == null) {\n                    return null;\n                }\n");
+        src.append("                try {\n                    key = Integer.parseInt(value.toString());\n");
+        src.append("                } catch (NumberFormatException e) {\n                    return value.toString();\n                }\n");
+        src.append("            }\n");
+        src.append("            switch (key) {\n");
+        for (Map.Entry<Integer, String> entry : mapping.entrySet()) {
+            src.append("                case ").append(entry.getKey()).append(":\n");
+            src.append("                    return ").append(literal(entry.getValue())).append(";\n");
+        }
+        src.append("                default:\n                    return value.toString();\n");
+        src.append("            }\n        }\n    }\n");
+    }
+
+    private AnnotationMirror findAnnotation(Element element, TypeElement annotation) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (mTypes.isSameType(mirror.getAnnotationType(), annotation.asType())) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private Map<String, Object> annotationValues(AnnotationMirror mirror) {
+        Map<String, Object> values = new LinkedHashMap<String, Object>();
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mElements.getElementValuesWithDefaults(mirror).entrySet()) {
+            Object value = entry.getValue().getValue();
+            // 枚举值取常量名
+            if (value instanceof VariableElement) {
+                value = ((VariableElement) value).getSimpleName().toString();
+            }
+            values.put(entry.getKey().getSimpleName().toString(), value);
+        }
+        return values;
+    }
+
+    // 与运行时PropertyGetters的查找顺序一致: 先找getter(JavaBeans属性名), 再直接读取字段; 无法访问时返回null
+    private String readExpression(TypeElement type, VariableElement field) {
+        String property = field.getSimpleName().toString();
+        PackageElement pkg = mElements.getPackageOf(type);
+        for (ExecutableElement method : ElementFilter.methodsIn(mElements.getAllMembers(type))) {
+            String name = method.getSimpleName().toString();
+            if (!method.getParameters().isEmpty() || method.getModifiers().contains(Modifier.STATIC)
+                    || method.getReturnType().getKind() == TypeKind.VOID) {
+                continue;
+            }
+            String suffix = null;
+            if (name.startsWith("get") && name.length() > 3) {
+                suffix = name.substring(3);
+            } else if (name.startsWith("is") && name.length() > 2 && method.getReturnType().getKind() == TypeKind.BOOLEAN) {
+                suffix = name.substring(2);
+            }
+            if (suffix != null && property.equals(decapitalize(suffix))) {
+                return isAccessible(method, pkg) ? name + "()" : null;
+            }
+        }
+        return isAccessible(field, pkg) ? property : null;
+    }
+
+    private boolean isAccessible(Element member, PackageElement pkg) {
+        Set<Modifier> modifiers = member.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE)) {
+            return false;
+        }
+        return modifiers.contains(Modifier.PUBLIC) || mElements.getPackageOf(member).equals(pkg);
+    }
+
+    private boolean isAccessible(TypeElement type) {
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // java.beans.Introspector.decapitalize
+    private static String decapitalize(String name) {
+        if (name.length() > 1 && Character.isUpperCase(name.charAt(1)) && Character.isUpperCase(name.charAt(0))) {
+            return name;
+        }
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    // 生成的源文件只包含ASCII字符, 与编译编码无关
+    private static String literal(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static final class Column {
+        private final String mField;
+        private final Map<String, Object> mValues;
+        private final String mRead;
+
+        Column(VariableElement field, Map<String, Object> values, String read) {
+            this.mField = field.getSimpleName().toString();
+            this.mValues = values;
+            this.mRead = read;
+        }
+
+        String string(String name) {
+            Object value = mValues.get(name);
+            return value == null ? "" : value.toString();
+        }
+
+        String display() {
+            String value = string("value");
+            return "field".equals(value) ? mField : value;
+        }
+
+        // 按运行时的规则解析"s:1=男,2=女"; 无法解析时返回null, 由运行时编译(并记录错误)
+        Map<Integer, String> mapping() {
+            try {
+                return ConvertMapping.of(string("convert"));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+}
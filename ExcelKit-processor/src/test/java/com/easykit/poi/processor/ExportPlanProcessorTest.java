@@ -0,0 +1,242 @@
+package com.easykit.poi.processor;
+
+import com.easykit.poi.ExcelKit;
+import com.easykit.poi.annotation.ExportConfig;
+import com.easykit.poi.core.ConvertExpression;
+import com.easykit.poi.core.ConvertMapping;
+import com.easykit.poi.core.ExportPlan;
+import com.easykit.poi.pojo.ExportItem;
+import com.easykit.poi.writer.ExportEngine;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.annotation.processing.Processor;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 编译示例实体(开启/关闭注解处理器各一次), 比较生成的导出计划与运行时解析的导出计划及导出结果
+ */
+public class ExportPlanProcessorTest {
+    private static final String ENTITY = "sample.Person";
+    private static final String SOURCE = ""
+            + "package sample;\n"
+            + "import com.easykit.poi.annotation.ExportConfig;\n"
+            + "import com.easykit.poi.annotation.ExportType;\n"
+            + "public class Person {\n"
+            + "    @ExportConfig(\"编号\") private long id;\n"
+            + "    @ExportConfig(value = \"名称\", width = 120) private String name;\n"
+            + "    @ExportConfig(value = \"密码\", replace = \"******\") private String password;\n"
+            + "    @ExportConfig(value = \"性别\", convert = \"s:1 = 男, 2=女\") private int sex;\n"
+            + "    @ExportConfig(value = \"等级\", convert = \" S : 1=a=b,2 = c=d, \") private int level;\n"
+            + "    @ExportConfig(value = \"无效\", convert = \"s:x=1\") private int invalid;\n"
+            + "    @ExportConfig(value = \"金额\", type = ExportType.NUMERIC) private double amount;\n"
+            + "    public long getId() { return id; }\n"
+            + "    public void setId(long id) { this.id = id; }\n"
+            + "    public String getName() { return name; }\n"
+            + "    public void setName(String name) { this.name = name; }\n"
+            + "    public String getPassword() { return password; }\n"
+            + "    public void setPassword(String password) { this.password = password; }\n"
+            + "    public int getSex() { return sex; }\n"
+            + "    public void setSex(int sex) { this.sex = sex; }\n"
+            + "    public int getLevel() { return level; }\n"
+            + "    public void setLevel(int level) { this.level = level; }\n"
+            + "    public int getInvalid() { return invalid; }\n"
+            + "    public void setInvalid(int invalid) { this.invalid = invalid; }\n"
+            + "    public double getAmount() { return amount; }\n"
+            + "    public void setAmount(double amount) { this.amount = amount; }\n"
+            + "}\n";
+
+    private static Path sWorkDir;
+    private static Class<?> sGenerated;
+    private static Class<?> sRuntime;
+
+    @BeforeClass
+    public static void compileSample() throws Exception {
+        sWorkDir = Files.createTempDirectory("excelkit-processor-test");
+        File withProcessor = compile(sWorkDir.resolve("generated").toFile(), new ExportPlanProcessor());
+        File withoutProcessor = compile(sWorkDir.resolve("runtime").toFile(), null);
+
+        sGenerated = new URLClassLoader(new URL[]{withProcessor.toURI().toURL()},
+                ExportPlanProcessorTest.class.getClassLoader()).loadClass(ENTITY);
+        sRuntime = new URLClassLoader(new URL[]{withoutProcessor.toURI().toURL()},
+                ExportPlanProcessorTest.class.getClassLoader()).loadClass(ENTITY);
+    }
+
+    @AfterClass
+    public static void deleteWorkDir() {
+        delete(sWorkDir.toFile());
+    }
+
+    @Test
+    public void generatesPlanClass() {
+        assertTrue(new File(sWorkDir.toFile(), "generated/sample/Person_ExcelKitPlan.class").isFile());
+        assertFalse(new File(sWorkDir.toFile(), "runtime/sample/Person_ExcelKitPlan.class").isFile());
+        // 所有列均可直接读取时生成整行读取方法
+        assertNotNull(ExportPlan.of(sGenerated).getRowReader());
+    }
+
+    @Test
+    public void exportItemsMatchRuntime() {
+        ExportPlan generated = ExportPlan.of(sGenerated);
+        ExportPlan runtime = ExportPlan.of(sRuntime);
+
+        assertEquals(runtime.size(), generated.size());
+        for (int i = 0; i < runtime.size(); i++) {
+            ExportItem expected = runtime.getExportItem(i);
+            ExportItem actual = generated.getExportItem(i);
+            assertEquals(expected.getField(), actual.getField());
+            assertEquals(expected.getDisplay(), actual.getDisplay());
+            assertEquals(expected.getWidth(), actual.getWidth());
+            assertEquals(expected.getConvert(), actual.getConvert());
+            assertEquals(expected.getReplace(), actual.getReplace());
+            assertEquals(expected.getRange(), actual.getRange());
+            assertEquals(expected.getType(), actual.getType());
+            assertEquals(expected.getFormat(), actual.getFormat());
+        }
+    }
+
+    @Test
+    public void convertsMatchRuntime() {
+        ExportPlan generated = ExportPlan.of(sGenerated);
+        ExportPlan runtime = ExportPlan.of(sRuntime);
+
+        for (int i = 0; i < runtime.size(); i++) {
+            ConvertExpression expected = runtime.getConvert(i);
+            ConvertExpression actual = generated.getConvert(i);
+            assertEquals("column " + i, expected == null, actual == null);
+            if (expected != null) {
+                for (Object value : new Object[]{1, 2, 3, "1", null}) {
+                    assertEquals("column " + i + " value " + value, expected.convert(value), actual.convert(value));
+                }
+            }
+        }
+        // 等号两侧去除空白, 值中可以包含等号
+        assertEquals("男", runtime.getConvert(3).convert(1));
+        assertEquals("a=b", runtime.getConvert(4).convert(1));
+        assertEquals("c=d", runtime.getConvert(4).convert(2));
+    }
+
+    @Test
+    public void exportMatchesRuntime() throws Exception {
+        byte[] generated = export(sGenerated);
+        byte[] runtime = export(sRuntime);
+
+        assertArrayEquals(runtime, generated);
+        String csv = new String(runtime, StandardCharsets.UTF_8);
+        assertTrue(csv, csv.contains("1,Name:1,******,男,a=b,1,0.5"));
+        assertTrue(csv, csv.contains("2,,******,女,c=d,2,1000"));
+    }
+
+    @Test
+    public void sharesMappingRules() {
+        assertEquals(Arrays.asList(1, 2), new ArrayList<Integer>(ConvertMapping.of("s:1 = 男, 2=女").keySet()));
+        assertEquals("a=b", ConvertMapping.of("s:1=a=b").get(1));
+        assertNull(ConvertMapping.of("c:com.example.Convert"));
+    }
+
+    private static byte[] export(Class<?> type) throws Exception {
+        List<Object> rows = new ArrayList<Object>();
+        rows.add(person(type, 1, "Name:1", 1, 1, 1, 0.5));
+        rows.add(person(type, 2, null, 2, 2, 2, 1000));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(ExcelKit.$Builder(type).setEngine(ExportEngine.CSV).setCsvEncoding(StandardCharsets.UTF_8, false)
+                .toExcel(rows, "person", out));
+        return out.toByteArray();
+    }
+
+    private static Object person(Class<?> type, long id, String name, int sex, int level, int invalid, double amount)
+            throws Exception {
+        Object person = type.newInstance();
+        set(person, "setId", long.class, id);
+        set(person, "setName", String.class, name);
+        set(person, "setPassword", String.class, "secret");
+        set(person, "setSex", int.class, sex);
+        set(person, "setLevel", int.class, level);
+        set(person, "setInvalid", int.class, invalid);
+        set(person, "setAmount", double.class, amount);
+        return person;
+    }
+
+    private static void set(Object bean, String setter, Class<?> type, Object value) throws Exception {
+        Method method = bean.getClass().getMethod(setter, type);
+        method.invoke(bean, value);
+    }
+
+    // 编译示例实体, processor为null时关闭注解处理
+    private static File compile(File outputDir, Processor processor) throws IOException {
+        if (!outputDir.mkdirs()) {
+            throw new IOException("无法创建目录: " + outputDir);
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8);
+        try {
+            String classpath = new File(ExportConfig.class.getProtectionDomain().getCodeSource().getLocation().getPath()).getPath();
+            List<String> options = new ArrayList<String>(Arrays.asList(
+                    "-classpath", classpath, "-d", outputDir.getPath(), "-encoding", "UTF-8"));
+            if (processor == null) {
+                options.add("-proc:none");
+            }
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null,
+                    Collections.singletonList(new SourceFile(ENTITY, SOURCE)));
+            if (processor != null) {
+                task.setProcessors(Collections.singletonList(processor));
+            }
+            assertTrue(diagnostics.getDiagnostics().toString(), task.call());
+        } finally {
+            fileManager.close();
+        }
+        return outputDir;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static class SourceFile extends SimpleJavaFileObject {
+        private final String mSource;
+
+        SourceFile(String className, String source) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.mSource = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return mSource;
+        }
+    }
+}
@@ -0,0 +1,1744 @@
+/**
+ * Copyright (c) 2017, 吴汶泽 (wuwz@live.com).
+ * <p>
+ * <p>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * <p>
+ * you may not use this file except in compliance with the License.
+ * <p>
+ * You may obtain a copy of the License at
+ * <p>
+ * <p>
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * <p>
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * <p>
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * <p>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * <p>
+ * See the License for the specific language governing permissions and
+ * <p>
+ * limitations under the License.
+ */
+package com.easykit.poi;
+
+import com.easykit.poi.convert.ExportRange;
+import com.easykit.poi.core.AsyncResponseStream;
+import com.easykit.poi.core.ColumnWidths;
+import com.easykit.poi.core.Const;
+import com.easykit.poi.core.ExportCache;
+import com.easykit.poi.core.ExportPlan;
+import com.easykit.poi.core.ExportProgress;
+import com.easykit.poi.core.ExportTask;
+import com.easykit.poi.core.InstanceCache;
+import com.easykit.poi.core.POIUtils;
+import com.easykit.poi.core.PageIterator;
+import com.easykit.poi.core.ResultSetIterator;
+import com.easykit.poi.core.RowBuffer;
+import com.easykit.poi.core.RowPipeline;
+import com.easykit.poi.core.XlsxReader;
+import com.easykit.poi.hanlder.ExportHandler;
+import com.easykit.poi.hanlder.PageHandler;
+import com.easykit.poi.hanlder.ReadHandler;
+import com.easykit.poi.pojo.ExportColumns;
+import com.easykit.poi.writer.CsvWorkbookWriter;
+import com.easykit.poi.writer.ExportEngine;
+import com.easykit.poi.writer.SXSSFWorkbookWriter;
+import com.easykit.poi.writer.SheetWriter;
+import com.easykit.poi.writer.WorkbookWriter;
+import com.easykit.poi.writer.WriterOptions;
+import com.easykit.poi.writer.XmlWorkbookWriter;
+import org.apache.poi.hssf.util.HSSFColor;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * <p>
+ * ExcelKit.java : Excel快速导入导出工具
+ * 简单、好用且轻量级的海量Excel文件导入导出解决方案. (仅提供excel2007以及更高版本的支持)
+ * <p>
+ *
+ * @author wuwz
+ * @since 2017年4月10日
+ */
+public class ExcelKit {
+    private static Logger log = LoggerFactory.getLogger(ExcelKit.class);
+
+    private Class<?> mClass = null;
+    private ExportColumns mColumns = null;
+    private HttpServletResponse mResponse = null;
+    // 默认以此值填充空单元格,可通过 setEmptyCellValue(string)改变其默认值。
+    private String mEmptyCellValue = null;
+    // 分Sheet机制：每个Sheet最多多少条数据
+    private int mMaxSheetRecords = 10000;
+    // 每批处理的数据条数(批量转换器每列每批调用一次)
+    private int mBatchSize = 1000;
+    // 多sheet并行生成(默认关闭)
+    private Executor mSheetExecutor = null;
+    private int mSheetParallelism = 1;
+    // 流水线导出(默认关闭): 读取、转换、压缩分别在线程池中进行
+    private Executor mPipelineExecutor = null;
+    private int mPipelineQueueCapacity = 4;
+    // 导出引擎(默认SXSSF)
+    private ExportEngine mEngine = ExportEngine.SXSSF;
+    // 共享字符串(仅ExportEngine.XML): 文本列自适应字典编码及字典上限
+    private boolean mSharedStrings = false;
+    private int mMaxSharedStrings = 65536;
+    // 临时文件是否压缩, 以及最近一次导出写入临时文件的字节数
+    private boolean mCompressTempFiles = false;
+    private long mSpilledBytes = 0;
+    // SXSSF内存窗口: 固定行数或按内存预算动态计算(二选一)
+    private int mRowAccessWindowSize = Const.DEFAULT_ROW_ACCESS_WINDOW_SIZE;
+    private long mMemoryBudget = 0;
+    // 按正文计算列宽的采样行数(0-仅按表头计算)
+    private int mAutoWidthSampleRows = 0;
+    // 输出压缩级别及分块并行压缩线程池(仅ExportEngine.XML)
+    private int mCompressionLevel = Deflater.DEFAULT_COMPRESSION;
+    private Executor mCompressionExecutor = null;
+    private int mCompressionThreads = 1;
+    // 按文件拆分: 每个文件的最大行数(0-不拆分)、生成文件的线程池及并行数
+    private int mMaxFileRecords = 0;
+    private Executor mFileExecutor = null;
+    private int mFileParallelism = 1;
+    // CSV/TSV编码及BOM
+    private Charset mCsvCharset = StandardCharsets.UTF_8;
+    private boolean mCsvBom = true;
+    // 导出ResultSet时的fetchSize(0-使用驱动默认值), 以及导出结束后是否关闭ResultSet、Statement及Connection
+    private int mFetchSize = 0;
+    private boolean mCloseResultSet = false;
+    // Servlet异步下载的超时时间(毫秒)
+    private long mAsyncTimeout = Const.DEFAULT_ASYNC_TIMEOUT;
+    // 导出结果缓存及本次导出的缓存键
+    private ExportCache mCache = null;
+    private String mCacheKey = null;
+    // 缓存下拉数据实例,避免多次使用反射进行实例化
+    private static final InstanceCache<ExportRange> mRangeInstanceCache = new InstanceCache<ExportRange>(ExportRange.class, 256);
+
+    protected ExcelKit() {
+    }
+
+    protected ExcelKit(Class<?> clazz) {
+        this(clazz, null);
+    }
+
+    protected ExcelKit(Class<?> clazz, HttpServletResponse response) {
+        this.mResponse = response;
+        this.mClass = clazz;
+    }
+
+    protected ExcelKit(ExportColumns columns, HttpServletResponse response) {
+        this.mResponse = response;
+        this.mColumns = columns;
+    }
+
+    /**
+     * 用于生成本地文件
+     *
+     * @param clazz
+     *            实体Class对象
+     * @return ExcelKit
+     */
+    public static ExcelKit $Builder(Class<?> clazz) {
+        return new ExcelKit(clazz);
+    }
+
+    /**
+     * 用于浏览器导出
+     *
+     * @param clazz
+     *            实体Class对象
+     * @param response
+     *            原生HttpServletResponse对象
+     * @return ExcelKit
+     */
+    public static ExcelKit $Export(Class<?> clazz, HttpServletResponse response) {
+        return new ExcelKit(clazz, response);
+    }
+
+    /**
+     * 用于生成本地文件(无实体类, 数据行为Map、Object[]或List)
+     *
+     * @param columns
+     *            列定义
+     * @return ExcelKit
+     */
+    public static ExcelKit $Builder(ExportColumns columns) {
+        return new ExcelKit(columns, null);
+    }
+
+    /**
+     * 用于浏览器导出(无实体类, 数据行为Map、Object[]或List)
+     *
+     * @param columns
+     *            列定义
+     * @param response
+     *            原生HttpServletResponse对象
+     * @return ExcelKit
+     */
+    public static ExcelKit $Export(ExportColumns columns, HttpServletResponse response) {
+        return new ExcelKit(columns, response);
+    }
+
+    /**
+     * 用于生成本地文件(直接导出ResultSet, 列由ResultSetMetaData生成)
+     *
+     * @return ExcelKit
+     */
+    public static ExcelKit $Builder() {
+        return new ExcelKit((ExportColumns) null, null);
+    }
+
+    /**
+     * 用于浏览器导出(直接导出ResultSet, 列由ResultSetMetaData生成)
+     *
+     * @param response
+     *            原生HttpServletResponse对象
+     * @return ExcelKit
+     */
+    public static ExcelKit $Export(HttpServletResponse response) {
+        return new ExcelKit((ExportColumns) null, response);
+    }
+
+    /**
+     * 用于导入数据解析
+     *
+     * @return ExcelKit
+     */
+    public static ExcelKit $Import() {
+        return new ExcelKit();
+    }
+
+    /**
+     * 预热导出计划(建议在应用启动时调用), 避免首次导出时解析实体类的开销
+     *
+     * @param classes
+     *            需要导出的实体Class对象
+     */
+    public static void warmUp(Class<?>... classes) {
+        for (Class<?> clazz : classes) {
+            ExportPlan.of(clazz);
+        }
+    }
+
+    /**
+     * 设置导出临时文件目录(如tmpfs或本地高速磁盘), 为进程级设置, 建议在应用启动时调用。
+     * POI 3.10.1的SXSSF临时文件只能通过启动参数-Djava.io.tmpdir指定, 详见POIUtils.setTempDirectory()
+     *
+     * @param directory
+     *            临时文件目录
+     */
+    public static void setTempDirectory(File directory) {
+        POIUtils.setTempDirectory(directory);
+    }
+
+    /**
+     * 读取Excel时以该值填充空单元格值 (默认null)
+     *
+     * @param emptyCellValue
+     *            单元格值
+     * @return this
+     */
+    public ExcelKit setEmptyCellValue(String emptyCellValue) {
+        this.mEmptyCellValue = emptyCellValue;
+        return this;
+    }
+
+    /**
+     * 分Sheet机制：每个Sheet最多多少条数据(默认10000)
+     *
+     * @param size
+     *            数据条数(不能为null, 须大于0)
+     * @return this
+     */
+    public ExcelKit setMaxSheetRecords(Integer size) {
+        if (size == null || size < 1) {
+            throw new IllegalArgumentException("size必须大于0");
+        }
+        this.mMaxSheetRecords = size;
+        return this;
+    }
+
+    /**
+     * 每批处理的数据条数(默认1000), BatchExportConvert每列每批只调用一次
+     *
+     * @param size
+     *            数据条数(须大于0)
+     * @return this
+     */
+    public ExcelKit setBatchSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size必须大于0");
+        }
+        this.mBatchSize = size;
+        return this;
+    }
+
+    /**
+     * 缓存导出结果: 缓存命中时直接写出缓存文件, 不读取数据(Iterator/PageHandler/ResultSet不会被访问);
+     * 未命中时生成的内容在写出的同时写入临时文件, 导出成功后放入缓存。
+     *
+     * @param cache
+     *            导出缓存(可在多个导出之间共享)
+     * @param key
+     *            缓存键, 应包含影响导出结果的全部因素(查询条件、实体类、sheet名、导出引擎等)
+     * @return this
+     */
+    public ExcelKit setCache(ExportCache cache, String key) {
+        if (cache != null && key == null) {
+            throw new IllegalArgumentException("缓存键不能为空");
+        }
+        this.mCache = cache;
+        this.mCacheKey = key;
+        return this;
+    }
+
+    /**
+     * 导出ResultSet时每次从数据库拉取的行数(默认使用驱动的设置)
+     *
+     * @param fetchSize
+     *            行数
+     * @return this
+     */
+    public ExcelKit setFetchSize(int fetchSize) {
+        this.mFetchSize = fetchSize;
+        return this;
+    }
+
+    /**
+     * 导出ResultSet结束后(无论成功或失败)依次关闭ResultSet、其Statement及Connection, 默认由调用方关闭。
+     * 适用于导出时才打开连接、导出后不再使用的场景(如从连接池借出的连接)
+     *
+     * @param close
+     *            是否关闭
+     * @return this
+     */
+    public ExcelKit setCloseResultSet(boolean close) {
+        this.mCloseResultSet = close;
+        return this;
+    }
+
+    /**
+     * Servlet异步下载(toExcelAsync(HttpServletRequest, ...))的超时时间, 默认10分钟。
+     * 超时后取消导出, 响应尚未提交时返回500
+     *
+     * @param timeout
+     *            超时时间(毫秒)
+     * @return this
+     */
+    public ExcelKit setAsyncTimeout(long timeout) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("timeout必须大于0");
+        }
+        this.mAsyncTimeout = timeout;
+        return this;
+    }
+
+    /**
+     * 开启多sheet并行生成: 每个sheet的数据转换和写出在线程池中并发进行, 最后合并为一个工作薄。
+     * 最多同时缓存parallelism个sheet的数据, 内存占用约为 parallelism x mMaxSheetRecords 行。
+     * 仅ExportEngine.XML/CSV/TSV生效(各sheet写入独立的临时文件后再合并); ExportEngine.SXSSF的各sheet共享工作薄的
+     * 样式表和共享字符串表, 不能并发写入, 仍依次生成。
+     *
+     * @param executor
+     *            线程池(由调用方管理生命周期)
+     * @param parallelism
+     *            最大并行sheet数
+     * @return this
+     */
+    public ExcelKit setParallelSheets(Executor executor, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism必须大于0");
+        }
+        this.mSheetExecutor = executor;
+        this.mSheetParallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * 按文件拆分导出: 每个文件最多maxFileRecords行(文件内仍按mMaxSheetRecords拆分sheet), 各文件在线程池中并行生成,
+     * 按顺序作为一个zip的条目写出到输出流或浏览器(xxx_1.xlsx, xxx_2.xlsx...)。文件更小打开更快, 生成耗时分摊到多个CPU。
+     * 最多同时缓存parallelism个文件的数据, 内存占用约为 parallelism x maxFileRecords 行; 开启后多sheet并行生成及流水线导出不生效。
+     *
+     * @param maxFileRecords
+     *            每个文件的最大行数
+     * @param executor
+     *            线程池(由调用方管理生命周期), 为null时在当前线程依次生成
+     * @param parallelism
+     *            最大并行文件数
+     * @return this
+     */
+    public ExcelKit setSplitFiles(int maxFileRecords, Executor executor, int parallelism) {
+        if (maxFileRecords < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("maxFileRecords和parallelism必须大于0");
+        }
+        this.mMaxFileRecords = maxFileRecords;
+        this.mFileExecutor = executor;
+        this.mFileParallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * 开启流水线导出: 数据读取、值转换分别在线程池中进行(ExportEngine.XML的压缩也在线程池中进行),
+     * 与当前线程的写出并发执行, 阶段之间以有界队列连接。耗时接近最慢的阶段而非各阶段之和。
+     * 各阶段各占用线程池的1个线程(共2~3个), 空闲线程不足、任务被拒绝或等待超时的阶段改由当前线程执行;
+     * 开启多sheet并行生成时不生效。
+     *
+     * @param executor
+     *            线程池(由调用方管理生命周期), ThreadPoolExecutor的最大线程数不能少于2
+     * @param queueCapacity
+     *            阶段之间最多缓存的批数, 内存占用约为 (2 x queueCapacity + 2) x mBatchSize 行
+     * @return this
+     */
+    public ExcelKit setPipeline(Executor executor, int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity必须大于0");
+        }
+        if (executor != null && !RowPipeline.hasCapacity(executor)) {
+            throw new IllegalArgumentException("流水线线程池的最大线程数不能少于" + RowPipeline.REQUIRED_THREADS);
+        }
+        this.mPipelineExecutor = executor;
+        this.mPipelineQueueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * 选择导出引擎(默认ExportEngine.SXSSF), ExportEngine.XML直接输出SpreadsheetML, 吞吐更高且不产生临时文件;
+     * ExportEngine.CSV/TSV输出纯文本, 适用于只需要扁平数据的场景
+     *
+     * @param engine
+     *            导出引擎
+     * @return this
+     */
+    public ExcelKit setEngine(ExportEngine engine) {
+        this.mEngine = engine == null ? ExportEngine.SXSSF : engine;
+        return this;
+    }
+
+    /**
+     * 开启共享字符串(仅ExportEngine.XML生效): 文本列先采样, 重复值较多的列写入sharedStrings.xml,
+     * 可显著减小文件体积和压缩耗时。标记了@ExportConfig(sharedString = true)的列无需开启也会编码。
+     * 其余引擎忽略该设置及@ExportConfig(sharedString = true): ExportEngine.SXSSF(当前POI版本仅支持内联字符串)
+     * 照常以内联字符串导出并记录警告, ExportEngine.CSV/TSV无共享字符串的概念。
+     *
+     * @param maxEntries
+     *            字典最大条目数, 超出后的新值按内联字符串写出
+     * @return this
+     */
+    public ExcelKit setSharedStrings(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries必须大于0");
+        }
+        this.mSharedStrings = true;
+        this.mMaxSharedStrings = maxEntries;
+        return this;
+    }
+
+    /**
+     * 输出文件的压缩级别(仅ExportEngine.XML生效): 0-不压缩(以STORED方式写出, 局域网下载时CPU开销最小), 1-最快, 9-最小体积,
+     * 默认为Deflater.DEFAULT_COMPRESSION(6)
+     *
+     * @param level
+     *            压缩级别
+     * @return this
+     */
+    public ExcelKit setCompressionLevel(int level) {
+        if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("level必须在0-9之间");
+        }
+        this.mCompressionLevel = level;
+        return this;
+    }
+
+    /**
+     * 开启分块并行压缩(仅ExportEngine.XML生效): 各条目按128KB分块在线程池中独立压缩后顺序拼接,
+     * 输出仍为标准zip。压缩耗时约为单线程的 1/threads, 文件体积略有增加。
+     *
+     * @param executor
+     *            线程池(由调用方管理生命周期)
+     * @param threads
+     *            同时压缩的块数, 一般取CPU核数
+     * @return this
+     */
+    public ExcelKit setParallelCompression(Executor executor, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads必须大于0");
+        }
+        this.mCompressionExecutor = executor;
+        this.mCompressionThreads = threads;
+        return this;
+    }
+
+    /**
+     * CSV/TSV的编码及是否写出BOM(仅ExportEngine.CSV/TSV生效), 默认UTF-8并写出BOM(Excel依赖BOM识别UTF-8)。
+     * 需兼容只识别本地编码的旧版Excel时可使用GBK(不写BOM)。
+     *
+     * @param charset
+     *            编码
+     * @param bom
+     *            是否写出BOM(只在文件开头写出一次; UTF-16编码始终写出BOM)
+     * @return this
+     */
+    public ExcelKit setCsvEncoding(Charset charset, boolean bom) {
+        if (charset == null) {
+            throw new IllegalArgumentException("charset不能为空");
+        }
+        this.mCsvCharset = charset;
+        this.mCsvBom = bom;
+        return this;
+    }
+
+    /**
+     * 临时文件是否以gzip压缩(默认false), 以少量CPU换取更少的磁盘写入
+     *
+     * @param compress
+     *            是否压缩
+     * @return this
+     */
+    public ExcelKit setCompressTempFiles(boolean compress) {
+        this.mCompressTempFiles = compress;
+        return this;
+    }
+
+    /**
+     * SXSSF内存中保留的行数(默认100), 设置后不再按内存预算计算
+     *
+     * @param rowAccessWindowSize
+     *            行数
+     * @return this
+     */
+    public ExcelKit setRowAccessWindowSize(int rowAccessWindowSize) {
+        if (rowAccessWindowSize < 1) {
+            throw new IllegalArgumentException("rowAccessWindowSize必须大于0");
+        }
+        this.mRowAccessWindowSize = rowAccessWindowSize;
+        this.mMemoryBudget = 0;
+        return this;
+    }
+
+    /**
+     * 按内存预算计算SXSSF内存中保留的行数: 根据已写出行的平均大小动态调整,
+     * 窄行保留更多行以减少刷盘次数, 宽行保留更少行以避免堆内存峰值。并行生成时预算由各sheet平分。
+     *
+     * @param bytes
+     *            行数据内存预算(字节)
+     * @return this
+     */
+    public ExcelKit setMemoryBudget(long bytes) {
+        if (bytes < 1) {
+            throw new IllegalArgumentException("bytes必须大于0");
+        }
+        this.mMemoryBudget = bytes;
+        this.mRowAccessWindowSize = Const.DEFAULT_ROW_ACCESS_WINDOW_SIZE;
+        return this;
+    }
+
+    /**
+     * 按正文内容自动计算列宽(默认仅按表头计算), 中日韩全角字符按2个字符宽度计算。
+     * 使用ExportEngine.XML时采样行会暂存在内存中直到列宽确定, 故全部行采样时内存占用与每个sheet的行数相关。
+     *
+     * @param sampleRows
+     *            每个sheet采样的行数, 0为不按正文计算(仅按表头), ColumnWidths.ALL_ROWS为全部行
+     * @return this
+     */
+    public ExcelKit setAutoColumnWidth(int sampleRows) {
+        if (sampleRows < 0 && sampleRows != ColumnWidths.ALL_ROWS) {
+            throw new IllegalArgumentException("sampleRows必须大于等于0或为ColumnWidths.ALL_ROWS");
+        }
+        this.mAutoWidthSampleRows = sampleRows;
+        return this;
+    }
+
+    /**
+     * 最近一次导出写入临时文件的字节数(压缩后)。
+     * 仅统计XML/CSV引擎自己创建的临时文件; POI 3.10.1的SXSSF没有获取临时文件的公开API, SXSSF引擎始终为0
+     *
+     * @return 字节数
+     */
+    public long getSpilledBytes() {
+        return mSpilledBytes;
+    }
+
+    /**
+     * 导出Excel(此方式需依赖浏览器实现文件下载,故应先使用$ExportRange()构造器)
+     *
+     * @param data
+     *            数据集合
+     * @param sheetName
+     *            工作表名字
+     * @return true-操作成功,false-操作失败
+     */
+    public boolean toExcel(List<?> data, String sheetName) {
+        required$ExportParams();
+
+        try {
+            return toExcel(data, sheetName, mResponse.getOutputStream());
+        } catch (IOException e) {
+            log.error("导出Excel失败:" + e.getMessage(), e);
+        }
+        return false;
+    }
+
+    /**
+     * 针对转换方法的默认实现(提供默认样式和文件命名规则)
+     *
+     * @param data
+     *            数据集合
+     * @param sheetName
+     *            工作表名字
+     * @param out
+     *            输出流
+     * @return true-操作成功,false-操作失败
+     */
+    public boolean toExcel(List<?> data, String sheetName, OutputStream out) {
+        return toExcel(data, sheetName, defaultExportHandler(), out);
+    }
+
+    public boolean toExcel(List<?> data, String sheetName, ExportHandler handler, OutputStream out) {
+        if (data == null || data.size() < 1) {
+            log.error("没有检测到数据,不执行导出操作。");
+            return false;
+        }
+
+        log.info(String.format("即将导出excel数据：%s条,请稍后..", data.size()));
+        return toExcel(data.iterator(), sheetName, handler, out);
+    }
+
+    /**
+     * 流式导出Excel(此方式需依赖浏览器实现文件下载,故应先使用$Export()构造器)
+     *
+     * @param data
+     *            数据迭代器(边读边写, 无需将全部数据加载到内存)
+     * @param sheetName
+     *            工作表名字
+     * @return true-操作成功,false-操作失败
+     */
+    public boolean toExcel(Iterator<?> data, String sheetName) {
+        required$ExportParams(data);
+
+        try {
+            return toExcel(data, sheetName, mResponse.getOutputStream());
+        } catch (IOException e) {
+            log.error("导出Excel失败:" + e.getMessage(), e);
+        }
+        return false;
+    }
+
+    /**
+     * 流式导出Excel(提供默认样式和文件命名规则)
+     *
+     * @param data
+     *            数据迭代器(边读边写, 无需将全部数据加载到内存)
+     * @param sheetName
+     *            工作表名字
+     * @param out
+     *            输出流
+     * @return true-操作成功,false-操作失败
+     */
+    public boolean toExcel(Iterator<?> data, String sheetName, OutputStream out) {
+        return toExcel(data, sheetName, defaultExportHandler(), out);
+    }
+
+    /**
+     * 流式导出Excel(此方式需依赖浏览器实现文件下载,故应先使用$Export()构造器)
+     *
+     * @param data
+     *            数据流(导出完成后由调用方负责关闭)
+     * @param sheetName
+     *            工作表名字
+     * @return true-操作成功,false-操作失败
+     */
+    public boolean toExcel(Stream<?> data, String sheetName) {
+        return toExcel(data == null ? null : data.iterator(), sheetName);
+    }
+
+    public boolean toExcel(Stream<?> data, String sheetName, OutputStream out) {
+        return toExcel(data == null ? null : data.iterator(), sheetName, out);
+    }
+
+    public boolean toExcel(Stream<?> data, String sheetName, ExportHandler handler, OutputStream out) {
+        return toExcel(data == null ? null : data.iterator(), sheetName, handler, out);
+    }
+
+    /**
+     * 直接导出查询结果(此方式需依赖浏览器实现文件下载,故应先使用$Export()构造器):
+     * 游标逐行前移, 行数据边读边写, 不生成实体对象列表。ResultSet应以TYPE_FORWARD_ONLY、CONCUR_READ_ONLY方式打开,
+     * 导出完成后由调用方负责关闭(或通过setCloseResultSet(true)在导出结束后自动关闭)。
+     *
+     * @param resultSet
+     *            查询结果(游标位于第一行之前)
+     * @param sheetName
+     *            工作表名字
+     * @return true-操作成功,false-操作失败
+     */
+    public boolean toExcel(ResultSet resultSet, String sheetName) {
+        try {
+            return toExcel(openResultSet(resultSet), sheetName);
+        } catch (SQLException e) {
+            log.error("读取结果集失败:" + e.getMessage(), e);
+        } finally {
+            closeResultSet(resultSet);
+        }
+        return false;
+    }
+
+    public boolean toExcel(ResultSet resultSet, String sheetName, OutputStream out) {
+        return toExcel(resultSet, sheetName, defaultExportHandler(), out);
+    }
+
+    public boolean toExcel(ResultSet resultSet, String sheetName, ExportHandler handler, OutputStream out) {
+        try {
+            return toExcel(openResultSet(resultSet), sheetName, handler, out);
+        } catch (SQLException e) {
+            log.error("读取结果集失败:" + e.getMessage(), e);
+        } finally {
+            closeResultSet(resultSet);
+        }
+        return false;
+    }
+
+    // 开启setCloseResultSet时关闭ResultSet、Statement及Connection(先取得引用, 关闭后无法再获取)
+    private void closeResultSet(ResultSet resultSet) {
+        if (!mCloseResultSet || resultSet == null) {
+            return;
+        }
+        Statement statement = null;
+        Connection connection = null;
+        try {
+            statement = resultSet.getStatement();
+            connection = statement != null ? statement.getConnection() : null;
+        } catch (SQLException e) {
+            log.warn("获取结果集的Statement失败:" + e.getMessage());
+        }
+        closeQuietly(resultSet);
+        closeQuietly(statement);
+        closeQuietly(connection);
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            log.warn("关闭数据库资源失败:" + e.getMessage());
+        }
+    }
+
+    // 未指定列定义时按结果集的列生成(只用于本次导出, 不保存到mColumns), 列的读取方式由元数据确定
+    private Iterator<Object[]> openResultSet(ResultSet resultSet) throws SQLException {
+        if (mClass != null && mColumns == null) {
+            throw new IllegalArgumentException("导出ResultSet请使用$Builder()或$Builder(ExportColumns)构造器。");
+        }
+        if (resultSet.getType() != ResultSet.TYPE_FORWARD_ONLY) {
+            log.warn("ResultSet不是TYPE_FORWARD_ONLY, 驱动可能会将全部结果缓存在内存中。");
+        }
+        if (mFetchSize > 0) {
+            resultSet.setFetchSize(mFetchSize);
+        }
+        ExportColumns columns = mColumns != null ? mColumns : ResultSetIterator.columns(resultSet.getMetaData());
+        return new ResultSetIterator(resultSet, columns);
+    }
+
+    /**
+     * 分页拉取导出Excel(此方式需依赖浏览器实现文件下载,故应先使用$Export()构造器)
+     *
+     * @param pageHandler
+     *            分页数据拉取回调, 当前页写完后才会拉取下一页
+     * @param sheetName
+     *            工作表名字
+     * @return true-操作成功,false-操作失败
+     */
+    public boolean toExcel(PageHandler<?> pageHandler, String sheetName) {
+        return toExcel(pageHandler == null ? null : PageIterator.of(pageHandler), sheetName);
+    }
+
+    public boolean toExcel(PageHandler<?> pageHandler, String sheetName, OutputStream out) {
+        return toExcel(pageHandler == null ? null : PageIterator.of(pageHandler), sheetName, out);
+    }
+
+    public boolean toExcel(PageHandler<?> pageHandler, String sheetName, ExportHandler handler, OutputStream out) {
+        return toExcel(pageHandler == null ? null : PageIterator.of(pageHandler), sheetName, handler, out);
+    }
+
+    /**
+     * 生成本地文件(提供默认样式): 先写入同目录下的临时文件, 成功后再替换目标文件, 不会留下不完整的文件。
+     * 配合sendFile()下载, 超大文件下载中断后可断点续传而无需重新生成。
+     *
+     * @param data
+     *            数据迭代器
+     * @param sheetName
+     *            工作表名字
+     * @param file
+     *            目标文件
+     * @return true-操作成功,false-操作失败
+     */
+    public boolean toExcel(Iterator<?> data, String sheetName, File file) {
+        required$BuilderParams(data);
+        File target = file.getAbsoluteFile();
+        File temp = new File(target.getParentFile(), target.getName() + ".tmp");
+        boolean success = false;
+        try {
+            success = toExcel(data, sheetName, defaultExportHandler(), new BufferedOutputStream(new FileOutputStream(temp), 64 * 1024), null, new ExportProgress(-1));
+            if (success) {
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            log.error("生成Excel文件失败:" + e.getMessage(), e);
+            success = false;
+        } finally {
+            if (!success && temp.exists() && !temp.delete()) {
+                log.warn("删除临时文件失败:{}", temp);
+            }
+        }
+        return success;
+    }
+
+    public boolean toExcel(List<?> data, String sheetName, File file) {
+        if (data == null || data.size() < 1) {
+            log.error("没有检测到数据,不执行导出操作。");
+            return false;
+        }
+        return toExcel(data.iterator(), sheetName, file);
+    }
+
+    /**
+     * 下载本地已生成的Excel文件(此方式需依赖浏览器实现文件下载,故应先使用$Export()构造器):
+     * 以FileChannel.transferTo写出, 支持Range请求断点续传
+     *
+     * @param request
+     *            当前请求
+     * @param file
+     *            toExcel(data, sheetName, file)生成的文件
+     * @param sheetName
+     *            工作表名字(用于生成下载文件名)
+     * @return true-操作成功,false-操作失败
+     */
+    public boolean sendFile(HttpServletRequest request, File file, String sheetName) {
+        required$ExportParams();
+        if (!file.isFile()) {
+            log.error("文件不存在:{}", file);
+            return false;
+        }
+        try {
+            POIUtils.writeFileToBrowser(request, mResponse, file, defaultExportHandler().exportFileName(sheetName), contentType(), fileSuffix());
+            return true;
+        } catch (IOException e) {
+            log.error("下载Excel文件失败:" + e.getMessage(), e);
+        }
+        return false;
+    }
+
+    /**
+     * 流式导出Excel: 每写满mMaxSheetRecords条数据即切换到新的Sheet,
+     * 内存中仅保留当前批次的行, 与数据总量无关。
+     *
+     * @param data
+     *            数据迭代器
+     * @param sheetName
+     *            工作表名字
+     * @param handler
+     *            导出设置
+     * @param out
+     *            输出流
+     * @return true-操作成功,false-操作失败
+     */
+    public boolean toExcel(Iterator<?> data, String sheetName, ExportHandler handler, OutputStream out) {
+        return toExcel(data, sheetName, handler, out, mResponse, new ExportProgress(-1));
+    }
+
+    /**
+     * 异步导出Excel: 在指定的线程池中执行导出, 返回的句柄可查询进度(行数、sheet数、字节数、剩余时间)或取消导出
+     *
+     * @param data
+     *            数据集合
+     * @param sheetName
+     *            工作表名字
+     * @param handler
+     *            导出设置
+     * @param out
+     *            输出流
+     * @param executor
+     *            执行导出的线程池(由调用方管理生命周期)
+     * @return 导出句柄
+     */
+    public ExportTask toExcelAsync(List<?> data, String sheetName, ExportHandler handler, OutputStream out, Executor executor) {
+        return toExcelAsync(data == null ? null : data.iterator(), data == null ? -1 : data.size(), sheetName, handler, out, executor);
+    }
+
+    /**
+     * 异步导出Excel(总行数未知, 无法估算剩余时间)
+     */
+    public ExportTask toExcelAsync(Iterator<?> data, String sheetName, ExportHandler handler, OutputStream out, Executor executor) {
+        return toExcelAsync(data, -1, sheetName, handler, out, executor);
+    }
+
+    /**
+     * 异步分页拉取导出Excel(总行数未知, 无法估算剩余时间)
+     */
+    public ExportTask toExcelAsync(PageHandler<?> pageHandler, String sheetName, ExportHandler handler, OutputStream out, Executor executor) {
+        return toExcelAsync(pageHandler == null ? null : PageIterator.of(pageHandler), -1, sheetName, handler, out, executor);
+    }
+
+    private ExportTask toExcelAsync(final Iterator<?> data, long totalRows, final String sheetName, final ExportHandler handler,
+                                    final OutputStream out, Executor executor) {
+        final ExportProgress progress = new ExportProgress(totalRows);
+        ExportTask task = new ExportTask(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                return toExcel(data, sheetName, handler, out, mResponse, progress);
+            }
+        }, progress);
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Servlet 3.1非阻塞下载(此方式需依赖浏览器实现文件下载,故应先使用$Export()构造器):
+     * 开启异步请求后立即返回, 导出在线程池中进行, 数据经有界缓冲在socket可写时由容器写出,
+     * 慢速客户端不会占用容器线程, 少量线程即可同时服务多个大文件下载。Servlet及其过滤器须开启asyncSupported。
+     * 超过setAsyncTimeout()设置的时间仍未完成时取消导出并结束请求。
+     *
+     * @param request
+     *            当前请求
+     * @param data
+     *            数据集合
+     * @param sheetName
+     *            工作表名字
+     * @param executor
+     *            执行导出的线程池(由调用方管理生命周期)
+     * @return 导出句柄
+     */
+    public ExportTask toExcelAsync(HttpServletRequest request, List<?> data, String sheetName, Executor executor) {
+        return toBrowserAsync(request, data == null ? null : data.iterator(), data == null ? -1 : data.size(), sheetName, executor);
+    }
+
+    /**
+     * Servlet 3.1非阻塞下载(总行数未知, 无法估算剩余时间)
+     */
+    public ExportTask toExcelAsync(HttpServletRequest request, Iterator<?> data, String sheetName, Executor executor) {
+        return toBrowserAsync(request, data, -1, sheetName, executor);
+    }
+
+    /**
+     * Servlet 3.1非阻塞分页拉取下载(总行数未知, 无法估算剩余时间)
+     */
+    public ExportTask toExcelAsync(HttpServletRequest request, PageHandler<?> pageHandler, String sheetName, Executor executor) {
+        return toBrowserAsync(request, pageHandler == null ? null : PageIterator.of(pageHandler), -1, sheetName, executor);
+    }
+
+    private ExportTask toBrowserAsync(HttpServletRequest request, final Iterator<?> data, long totalRows, final String sheetName,
+                                      Executor executor) {
+        required$ExportParams(data);
+        final ExportHandler handler = defaultExportHandler();
+        final ExportProgress progress = new ExportProgress(totalRows);
+        final AsyncResponseStream out;
+        AsyncContext context;
+        try {
+            POIUtils.setDownloadHeaders(mResponse, handler.exportFileName(sheetName), contentType(), fileSuffix());
+            context = request.startAsync(request, mResponse);
+            context.setTimeout(mAsyncTimeout);
+            out = new AsyncResponseStream(context, 64 * 1024, 8);
+        } catch (IOException e) {
+            log.error("导出Excel失败:" + e.getMessage(), e);
+            ExportTask task = new ExportTask(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return false;
+                }
+            }, progress);
+            task.run();
+            return task;
+        }
+
+        final ExportTask task = new ExportTask(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                // 响应头已设置, 输出流由AsyncResponseStream负责结束
+                boolean success = toExcel(data, sheetName, handler, out, null, progress);
+                if (success) {
+                    try {
+                        out.complete();
+                        return true;
+                    } catch (IOException e) {
+                        log.error("下载失败:" + e.getMessage());
+                    }
+                }
+                out.abort();
+                return false;
+            }
+        }, progress) {
+            @Override
+            protected void done() {
+                // 取消(包括开始执行前取消)或异常结束时结束异步请求
+                if (isCancelled()) {
+                    out.abort();
+                    return;
+                }
+                try {
+                    get();
+                } catch (Exception e) {
+                    out.abort();
+                }
+            }
+        };
+        context.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                // 响应流已在超时回调中中止, 停止读取数据
+                task.cancel(false);
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                task.cancel(false);
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        try {
+            executor.execute(task);
+        } catch (RuntimeException e) {
+            task.cancel(false);
+            throw e;
+        }
+        return task;
+    }
+
+    private boolean toExcel(Iterator<?> data, String sheetName, ExportHandler handler, OutputStream out, HttpServletResponse response,
+                            ExportProgress progress) {
+        required$BuilderParams(data);
+        long begin = System.currentTimeMillis();
+        progress.start();
+
+        // 缓存命中时不读取数据
+        InputStream cached = openCached();
+        if (cached != null) {
+            return writeCached(cached, sheetName, handler, out, response, progress, begin);
+        }
+
+        if (data == null || !data.hasNext()) {
+            log.error("没有检测到数据,不执行导出操作。");
+            progress.finish();
+            return false;
+        }
+
+        // 导出计划(按Class缓存, 多次导出之间共享)
+        ExportColumns columns = columnsOf(data);
+        ExportPlan plan = columns != null ? ExportPlan.of(columns) : ExportPlan.of(mClass);
+        // 下拉列表数据每次导出只获取一次
+        String[][] ranges = new String[plan.size()][];
+        for (int i = 0; i < plan.size(); i++) {
+            String range = plan.getExportItem(i).getRange();
+            if (!"".equals(range)) {
+                ranges[i] = rangeCellValues(range);
+            }
+        }
+
+        WorkbookWriter writer = null;
+        int sheetNo = 0;
+        List<SheetWriter> pendingSheets = new ArrayList<SheetWriter>();
+        List<FutureTask<Integer>> pendingTasks = new ArrayList<FutureTask<Integer>>();
+        File cacheFile = null;
+        OutputStream cacheOut = null;
+        try {
+            // 通过response对象是否为空来判定是使用浏览器下载还是直接写入到output中
+            if (response != null) {
+                POIUtils.setDownloadHeaders(response, handler.exportFileName(sheetName), contentType(), fileSuffix());
+                if (out == null) {
+                    out = response.getOutputStream();
+                }
+            }
+            out = progress.wrap(out);
+            if (mCache != null) {
+                // 边写出边写入缓存文件
+                cacheFile = POIUtils.createTempFile("excelkit-cache", fileSuffix());
+                cacheOut = new BufferedOutputStream(new FileOutputStream(cacheFile), 64 * 1024);
+                out = teeOutputStream(out, cacheOut);
+            }
+            if (mMaxFileRecords > 0) {
+                // 按文件拆分: 数据在此全部读取完毕, 不再进入下面的sheet循环
+                sheetNo = writeSplitFiles(data, plan, handler, ranges, sheetName, out, progress);
+            } else {
+                writer = newWorkbookWriter(plan, handler, ranges, out, newWriterOptions());
+            }
+            RowBuffer rows = new RowBuffer(plan, Math.max(1, Math.min(mBatchSize, mMaxSheetRecords)));
+            Executor sheetExecutor = sheetExecutor();
+            if (sheetExecutor == null && mSheetExecutor != null) {
+                log.warn("ExportEngine.SXSSF不支持多sheet并行生成, 各sheet依次生成.");
+            }
+            Semaphore sheetPermits = sheetExecutor == null ? null : new Semaphore(mSheetParallelism);
+
+            if (writer != null && sheetExecutor == null && mPipelineExecutor != null) {
+                sheetNo = writePipelined(writer, data, plan, sheetName, progress);
+            }
+
+            // =====多sheet生成填充数据: 写满mMaxSheetRecords条后切换到新的sheet(流水线模式下数据已读取完毕)=====
+            while (data.hasNext()) {
+                progress.checkCancelled();
+                SheetWriter sheet = writer.createSheet(sheetName + (sheetNo == 0 ? "" : "_" + sheetNo));
+                sheet.writeHeader();
+
+                if (sheetExecutor == null) {
+                    // 产生数据行(按批读取、转换后写出)
+                    while (sheet.getRowCount() < mMaxSheetRecords && rows.fill(data, mMaxSheetRecords - sheet.getRowCount()) > 0) {
+                        rows.convert();
+                        sheet.writeRows(rows);
+                        progress.addRows(rows.size());
+                        progress.checkCancelled();
+                    }
+                    sheet.finish();
+                    progress.addSheet();
+                } else {
+                    // 并行模式: 当前线程读取整个sheet的数据, 转换和写出在线程池中进行(各sheet写入独立的临时文件)
+                    sheetPermits.acquire();
+                    FutureTask<Integer> task = new FutureTask<Integer>(newSheetTask(sheet, readSheetRows(data, plan, mMaxSheetRecords, progress), sheetPermits, progress));
+                    try {
+                        sheetExecutor.execute(task);
+                    } catch (RuntimeException e) {
+                        sheetPermits.release();
+                        throw e;
+                    }
+                    pendingSheets.add(sheet);
+                    pendingTasks.add(task);
+                }
+                sheetNo++;
+            }
+
+            for (int i = 0; i < pendingTasks.size(); i++) {
+                pendingTasks.get(i).get();
+                pendingSheets.get(i).finish();
+                progress.addSheet();
+            }
+            log.info("sheet total : {}" , sheetNo);
+
+            // 生成Excel文件
+            if (writer != null) {
+                writer.close();
+            }
+            out.flush();
+            if (cacheOut != null) {
+                cacheOut.close();
+                try {
+                    mCache.put(mCacheKey, cacheFile);
+                    cacheFile = null;
+                } catch (IOException e) {
+                    log.warn("导出结果放入缓存失败:" + e.getMessage());
+                }
+            }
+        } catch (Exception e) {
+            for (FutureTask<Integer> task : pendingTasks) {
+                task.cancel(true);
+            }
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            if (progress.isCancelled()) {
+                log.warn("导出已取消,已写出数据:{}行", progress.getRowsWritten());
+            } else {
+                log.error("生成Excel文件失败:" + e.getMessage(), e);
+            }
+            return false;
+        } finally {
+            progress.finish();
+            if (writer != null) {
+                // 无论成功与否都删除临时文件
+                writer.dispose();
+                mSpilledBytes = writer.getSpilledBytes();
+            }
+            closeQuietly(out, response);
+            if (cacheFile != null) {
+                // 导出失败, 不放入缓存
+                try {
+                    if (cacheOut != null) {
+                        cacheOut.close();
+                    }
+                } catch (IOException e) {
+                    // 仅用于释放文件句柄
+                }
+                if (cacheFile.exists() && !cacheFile.delete()) {
+                    log.warn("删除临时文件失败:{}", cacheFile);
+                }
+            }
+        }
+
+        log.info(String.format("Excel处理完成,共生成数据:%s行 (不包含表头),临时文件:%s字节,耗时：%f seconds.", progress.getRowsWritten(), mSpilledBytes, (System.currentTimeMillis() - begin) / 1000F));
+        return true;
+    }
+
+    // 按文件拆分: 当前线程读取每个文件的数据, 各文件在线程池中并行生成到临时文件, 按顺序以STORED方式写入zip(文件本身已压缩)
+    private int writeSplitFiles(Iterator<?> data, ExportPlan plan, ExportHandler handler, String[][] ranges, String sheetName,
+                                OutputStream out, ExportProgress progress) throws Exception {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        String fileName = handler.exportFileName(sheetName);
+        ArrayDeque<FutureTask<ZipEntry>> pendingTasks = new ArrayDeque<FutureTask<ZipEntry>>();
+        ArrayDeque<File> pendingFiles = new ArrayDeque<File>();
+        int fileNo = 0;
+        int sheetNo = 0;
+        try {
+            while (data.hasNext()) {
+                // 最多同时缓存mFileParallelism个文件的数据
+                while (pendingTasks.size() >= mFileParallelism) {
+                    writeZipEntry(zip, pendingTasks.poll(), pendingFiles.poll());
+                }
+                progress.checkCancelled();
+                List<List<RowBuffer>> sheets = new ArrayList<List<RowBuffer>>();
+                int rowCount = 0;
+                while (rowCount < mMaxFileRecords && data.hasNext()) {
+                    List<RowBuffer> chunks = readSheetRows(data, plan, Math.min(mMaxSheetRecords, mMaxFileRecords - rowCount), progress);
+                    for (RowBuffer chunk : chunks) {
+                        rowCount += chunk.size();
+                    }
+                    sheets.add(chunks);
+                }
+                sheetNo += sheets.size();
+
+                File part = POIUtils.createTempFile("excelkit-part", partSuffix());
+                String entryName = fileName + "_" + (++fileNo) + partSuffix();
+                FutureTask<ZipEntry> task = new FutureTask<ZipEntry>(newFileTask(entryName, part, sheets, plan, handler, ranges, sheetName, progress));
+                pendingTasks.add(task);
+                pendingFiles.add(part);
+                if (mFileExecutor == null) {
+                    task.run();
+                } else {
+                    mFileExecutor.execute(task);
+                }
+            }
+            while (!pendingTasks.isEmpty()) {
+                writeZipEntry(zip, pendingTasks.poll(), pendingFiles.poll());
+            }
+            zip.finish();
+            log.info("file total : {}", fileNo);
+            return sheetNo;
+        } finally {
+            for (FutureTask<ZipEntry> task : pendingTasks) {
+                task.cancel(true);
+            }
+            for (File part : pendingFiles) {
+                part.delete();
+            }
+        }
+    }
+
+    private Callable<ZipEntry> newFileTask(final String entryName, final File part, final List<List<RowBuffer>> sheets,
+                                           final ExportPlan plan, final ExportHandler handler, final String[][] ranges,
+                                           final String sheetName, final ExportProgress progress) {
+        return new Callable<ZipEntry>() {
+            @Override
+            public ZipEntry call() throws Exception {
+                CheckedOutputStream out = new CheckedOutputStream(new BufferedOutputStream(new FileOutputStream(part), 64 * 1024), new CRC32());
+                WorkbookWriter writer = null;
+                try {
+                    // 文件之间已并行, 文件内的sheet依次生成
+                    WriterOptions options = newWriterOptions().setSpoolSheets(false).setPipelineExecutor(null)
+                            .setMemoryBudget(mMemoryBudget / mFileParallelism);
+                    writer = newWorkbookWriter(plan, handler, ranges, out, options);
+                    for (int i = 0; i < sheets.size(); i++) {
+                        SheetWriter sheet = writer.createSheet(sheetName + (i == 0 ? "" : "_" + i));
+                        sheet.writeHeader();
+                        for (RowBuffer chunk : sheets.get(i)) {
+                            progress.checkCancelled();
+                            chunk.convert();
+                            sheet.writeRows(chunk);
+                            progress.addRows(chunk.size());
+                        }
+                        sheet.finish();
+                        progress.addSheet();
+                    }
+                    writer.close();
+                } finally {
+                    if (writer != null) {
+                        writer.dispose();
+                    }
+                    out.close();
+                }
+                ZipEntry entry = new ZipEntry(entryName);
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(part.length());
+                entry.setCompressedSize(part.length());
+                entry.setCrc(out.getChecksum().getValue());
+                return entry;
+            }
+        };
+    }
+
+    private void writeZipEntry(ZipOutputStream zip, FutureTask<ZipEntry> task, File part) throws Exception {
+        try {
+            zip.putNextEntry(task.get());
+            InputStream in = new FileInputStream(part);
+            try {
+                byte[] buffer = new byte[64 * 1024];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    zip.write(buffer, 0, n);
+                }
+            } finally {
+                in.close();
+            }
+            zip.closeEntry();
+        } finally {
+            part.delete();
+        }
+    }
+
+    // 流水线模式: 读取和转换在线程池中进行, 当前线程只负责写出
+    private int writePipelined(WorkbookWriter writer, Iterator<?> data, ExportPlan plan, String sheetName, ExportProgress progress)
+            throws Exception {
+        RowPipeline pipeline = new RowPipeline(data, plan, mBatchSize, mMaxSheetRecords, mPipelineQueueCapacity);
+        pipeline.start(mPipelineExecutor);
+        int sheetNo = 0;
+        SheetWriter sheet = null;
+        try {
+            RowBuffer rows;
+            while ((rows = pipeline.take()) != null) {
+                if (sheet == null) {
+                    sheet = writer.createSheet(sheetName + (sheetNo == 0 ? "" : "_" + sheetNo));
+                    sheet.writeHeader();
+                }
+                sheet.writeRows(rows);
+                progress.addRows(rows.size());
+                pipeline.release(rows);
+                // 批次按sheet边界对齐, 写满后切换到新的sheet
+                if (sheet.getRowCount() >= mMaxSheetRecords) {
+                    sheet.finish();
+                    progress.addSheet();
+                    sheet = null;
+                    sheetNo++;
+                }
+                progress.checkCancelled();
+            }
+            if (sheet != null) {
+                sheet.finish();
+                progress.addSheet();
+                sheetNo++;
+            }
+        } finally {
+            pipeline.close();
+        }
+        return sheetNo;
+    }
+
+    // SXSSF的各sheet共享工作薄, 不能并发写入
+    private Executor sheetExecutor() {
+        return mEngine == ExportEngine.SXSSF ? null : mSheetExecutor;
+    }
+
+    private WriterOptions newWriterOptions() {
+        Executor sheetExecutor = sheetExecutor();
+        return new WriterOptions()
+                .setSpoolSheets(sheetExecutor != null)
+                .setPipelineExecutor(sheetExecutor == null ? mPipelineExecutor : null)
+                .setSharedStrings(mSharedStrings)
+                .setMaxSharedStrings(mMaxSharedStrings)
+                .setCompressTempFiles(mCompressTempFiles)
+                .setRowAccessWindowSize(mRowAccessWindowSize)
+                .setAutoWidthSampleRows(mAutoWidthSampleRows)
+                .setCompressionLevel(mCompressionLevel)
+                .setCompressionExecutor(mCompressionExecutor)
+                .setCompressionThreads(mCompressionThreads)
+                .setCsvCharset(mCsvCharset)
+                .setCsvBom(mCsvBom)
+                .setMemoryBudget(sheetExecutor == null ? mMemoryBudget : mMemoryBudget / mSheetParallelism);
+    }
+
+    private WorkbookWriter newWorkbookWriter(ExportPlan plan, ExportHandler handler, String[][] ranges, OutputStream out,
+                                             WriterOptions options) throws IOException {
+        if (mEngine == ExportEngine.CSV || mEngine == ExportEngine.TSV) {
+            return new CsvWorkbookWriter(plan, out, options, mEngine == ExportEngine.CSV ? ',' : '\t');
+        }
+        if (mEngine == ExportEngine.XML) {
+            return new XmlWorkbookWriter(plan, handler, ranges, out, options);
+        }
+        if (mSharedStrings) {
+            log.warn("当前POI版本的SXSSF仅支持内联字符串, 共享字符串设置需配合ExportEngine.XML使用。");
+        }
+        if (mCompressionLevel != Deflater.DEFAULT_COMPRESSION || mCompressionExecutor != null) {
+            log.warn("当前POI版本的SXSSF不支持设置压缩方式, 压缩级别及并行压缩设置需配合ExportEngine.XML使用。");
+        }
+        return new SXSSFWorkbookWriter(plan, handler, ranges, out, options);
+    }
+
+    // 下载文件类型(与导出引擎对应, 按文件拆分时为zip)
+    private String contentType() {
+        if (mMaxFileRecords > 0) {
+            return Const.ZIP_CONTENT_TYPE;
+        }
+        switch (mEngine) {
+            case CSV:
+                return Const.CSV_CONTENT_TYPE + ";charset=" + mCsvCharset.name();
+            case TSV:
+                return Const.TSV_CONTENT_TYPE + ";charset=" + mCsvCharset.name();
+            default:
+                return Const.XLSX_CONTENT_TYPE;
+        }
+    }
+
+    private String fileSuffix() {
+        return mMaxFileRecords > 0 ? Const.ZIP_SUFFIX : partSuffix();
+    }
+
+    // 单个导出文件的后缀
+    private String partSuffix() {
+        switch (mEngine) {
+            case CSV:
+                return Const.CSV_SUFFIX;
+            case TSV:
+                return Const.TSV_SUFFIX;
+            default:
+                return Const.XLSX_SUFFIX;
+        }
+    }
+
+    // 打开缓存文件, 未命中(或文件已被淘汰)时返回null
+    private InputStream openCached() {
+        return mCache == null ? null : mCache.open(mCacheKey);
+    }
+
+    private boolean writeCached(InputStream cached, String sheetName, ExportHandler handler, OutputStream out, HttpServletResponse response,
+                                ExportProgress progress, long begin) {
+        try {
+            if (response != null) {
+                POIUtils.setDownloadHeaders(response, handler.exportFileName(sheetName), contentType(), fileSuffix());
+                if (cached instanceof FileInputStream) {
+                    response.setContentLengthLong(((FileInputStream) cached).getChannel().size());
+                }
+                if (out == null) {
+                    out = response.getOutputStream();
+                }
+            }
+            out = progress.wrap(out);
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = cached.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            out.flush();
+        } catch (IOException e) {
+            log.error("写出缓存的导出结果失败:" + e.getMessage(), e);
+            return false;
+        } finally {
+            progress.finish();
+            try {
+                cached.close();
+            } catch (IOException e) {
+                // 仅用于释放文件句柄
+            }
+            closeQuietly(out, response);
+        }
+        log.info(String.format("命中导出缓存,写出:%s字节,耗时：%f seconds.", progress.getBytesWritten(), (System.currentTimeMillis() - begin) / 1000F));
+        return true;
+    }
+
+    // 写出的数据同时写入副本(副本的关闭由调用方负责)
+    private static OutputStream teeOutputStream(OutputStream out, final OutputStream copy) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                copy.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                copy.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                out.flush();
+                copy.flush();
+            }
+        };
+    }
+
+    private void closeQuietly(OutputStream out, HttpServletResponse response) {
+        try {
+            if (out != null) {
+                out.close();
+            }
+            if (response != null) {
+                response.flushBuffer();
+            }
+        } catch (IOException e) {
+            log.warn("关闭输出流失败:" + e.getMessage());
+        }
+    }
+
+    // 读取一个sheet的全部数据(仅并行模式使用, 内存占用约为 并行度 x mMaxSheetRecords 行)
+    private List<RowBuffer> readSheetRows(Iterator<?> data, ExportPlan plan, int limit, ExportProgress progress) {
+        List<RowBuffer> chunks = new ArrayList<RowBuffer>();
+        int rowCount = 0;
+        while (rowCount < limit && data.hasNext()) {
+            progress.checkCancelled();
+            RowBuffer chunk = new RowBuffer(plan, Math.max(1, Math.min(mBatchSize, limit - rowCount)));
+            rowCount += chunk.fill(data, limit - rowCount);
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private Callable<Integer> newSheetTask(final SheetWriter sheet, final List<RowBuffer> chunks, final Semaphore sheetPermits,
+                                           final ExportProgress progress) {
+        return new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                try {
+                    for (RowBuffer chunk : chunks) {
+                        progress.checkCancelled();
+                        chunk.convert();
+                        sheet.writeRows(chunk);
+                        progress.addRows(chunk.size());
+                    }
+                    return sheet.getRowCount();
+                } finally {
+                    sheetPermits.release();
+                }
+            }
+        };
+    }
+
+    // 默认的导出设置(提供默认样式和文件命名规则)
+    private ExportHandler defaultExportHandler() {
+        return new ExportHandler() {
+
+            @Override
+            public CellStyle headCellStyle(SXSSFWorkbook wb) {
+                CellStyle cellStyle = wb.createCellStyle();
+                Font font = wb.createFont();
+                cellStyle.setFillForegroundColor((short) 12);
+                cellStyle.setFillPattern(CellStyle.SOLID_FOREGROUND);// 填充模式
+                cellStyle.setBorderTop(CellStyle.BORDER_THIN);// 上边框为细边框
+                cellStyle.setBorderRight(CellStyle.BORDER_THIN);// 右边框为细边框
+                cellStyle.setBorderBottom(CellStyle.BORDER_THIN);// 下边框为细边框
+                cellStyle.setBorderLeft(CellStyle.BORDER_THIN);// 左边框为细边框
+                cellStyle.setAlignment(CellStyle.ALIGN_LEFT);// 对齐
+                cellStyle.setFillForegroundColor(HSSFColor.GREEN.index);
+                cellStyle.setFillBackgroundColor(HSSFColor.GREEN.index);
+                font.setBoldweight(Font.BOLDWEIGHT_NORMAL);
+                // font.setFontHeightInPoints((short) 12);// 字体大小
+                font.setColor(HSSFColor.WHITE.index);
+                // 应用标题字体到标题样式
+                cellStyle.setFont(font);
+                //设置单元格文本形式
+                DataFormat dataFormat =  wb.createDataFormat();
+                cellStyle.setDataFormat(dataFormat.getFormat("@"));
+                return cellStyle;
+            }
+
+            @Override
+            public String exportFileName(String sheetName) {
+                return String.format("导出-%s-%s", sheetName, System.currentTimeMillis());
+            }
+        };
+    }
+
+    /**
+     * 读取Excel数据(使用SAX的方式进行解析,读取所有Sheet数据)
+     *
+     * @param excelFile
+     *            excel文件
+     * @param handler
+     *            数据处理回调
+     */
+    public void readExcel(File excelFile, ReadHandler handler) {
+        // TODO 第一列不能出现空值！！！！！！！
+        this.readExcel(excelFile, -1, handler);
+    }
+
+    /**
+     * 读取Excel数据(使用SAX的方式进行解析,读取所有Sheet数据)
+     *
+     * @param is
+     *            excel文件流
+     * @param handler
+     *            数据处理回调
+     */
+    public void readExcel(InputStream is,String fileName, ReadHandler handler) {
+        this.readExcel(is,fileName ,-1, handler);
+    }
+
+
+    /**
+     * 读取Excel数据(使用SAX的方式进行解析,读取所有Sheet数据)
+     *
+     * @param is
+     *            excel文件流
+     * @param handler
+     *            数据处理回调
+     */
+    public void readExcel(InputStream is,String fileName,int sheetIndex,ReadHandler handler) {
+        // TODO 第一列不能出现空值！！！！！！！
+        long begin = System.currentTimeMillis();
+        XlsxReader reader = new XlsxReader(handler).setEmptyCellValue(mEmptyCellValue);
+        try {
+            if (sheetIndex >= 0) {
+                // 读取指定sheet
+                reader.process(is,fileName, sheetIndex);
+            } else {
+                // 读取所有sheet
+                reader.process(is,fileName);
+            }
+        } catch (Exception e) {
+            log.error("读取excel文件时发生异常：" + e.getMessage(), e);
+        }
+
+        log.info(String.format("Excel读取并处理完成,耗时：%s seconds.", (System.currentTimeMillis() - begin) / 1000F));
+    }
+
+    /**
+     * 读取Excel（使用SAX的方式进行解析,读取指定Sheet数据）
+     *
+     * @param excelFile
+     *            excel文件
+     * @param sheetIndex
+     *            sheet索引,-1为读取所有
+     * @param handler
+     *            数据处理回调
+     */
+    public void readExcel(File excelFile, int sheetIndex, ReadHandler handler) {
+        long begin = System.currentTimeMillis();
+        String fileName = excelFile.getAbsolutePath();
+        XlsxReader reader = new XlsxReader(handler).setEmptyCellValue(mEmptyCellValue);
+        try {
+            if (sheetIndex >= 0) {
+                // 读取指定sheet
+                reader.process(fileName, sheetIndex);
+            } else {
+                // 读取所有sheet
+                reader.process(fileName);
+            }
+        } catch (Exception e) {
+            log.error("读取excel文件时发生异常：" + e.getMessage(), e);
+        }
+
+        log.info(String.format("Excel读取并处理完成,耗时：%s seconds.", (System.currentTimeMillis() - begin) / 1000F));
+    }
+
+    // 填充下拉数据验证(maxcess)
+	private String[] rangeCellValues(String format) {
+        try {
+            String protocol = format.split(":")[0];
+            if ("c".equalsIgnoreCase(protocol)) {
+                String clazz = format.split(":")[1];
+                ExportRange range = mRangeInstanceCache.get(clazz);
+                if (range != null) {
+                	return range.handler();
+                }
+            }
+        } catch (Exception e) {
+            log.error("出现问题,可能是@ExportConfig.range()的值不规范导致。", e);
+        }
+        return new String[]{};
+    }
+
+    // 列定义: 构造时指定的列定义, 或ResultSet按元数据生成的列
+    private ExportColumns columnsOf(Iterator<?> data) {
+        if (mColumns == null && data instanceof ResultSetIterator) {
+            return ((ResultSetIterator) data).getColumns();
+        }
+        return mColumns;
+    }
+
+    private void required$BuilderParams() {
+        required$BuilderParams(null);
+    }
+
+    private void required$BuilderParams(Iterator<?> data) {
+        if (mClass == null && columnsOf(data) == null) {
+            throw new IllegalArgumentException("请先使用com.wuwenze.poi.ExcelKit.$Builder(Class<?>)或$Builder(ExportColumns)构造器初始化参数。");
+        }
+    }
+
+    private void required$ExportParams() {
+        required$ExportParams(null);
+    }
+
+    private void required$ExportParams(Iterator<?> data) {
+        if ((mClass == null && columnsOf(data) == null) || mResponse == null) {
+            throw new IllegalArgumentException(
+                    "请先使用com.wuwenze.poi.ExcelKit.$Export(Class<?>, HttpServletResponse)构造器初始化参数。");
+        }
+
+    }
+
+
+    /**
+     * 判断一个单元格的值是否是空值
+     * @param cellValue 单元格值
+     * @return TRUE / FALSE
+     */
+    public static boolean isNullCellValue(String cellValue) {
+        return null == cellValue || "".equals(cellValue) || "null".equalsIgnoreCase(cellValue);
+    }
+
+    /**
+     * 判断整行数据是否都为空
+     * @param rowData 行数据
+     * @return TRUE / FALSE
+     */
+    public static boolean isNullRowValue(List<String> rowData) {
+        if (rowData == null || rowData.size() == 0) {
+            return true;
+        }
+
+        int nullCellValueCount = 0;
+        for (String cellValue : rowData) {
+            if (isNullCellValue(cellValue)) {
+                nullCellValueCount ++;
+            }
+        }
+        return nullCellValueCount == rowData.size();
+    }
+}
@@ -88,4 +88,22 @@ public @interface ExportConfig {
 	 * @return 默认不启用
 	 */
 	String range() default  "" ;
+
+	/**
+	 * 单元格类型, 数值和日期将以原生数字单元格写出(启用convert或replace时始终为文本)
+	 * @return 默认ExportType.STRING
+	 */
+	ExportType type() default ExportType.STRING;
+
+	/**
+	 * 单元格格式, 如日期"yyyy-MM-dd"、数值"#,##0.00"
+	 * @return 默认为空(日期使用"yyyy-MM-dd HH:mm:ss", 数值使用常规格式)
+	 */
+	String format() default "";
+
+	/**
+	 * 文本值写入共享字符串表(sharedStrings.xml), 适用于性别、年级等重复值较多的列, 仅ExportEngine.XML生效
+	 * @return 默认false(写为内联字符串)
+	 */
+	boolean sharedString() default false;
 }
@@ -0,0 +1,29 @@
+package com.easykit.poi.annotation;
+
+/**
+ * 导出单元格类型
+ *
+ * @see ExportConfig#type()
+ */
+public enum ExportType {
+    /**
+     * 文本(默认)
+     */
+    STRING,
+    /**
+     * 数值, 以原生数字单元格写出, 可在Excel中直接排序/求和
+     */
+    NUMERIC,
+    /**
+     * 布尔值
+     */
+    BOOLEAN,
+    /**
+     * 日期, 以数值单元格+日期格式写出
+     */
+    DATE,
+    /**
+     * 根据属性值的实际类型自动判定
+     */
+    AUTO
+}
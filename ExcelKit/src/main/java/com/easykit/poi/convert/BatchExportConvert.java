@@ -0,0 +1,21 @@
+package com.easykit.poi.convert;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>
+ * 批量单元格值转换器: 每批数据行中同一列的去重值只调用一次batchHandler,
+ * 适用于需要查询数据库/字典才能完成映射的列(将N次查询合并为N/批大小次)。
+ * <p>
+ */
+public interface BatchExportConvert extends ExportConvert {
+
+    /**
+     * 批量转换
+     *
+     * @param values 当前批次中该列去重后的原始值(不包含null)
+     * @return 原始值与转换后值的映射, 未包含在映射中的值保持原值
+     */
+    Map<String, String> batchHandler(Set<String> values);
+}
@@ -0,0 +1,283 @@
+package com.easykit.poi.core;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>
+ * 异步输出流: 写入的数据按块交给后台线程写出到目标流(如ZipOutputStream, 压缩在后台线程中进行),
+ * 块在两个线程之间循环复用, 队列满时写入方阻塞。flush()等待已写入的数据全部写出到目标流(不刷新目标流)。
+ * close()不关闭目标流。
+ * 线程池拒绝任务或后台任务在START_TIMEOUT_MILLIS内未开始运行时, 改由写入线程直接写出到目标流, 不会永久阻塞。
+ * close()/abort()等待后台任务退出(最长CLOSE_TIMEOUT_MILLIS), 返回后不再写出到目标流。
+ * <p>
+ */
+public class AsyncOutputStream extends OutputStream {
+    private static final Block END = new Block(0);
+    // 后台任务等待开始运行的最长时间, 超时后由写入线程写出
+    private static final long START_TIMEOUT_MILLIS = 1000;
+    private static final long POLL_MILLIS = 100;
+    // 关闭时等待后台任务退出的最长时间
+    private static final long CLOSE_TIMEOUT_MILLIS = 10000;
+
+    private final OutputStream mTarget;
+    private final BlockingQueue<Block> mFree;
+    private final BlockingQueue<Block> mFull;
+    private final Object mLock = new Object();
+    private Block mCurrent;
+    private long mQueued = 0;
+    private long mWritten = 0;
+    private volatile IOException mFailure = null;
+    private boolean mClosed = false;
+    // 写出由后台任务或写入线程认领后才执行
+    private final AtomicBoolean mDrainClaimed = new AtomicBoolean();
+    // 后台任务结束, 或写出由写入线程认领时计数
+    private final CountDownLatch mDrainExited = new CountDownLatch(1);
+    private final long mStartTime = System.currentTimeMillis();
+    // 由写入线程直接写出
+    private boolean mInline = false;
+
+    /**
+     * @param target    目标输出流
+     * @param executor  执行写出的线程池
+     * @param blockSize 块大小(字节)
+     * @param blocks    块数量
+     */
+    public AsyncOutputStream(OutputStream target, Executor executor, int blockSize, int blocks) {
+        this.mTarget = target;
+        this.mFree = new ArrayBlockingQueue<Block>(blocks);
+        this.mFull = new ArrayBlockingQueue<Block>(blocks + 1);
+        for (int i = 0; i < blocks; i++) {
+            mFree.add(new Block(blockSize));
+        }
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (mDrainClaimed.compareAndSet(false, true)) {
+                        drain();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            mDrainClaimed.set(true);
+            mInline = true;
+            mDrainExited.countDown();
+        }
+    }
+
+    private void drain() {
+        try {
+            Block block;
+            while ((block = mFull.take()) != END) {
+                try {
+                    if (mFailure == null) {
+                        mTarget.write(block.mData, 0, block.mLength);
+                    }
+                } catch (IOException e) {
+                    mFailure = e;
+                } catch (RuntimeException e) {
+                    mFailure = new IOException(e);
+                }
+                block.mLength = 0;
+                mFree.put(block);
+                synchronized (mLock) {
+                    mWritten++;
+                    mLock.notifyAll();
+                }
+            }
+        } catch (InterruptedException e) {
+            mFailure = new InterruptedIOException("写出线程被中断");
+            synchronized (mLock) {
+                mLock.notifyAll();
+            }
+        } finally {
+            mDrainExited.countDown();
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        checkFailure();
+        while (len > 0) {
+            if (mInline) {
+                writeTarget(b, off, len);
+                return;
+            }
+            if (mCurrent == null) {
+                mCurrent = takeFree();
+                if (mCurrent == null) {
+                    // 已改由写入线程写出
+                    continue;
+                }
+            }
+            int n = Math.min(len, mCurrent.mData.length - mCurrent.mLength);
+            System.arraycopy(b, off, mCurrent.mData, mCurrent.mLength, n);
+            mCurrent.mLength += n;
+            off += n;
+            len -= n;
+            if (mCurrent.mLength == mCurrent.mData.length) {
+                submitCurrent();
+            }
+        }
+    }
+
+    /**
+     * 等待已写入的数据全部写出到目标流
+     */
+    @Override
+    public void flush() throws IOException {
+        if (mCurrent != null && mCurrent.mLength > 0) {
+            submitCurrent();
+        }
+        synchronized (mLock) {
+            while (mWritten < mQueued && mFailure == null) {
+                try {
+                    mLock.wait(POLL_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("等待写出被中断");
+                }
+                if (claimIfStalled()) {
+                    break;
+                }
+            }
+        }
+        checkFailure();
+    }
+
+    /**
+     * 写出剩余数据并结束后台线程(不关闭目标流)
+     */
+    @Override
+    public void close() throws IOException {
+        if (mClosed) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            mClosed = true;
+            mFull.offer(END);
+            awaitDrain();
+        }
+    }
+
+    /**
+     * 放弃未写出的数据并结束后台线程(导出失败或取消时调用)
+     */
+    public void abort() {
+        if (mClosed) {
+            return;
+        }
+        mClosed = true;
+        if (mFailure == null) {
+            mFailure = new IOException("输出已中止");
+        }
+        mFull.offer(END);
+        awaitDrain();
+    }
+
+    // 等待后台任务退出, 尚未开始运行的任务不再运行
+    private void awaitDrain() {
+        if (mDrainClaimed.compareAndSet(false, true)) {
+            mDrainExited.countDown();
+        }
+        try {
+            mDrainExited.await(CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 返回null表示已改由写入线程写出
+    private Block takeFree() throws IOException {
+        try {
+            Block block;
+            while ((block = mFree.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                synchronized (mLock) {
+                    if (claimIfStalled()) {
+                        return null;
+                    }
+                }
+            }
+            return block;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待写出被中断");
+        }
+    }
+
+    private void submitCurrent() throws IOException {
+        try {
+            mFull.put(mCurrent);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待写出被中断");
+        }
+        mCurrent = null;
+        synchronized (mLock) {
+            mQueued++;
+        }
+    }
+
+    // 后台任务超时仍未开始运行时, 由写入线程写出已排队的数据并在此后直接写出(调用方持有mLock)
+    private boolean claimIfStalled() throws IOException {
+        if (mDrainClaimed.get() || System.currentTimeMillis() - mStartTime <= START_TIMEOUT_MILLIS
+                || !mDrainClaimed.compareAndSet(false, true)) {
+            return false;
+        }
+        mInline = true;
+        mDrainExited.countDown();
+        Block block;
+        while ((block = mFull.poll()) != null) {
+            writeTarget(block.mData, 0, block.mLength);
+            block.mLength = 0;
+            mFree.offer(block);
+            mWritten++;
+        }
+        if (mCurrent != null) {
+            writeTarget(mCurrent.mData, 0, mCurrent.mLength);
+            mCurrent.mLength = 0;
+            mFree.offer(mCurrent);
+            mCurrent = null;
+        }
+        return true;
+    }
+
+    private void writeTarget(byte[] b, int off, int len) throws IOException {
+        try {
+            mTarget.write(b, off, len);
+        } catch (RuntimeException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        if (mFailure != null) {
+            throw mFailure;
+        }
+    }
+
+    private static class Block {
+        private final byte[] mData;
+        private int mLength = 0;
+
+        Block(int size) {
+            this.mData = new byte[size];
+        }
+    }
+}
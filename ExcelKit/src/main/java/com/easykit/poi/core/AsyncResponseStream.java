@@ -0,0 +1,250 @@
+package com.easykit.poi.core;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * <p>
+ * Servlet 3.1非阻塞下载输出流: 导出线程写入的数据按块放入有界队列(队列满时导出线程阻塞),
+ * 仅在socket可写(ServletOutputStream.isReady())时由容器回调写出, 慢速客户端不会占用容器线程。
+ * 导出结束后须调用complete()或abort()结束异步请求, close()只提交缓冲中的数据。
+ * <p>
+ */
+public class AsyncResponseStream extends OutputStream implements WriteListener, AsyncListener {
+    private final AsyncContext mContext;
+    private final ServletOutputStream mOut;
+    private final BlockingQueue<Block> mFree;
+    private final BlockingQueue<Block> mFull;
+    private Block mCurrent;
+    private volatile IOException mFailure = null;
+    // 以下字段由this保护
+    private boolean mIdle = false; // 队列为空且socket可写, 需由写入方触发写出
+    private boolean mFinished = false;
+    private boolean mCompleted = false;
+
+    /**
+     * @param context   已开启的异步上下文
+     * @param blockSize 块大小(字节)
+     * @param blocks    块数量, 每个下载最多缓存 blockSize x blocks 字节
+     */
+    public AsyncResponseStream(AsyncContext context, int blockSize, int blocks) throws IOException {
+        this.mContext = context;
+        this.mOut = context.getResponse().getOutputStream();
+        this.mFree = new ArrayBlockingQueue<Block>(blocks);
+        this.mFull = new ArrayBlockingQueue<Block>(blocks);
+        for (int i = 0; i < blocks; i++) {
+            mFree.add(new Block(blockSize));
+        }
+        context.addListener(this);
+        mOut.setWriteListener(this);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        checkFailure();
+        while (len > 0) {
+            if (mCurrent == null) {
+                mCurrent = takeFree();
+            }
+            int n = Math.min(len, mCurrent.mData.length - mCurrent.mLength);
+            System.arraycopy(b, off, mCurrent.mData, mCurrent.mLength, n);
+            mCurrent.mLength += n;
+            off += n;
+            len -= n;
+            if (mCurrent.mLength == mCurrent.mData.length) {
+                submitCurrent();
+            }
+        }
+    }
+
+    /**
+     * 提交缓冲中的数据(不等待写出)
+     */
+    @Override
+    public void flush() throws IOException {
+        checkFailure();
+        if (mCurrent != null && mCurrent.mLength > 0) {
+            submitCurrent();
+        }
+    }
+
+    /**
+     * 提交缓冲中的数据, 不结束异步请求
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    /**
+     * 导出成功: 剩余数据写出后结束异步请求
+     */
+    public void complete() throws IOException {
+        flush();
+        boolean idle;
+        synchronized (this) {
+            mFinished = true;
+            idle = mIdle;
+            mIdle = false;
+        }
+        if (idle) {
+            drain();
+        }
+    }
+
+    /**
+     * 导出失败或取消: 放弃未写出的数据并结束异步请求, 响应尚未提交时返回500
+     */
+    public void abort() {
+        abort(new IOException("输出已中止"));
+    }
+
+    private void abort(IOException cause) {
+        synchronized (this) {
+            if (mFailure == null) {
+                mFailure = cause;
+            }
+            mFull.clear();
+            // 唤醒等待空闲块的写入方
+            mFree.offer(new Block(0));
+            mFinished = true;
+            if (!mCompleted) {
+                ServletResponse response = mContext.getResponse();
+                if (!response.isCommitted() && response instanceof HttpServletResponse) {
+                    response.reset();
+                    ((HttpServletResponse) response).setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                }
+                completeContext();
+            }
+        }
+    }
+
+    /**
+     * 容器回调: socket可写时写出队列中的数据, 直到队列为空或socket不可写
+     */
+    @Override
+    public void onWritePossible() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        fail(t);
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        abort(new IOException("下载超时"));
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        fail(event.getThrowable());
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+
+    private synchronized void drain() throws IOException {
+        Block block;
+        while ((block = mFull.peek()) != null) {
+            // isReady()返回false后, 容器会在socket再次可写时回调onWritePossible()
+            if (!mOut.isReady()) {
+                return;
+            }
+            mOut.write(block.mData, 0, block.mLength);
+            mFull.poll();
+            block.mLength = 0;
+            mFree.offer(block);
+        }
+        if (!mFinished) {
+            mIdle = true;
+        } else if (!mCompleted && mOut.isReady()) {
+            completeContext();
+        }
+    }
+
+    private synchronized void fail(Throwable t) {
+        if (mFailure == null) {
+            mFailure = t instanceof IOException ? (IOException) t : new IOException("下载失败", t);
+        }
+        // 唤醒等待空闲块的写入方
+        mFull.clear();
+        mFree.clear();
+        mFree.offer(new Block(0));
+        if (!mCompleted) {
+            completeContext();
+        }
+    }
+
+    private void completeContext() {
+        mCompleted = true;
+        mContext.complete();
+    }
+
+    private Block takeFree() throws IOException {
+        try {
+            Block block = mFree.take();
+            checkFailure();
+            return block;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待写出被中断");
+        }
+    }
+
+    private void submitCurrent() throws IOException {
+        try {
+            mFull.put(mCurrent);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待写出被中断");
+        }
+        mCurrent = null;
+        boolean idle;
+        synchronized (this) {
+            idle = mIdle;
+            mIdle = false;
+        }
+        // 队列为空时容器不会回调onWritePossible(), 由写入线程直接写出
+        if (idle) {
+            drain();
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+        if (mFailure != null) {
+            throw mFailure;
+        }
+    }
+
+    private static class Block {
+        private final byte[] mData;
+        private int mLength = 0;
+
+        Block(int size) {
+            this.mData = new byte[size];
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.easykit.poi.core;
+
+import com.easykit.poi.annotation.ExportType;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * <p>
+ * 单元格值类型转换工具, 将属性原始值转换为Excel原生的数值/布尔/日期类型
+ * <p>
+ */
+public final class CellValues {
+    private CellValues() {}
+
+    /**
+     * 根据属性值的实际类型推断单元格类型
+     *
+     * @param value 属性值
+     * @return 单元格类型
+     */
+    public static ExportType typeOf(Object value) {
+        if (value instanceof Number) {
+            return ExportType.NUMERIC;
+        }
+        if (value instanceof Boolean) {
+            return ExportType.BOOLEAN;
+        }
+        if (value instanceof Date || value instanceof Calendar
+                || value instanceof LocalDate || value instanceof LocalDateTime) {
+            return ExportType.DATE;
+        }
+        return ExportType.STRING;
+    }
+
+    /**
+     * @param value 属性值
+     * @return 数值, 无法转换时返回null
+     */
+    public static Number toNumber(Object value) {
+        if (value instanceof Number) {
+            return (Number) value;
+        }
+        if (value instanceof String) {
+            String text = ((String) value).trim();
+            if (text.length() > 0) {
+                try {
+                    return Double.valueOf(text);
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param value 属性值
+     * @return 布尔值, 无法转换时返回null
+     */
+    public static Boolean toBoolean(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof String) {
+            String text = ((String) value).trim();
+            if ("true".equalsIgnoreCase(text)) {
+                return Boolean.TRUE;
+            }
+            if ("false".equalsIgnoreCase(text)) {
+                return Boolean.FALSE;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param value 属性值
+     * @return 日期, 无法转换时返回null
+     */
+    public static Date toDate(Object value) {
+        if (value instanceof Date) {
+            return (Date) value;
+        }
+        if (value instanceof Calendar) {
+            return ((Calendar) value).getTime();
+        }
+        if (value instanceof LocalDateTime) {
+            return Date.from(((LocalDateTime) value).atZone(ZoneId.systemDefault()).toInstant());
+        }
+        if (value instanceof LocalDate) {
+            return Date.from(((LocalDate) value).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,166 @@
+package com.easykit.poi.core;
+
+import java.time.temporal.TemporalAccessor;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * <p>
+ * 列宽估算: 按预先生成的码点宽度表计算文本的显示宽度(中日韩及全角字符计2, 控制字符和组合符号计0, 其余计1),
+ * 逐列记录最大宽度。单元格级别的计算不分配对象, 可选只采样前N行。
+ * <p>
+ */
+public class ColumnWidths {
+    /**
+     * 采样行数: 全部行
+     */
+    public static final int ALL_ROWS = -1;
+    /**
+     * 无法按内容计算时(表头和正文均为空)的默认列宽(单位: 1/256个字符宽度), 两种导出引擎一致
+     */
+    public static final int DEFAULT_COLUMN_WIDTH = 10 * 256;
+
+    // Excel列宽上限(字符数)
+    private static final int MAX_WIDTH = 255;
+    // 列宽留白(字符数)
+    private static final int PADDING = 2;
+    // 非文本值的估算宽度
+    private static final int DATE_WIDTH = Const.DEFAULT_DATE_FORMAT.length();
+    private static final int DECIMAL_WIDTH = 12;
+
+    private static final byte[] BMP_WIDTHS = new byte[0x10000];
+
+    static {
+        Arrays.fill(BMP_WIDTHS, (byte) 1);
+        fill(0x0000, 0x001F, 0); // 控制字符
+        fill(0x007F, 0x009F, 0);
+        fill(0x0300, 0x036F, 0); // 组合附加符号
+        fill(0x200B, 0x200F, 0); // 零宽字符
+        fill(0x1100, 0x115F, 2); // 谚文字母
+        fill(0x2E80, 0x303E, 2); // CJK部首、符号和标点
+        fill(0x3041, 0x33FF, 2); // 假名、注音、CJK兼容字符
+        fill(0x3400, 0x4DBF, 2); // CJK扩展A
+        fill(0x4E00, 0x9FFF, 2); // CJK统一汉字
+        fill(0xA000, 0xA4CF, 2); // 彝文
+        fill(0xAC00, 0xD7A3, 2); // 谚文音节
+        fill(0xF900, 0xFAFF, 2); // CJK兼容汉字
+        fill(0xFE30, 0xFE4F, 2); // CJK兼容形式
+        fill(0xFF00, 0xFF60, 2); // 全角ASCII及标点
+        fill(0xFFE0, 0xFFE6, 2); // 全角符号
+    }
+
+    private static void fill(int from, int to, int width) {
+        Arrays.fill(BMP_WIDTHS, from, to + 1, (byte) width);
+    }
+
+    private final int[] mWidths;
+    private final int mSampleRows;
+    private int mSampledRows = 0;
+
+    /**
+     * @param columns    列数
+     * @param sampleRows 采样行数, ALL_ROWS为全部行
+     */
+    public ColumnWidths(int columns, int sampleRows) {
+        this.mWidths = new int[columns];
+        this.mSampleRows = sampleRows;
+    }
+
+    /**
+     * 文本的显示宽度(字符数)
+     */
+    public static int displayWidth(CharSequence value) {
+        int width = 0;
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                width += supplementaryWidth(Character.toCodePoint(c, value.charAt(++i)));
+            } else {
+                width += BMP_WIDTHS[c];
+            }
+        }
+        return width;
+    }
+
+    private static int supplementaryWidth(int codePoint) {
+        if ((codePoint >= 0x1F300 && codePoint <= 0x1F64F) // 表情符号
+                || (codePoint >= 0x1F900 && codePoint <= 0x1F9FF)
+                || (codePoint >= 0x20000 && codePoint <= 0x3FFFD)) { // CJK扩展B及以后
+            return 2;
+        }
+        return 1;
+    }
+
+    /**
+     * 显示宽度转换为Excel列宽(单位: 1/256个字符宽度)
+     */
+    public static int toColumnWidth(int displayWidth) {
+        return Math.min(MAX_WIDTH, displayWidth + PADDING) * 256;
+    }
+
+    /**
+     * 是否仍在采样
+     */
+    public boolean isSampling() {
+        return mSampleRows == ALL_ROWS || mSampledRows < mSampleRows;
+    }
+
+    /**
+     * 记录单个值(不计入采样行数, 用于表头)
+     */
+    public void update(int column, Object value) {
+        int width = valueWidth(value);
+        if (width > mWidths[column]) {
+            mWidths[column] = width;
+        }
+    }
+
+    /**
+     * 记录一行数据
+     */
+    public void updateRow(Object[] values) {
+        for (int i = 0; i < values.length; i++) {
+            update(i, values[i]);
+        }
+        mSampledRows++;
+    }
+
+    /**
+     * 列宽(单位: 1/256个字符宽度)
+     */
+    public int getColumnWidth(int column) {
+        return mWidths[column] == 0 ? DEFAULT_COLUMN_WIDTH : toColumnWidth(mWidths[column]);
+    }
+
+    private static int valueWidth(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof CharSequence) {
+            return displayWidth((CharSequence) value);
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return integerWidth(((Number) value).longValue());
+        }
+        if (value instanceof Number) {
+            return DECIMAL_WIDTH;
+        }
+        if (value instanceof Boolean) {
+            return 5;
+        }
+        if (value instanceof Date || value instanceof Calendar || value instanceof TemporalAccessor) {
+            return DATE_WIDTH;
+        }
+        return displayWidth(value.toString());
+    }
+
+    private static int integerWidth(long value) {
+        int width = value < 0 ? 2 : 1;
+        while (value >= 10 || value <= -10) {
+            value /= 10;
+            width++;
+        }
+        return width;
+    }
+}
@@ -0,0 +1,69 @@
+/**
+
+ * Copyright (c) 2017, 吴汶泽 (wuwz@live.com).
+
+ *
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+
+ * you may not use this file except in compliance with the License.
+
+ * You may obtain a copy of the License at
+
+ *
+
+ *      http://www.apache.org/licenses/LICENSE-2.0
+
+ *
+
+ * Unless required by applicable law or agreed to in writing, software
+
+ * distributed under the License is distributed on an "AS IS" BASIS,
+
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+
+ * See the License for the specific language governing permissions and
+
+ * limitations under the License.
+
+ */
+package com.easykit.poi.core;
+
+public final class Const {
+	private Const() {}
+	
+	public static final String XLSX_SUFFIX = ".xlsx";
+	
+	public static final String XLSX_CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+	public static final String CSV_SUFFIX = ".csv";
+
+	public static final String CSV_CONTENT_TYPE = "text/csv";
+
+	public static final String TSV_SUFFIX = ".tsv";
+
+	public static final String TSV_CONTENT_TYPE = "text/tab-separated-values";
+
+	public static final String ZIP_SUFFIX = ".zip";
+
+	public static final String ZIP_CONTENT_TYPE = "application/zip";
+
+	public static final String DEFAULT_DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
+	public static final int DEFAULT_ROW_ACCESS_WINDOW_SIZE = 100;
+
+	/**
+	 * Servlet异步下载的默认超时时间(毫秒)
+	 */
+	public static final long DEFAULT_ASYNC_TIMEOUT = 10 * 60 * 1000L;
+
+	/**
+	 * 存放下拉列表数据的隐藏sheet(读取时只跳过隐藏且名称完全一致的sheet)
+	 */
+	public static final String RANGE_SHEET_NAME = "_excelkit_ranges";
+
+	/**
+	 * 下拉列表数据的名称前缀(后接列名, 如_range_A)
+	 */
+	public static final String RANGE_NAME_PREFIX = "_range_";
+}
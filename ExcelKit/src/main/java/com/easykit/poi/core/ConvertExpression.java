@@ -0,0 +1,206 @@
+package com.easykit.poi.core;
+
+import com.easykit.poi.convert.BatchExportConvert;
+import com.easykit.poi.convert.ExportConvert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * <p>
+ * 预编译的@ExportConfig.convert()表达式, 每个导出计划只解析一次:
+ * <pre>
+ * "s:1=男,2=女"                           编译为int键查找表
+ * "c:com.easykit.poi.convert.XxxConvert"  解析为共享的ExportConvert实例
+ * </pre>
+ * "s:"表达式的解析规则见ConvertMapping, 注解处理器(ExcelKit-processor)使用同一规则。
+ * <p>
+ */
+public abstract class ConvertExpression {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConvertExpression.class);
+    // 缓存数据格式器实例,避免多次使用反射进行实例化
+    private static final InstanceCache<ExportConvert> CONVERT_INSTANCES = new InstanceCache<ExportConvert>(ExportConvert.class, 256);
+    // 键跨度不超过该值时使用数组直接寻址, 否则二分查找
+    private static final int MAX_DIRECT_SPAN = 4096;
+
+    /**
+     * 转换单元格值
+     *
+     * @param value 属性原始值
+     * @return 转换后的值, 无法转换时返回原值的字符串形式
+     */
+    public abstract String convert(Object value);
+
+    /**
+     * @return 是否为批量转换器(BatchExportConvert)
+     */
+    public boolean isBatch() {
+        return false;
+    }
+
+    /**
+     * 批量转换一批数据行中同一列的去重值
+     *
+     * @param values 去重后的原始值
+     * @return 原始值与转换后值的映射
+     */
+    public Map<String, String> convertAll(Set<String> values) {
+        Map<String, String> result = new HashMap<String, String>();
+        for (String value : values) {
+            result.put(value, convert(value));
+        }
+        return result;
+    }
+
+    /**
+     * 编译转换表达式
+     *
+     * @param format 表达式
+     * @return 编译后的转换器, 表达式为空时返回null
+     */
+    public static ConvertExpression compile(String format) {
+        if (format == null || "".equals(format)) {
+            return null;
+        }
+        try {
+            int split = format.indexOf(':');
+            String protocol = format.substring(0, split).trim();
+            String body = format.substring(split + 1).trim();
+
+            // 键值对字符串解析：s:1=男,2=女
+            if ("s".equalsIgnoreCase(protocol)) {
+                return compileMapping(body);
+            }
+            // 使用处理类进行处理：c:com.wuwenze.poi.test.GradeCellFormat
+            if ("c".equalsIgnoreCase(protocol)) {
+                return new ClassConvert(CONVERT_INSTANCES.get(body));
+            }
+        } catch (Exception e) {
+            LOGGER.error("出现问题,可能是@ExportConfig.format()的值不规范导致。", e);
+        }
+        return IDENTITY;
+    }
+
+    private static ConvertExpression compileMapping(String body) {
+        // 按键排序
+        TreeMap<Integer, String> mapping = new TreeMap<Integer, String>(ConvertMapping.parse(body));
+
+        int[] keys = new int[mapping.size()];
+        String[] values = new String[mapping.size()];
+        int i = 0;
+        for (Map.Entry<Integer, String> entry : mapping.entrySet()) {
+            keys[i] = entry.getKey();
+            values[i] = entry.getValue();
+            i++;
+        }
+        return new MappingConvert(keys, values);
+    }
+
+    private static String stringOf(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    private static final ConvertExpression IDENTITY = new ConvertExpression() {
+        @Override
+        public String convert(Object value) {
+            return stringOf(value);
+        }
+    };
+
+    private static final class MappingConvert extends ConvertExpression {
+        private final int[] mKeys;
+        private final String[] mValues;
+        // 键分布紧凑时的直接寻址表
+        private final String[] mTable;
+        private final int mMinKey;
+
+        MappingConvert(int[] keys, String[] values) {
+            this.mKeys = keys;
+            this.mValues = values;
+            this.mMinKey = keys[0];
+            long span = (long) keys[keys.length - 1] - keys[0] + 1;
+            if (span <= MAX_DIRECT_SPAN) {
+                mTable = new String[(int) span];
+                for (int i = 0; i < keys.length; i++) {
+                    mTable[keys[i] - mMinKey] = values[i];
+                }
+            } else {
+                mTable = null;
+            }
+        }
+
+        @Override
+        public String convert(Object value) {
+            int key;
+            if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                key = ((Number) value).intValue();
+            } else {
+                try {
+                    key = Integer.parseInt(stringOf(value));
+                } catch (NumberFormatException e) {
+                    return stringOf(value);
+                }
+            }
+
+            String result = null;
+            if (mTable != null) {
+                long offset = (long) key - mMinKey;
+                if (offset >= 0 && offset < mTable.length) {
+                    result = mTable[(int) offset];
+                }
+            } else {
+                int index = Arrays.binarySearch(mKeys, key);
+                if (index >= 0) {
+                    result = mValues[index];
+                }
+            }
+            return result != null ? result : stringOf(value);
+        }
+    }
+
+    private static final class ClassConvert extends ConvertExpression {
+        private final ExportConvert mConvert;
+
+        ClassConvert(ExportConvert convert) {
+            this.mConvert = convert;
+        }
+
+        @Override
+        public String convert(Object value) {
+            String oldValue = stringOf(value);
+            try {
+                return mConvert.handler(oldValue);
+            } catch (Exception e) {
+                LOGGER.error("出现问题,可能是@ExportConfig.format()的值不规范导致。", e);
+            }
+            return oldValue;
+        }
+
+        @Override
+        public boolean isBatch() {
+            return mConvert instanceof BatchExportConvert;
+        }
+
+        @Override
+        public Map<String, String> convertAll(Set<String> values) {
+            if (!isBatch()) {
+                return super.convertAll(values);
+            }
+            try {
+                Map<String, String> result = ((BatchExportConvert) mConvert).batchHandler(values);
+                if (result != null) {
+                    return result;
+                }
+            } catch (Exception e) {
+                LOGGER.error("出现问题,可能是@ExportConfig.format()的值不规范导致。", e);
+            }
+            return Collections.emptyMap();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.easykit.poi.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * "s:"转换表达式的解析规则, 由运行时(ConvertExpression)和注解处理器(ExcelKit-processor)共用,
+ * 两者对同一表达式的解析结果保持一致。本类不依赖其他类库, 可在注解处理器中直接加载。
+ * <p>
+ */
+public final class ConvertMapping {
+    private ConvertMapping() {
+    }
+
+    /**
+     * 解析"s:"表达式(协议名不区分大小写, 可含首尾空白)
+     *
+     * @param format @ExportConfig.convert()的值
+     * @return 键与替换值(按声明顺序), 不是"s:"表达式时返回null
+     * @throws IllegalArgumentException 表达式不规范
+     */
+    public static Map<Integer, String> of(String format) {
+        int split = format == null ? -1 : format.indexOf(':');
+        if (split < 0 || !"s".equalsIgnoreCase(format.substring(0, split).trim())) {
+            return null;
+        }
+        return parse(format.substring(split + 1));
+    }
+
+    /**
+     * 解析键值对"1=男,2=女": 以逗号分隔各项(空项忽略), 每项在第一个等号处拆分(值中可以包含等号),
+     * 键和值去除首尾空白, 相同键保留第一个
+     *
+     * @param body 键值对
+     * @return 键与替换值(按声明顺序)
+     * @throws IllegalArgumentException 缺少等号或键不是整数
+     */
+    public static Map<Integer, String> parse(String body) {
+        Map<Integer, String> mapping = new LinkedHashMap<Integer, String>();
+        for (String p : body.split(",")) {
+            if (p.trim().isEmpty()) {
+                continue;
+            }
+            int eq = p.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("缺少'=': " + p);
+            }
+            Integer key = Integer.valueOf(p.substring(0, eq).trim());
+            if (!mapping.containsKey(key)) {
+                mapping.put(key, p.substring(eq + 1).trim());
+            }
+        }
+        return mapping;
+    }
+}
@@ -0,0 +1,237 @@
+package com.easykit.poi.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * 本地磁盘导出缓存: 缓存文件保存在指定目录下的SUB_DIRECTORY子目录中(由缓存独占, 不同的缓存实例应使用不同的目录),
+ * 索引保存在内存中(按访问顺序LRU), 总大小超过上限时淘汰最久未访问的文件, 超过有效期的文件在访问或写入时淘汰。
+ * 命中(文件打开成功)、未命中及淘汰次数可用于监控。
+ * <p>
+ * 每次put写入新的文件名, 被替换或淘汰的文件立即删除: 正在写出的命中文件被删除时,
+ * 已打开的文件在POSIX系统中仍可读完(Windows下删除会失败, 文件在下次启动时清理)。
+ * <p>
+ */
+public class DiskExportCache implements ExportCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DiskExportCache.class);
+    private static final String FILE_PREFIX = "excelkit-cache-";
+    // 缓存目录下由缓存独占的子目录
+    public static final String SUB_DIRECTORY = "excelkit-cache";
+
+    private final File mDirectory;
+    private final long mMaxBytes;
+    private final long mTtlMillis;
+    // 以下字段由this保护
+    private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private long mBytes = 0;
+    private long mSequence = 0;
+
+    private final AtomicLong mHits = new AtomicLong();
+    private final AtomicLong mMisses = new AtomicLong();
+    private final AtomicLong mEvictions = new AtomicLong();
+
+    /**
+     * @param directory 缓存目录, 文件保存在其下的SUB_DIRECTORY子目录中(启动时清理该子目录中上次遗留的缓存文件,
+     *                  目录中的其他文件不受影响)
+     * @param maxBytes  缓存文件总大小上限(字节)
+     * @param ttlMillis 有效期(毫秒), 0表示不过期
+     */
+    public DiskExportCache(File directory, long maxBytes, long ttlMillis) {
+        File cacheDirectory = new File(directory, SUB_DIRECTORY);
+        if (!cacheDirectory.isDirectory() && !cacheDirectory.mkdirs()) {
+            throw new IllegalArgumentException("无法创建缓存目录: " + cacheDirectory);
+        }
+        this.mDirectory = cacheDirectory;
+        this.mMaxBytes = maxBytes;
+        this.mTtlMillis = ttlMillis;
+        // 索引不持久化, 遗留的文件无法再命中
+        File[] stale = cacheDirectory.listFiles();
+        if (stale != null) {
+            for (File file : stale) {
+                if (file.getName().startsWith(FILE_PREFIX)) {
+                    delete(file);
+                }
+            }
+        }
+    }
+
+    @Override
+    public InputStream open(String key) {
+        InputStream in = null;
+        synchronized (this) {
+            Entry entry = mEntries.get(key);
+            if (entry != null) {
+                if (isExpired(entry, System.currentTimeMillis())) {
+                    evict(key, entry);
+                } else {
+                    // 持有锁时打开, 文件不会在打开前被淘汰删除
+                    try {
+                        in = new FileInputStream(entry.mFile);
+                    } catch (IOException e) {
+                        LOGGER.warn("打开缓存文件失败:{}", entry.mFile);
+                        mEntries.remove(key);
+                        mBytes -= entry.mLength;
+                    }
+                }
+            }
+        }
+        (in != null ? mHits : mMisses).incrementAndGet();
+        return in;
+    }
+
+    @Override
+    public void put(String key, File file) throws IOException {
+        long length = file.length();
+        if (length > mMaxBytes) {
+            LOGGER.info("导出结果{}字节, 超过缓存上限{}字节, 不缓存.", length, mMaxBytes);
+            delete(file);
+            return;
+        }
+
+        File target;
+        synchronized (this) {
+            target = new File(mDirectory, FILE_PREFIX + Long.toHexString(System.nanoTime()) + "-" + (mSequence++));
+        }
+        try {
+            Files.move(file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            delete(file);
+            throw e;
+        }
+
+        synchronized (this) {
+            Entry previous = mEntries.put(key, new Entry(target, length, System.currentTimeMillis()));
+            mBytes += length;
+            if (previous != null) {
+                mBytes -= previous.mLength;
+                delete(previous.mFile);
+            }
+            evictExpired();
+            // 按访问顺序淘汰, 直到总大小不超过上限(刚放入的文件位于末尾, 不会被淘汰)
+            Iterator<Map.Entry<String, Entry>> it = mEntries.entrySet().iterator();
+            while (mBytes > mMaxBytes && it.hasNext()) {
+                Map.Entry<String, Entry> eldest = it.next();
+                it.remove();
+                release(eldest.getValue());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void remove(String key) {
+        Entry entry = mEntries.remove(key);
+        if (entry != null) {
+            mBytes -= entry.mLength;
+            delete(entry.mFile);
+        }
+    }
+
+    /**
+     * 清空缓存(不计入淘汰次数)
+     */
+    public synchronized void clear() {
+        for (Entry entry : mEntries.values()) {
+            delete(entry.mFile);
+        }
+        mEntries.clear();
+        mBytes = 0;
+    }
+
+    /**
+     * @return 命中次数(缓存文件打开成功)
+     */
+    public long getHitCount() {
+        return mHits.get();
+    }
+
+    /**
+     * @return 未命中次数(包括已过期及文件无法打开)
+     */
+    public long getMissCount() {
+        return mMisses.get();
+    }
+
+    /**
+     * @return 因超过大小上限或有效期被淘汰的次数
+     */
+    public long getEvictionCount() {
+        return mEvictions.get();
+    }
+
+    /**
+     * @return 缓存文件总大小(字节)
+     */
+    public synchronized long getSize() {
+        return mBytes;
+    }
+
+    /**
+     * @return 缓存文件数
+     */
+    public synchronized int getEntryCount() {
+        return mEntries.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DiskExportCache[entries=%d, bytes=%d, hits=%d, misses=%d, evictions=%d]",
+                getEntryCount(), getSize(), getHitCount(), getMissCount(), getEvictionCount());
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return mTtlMillis > 0 && now - entry.mCreated > mTtlMillis;
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        Iterator<Entry> it = mEntries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (isExpired(entry, now)) {
+                it.remove();
+                release(entry);
+            }
+        }
+    }
+
+    private void evict(String key, Entry entry) {
+        mEntries.remove(key);
+        release(entry);
+    }
+
+    private void release(Entry entry) {
+        mBytes -= entry.mLength;
+        mEvictions.incrementAndGet();
+        delete(entry.mFile);
+    }
+
+    private static void delete(File file) {
+        if (file.exists() && !file.delete()) {
+            LOGGER.warn("删除缓存文件失败:{}", file);
+        }
+    }
+
+    private static class Entry {
+        private final File mFile;
+        private final long mLength;
+        private final long mCreated;
+
+        Entry(File file, long length, long created) {
+            this.mFile = file;
+            this.mLength = length;
+            this.mCreated = created;
+        }
+    }
+}
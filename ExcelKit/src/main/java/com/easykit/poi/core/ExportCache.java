@@ -0,0 +1,40 @@
+package com.easykit.poi.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * <p>
+ * 导出结果缓存: 按调用方提供的键缓存生成完成的文件, 相同的导出再次请求时直接写出缓存文件, 不再查询数据和生成工作薄。
+ * 键应包含影响导出结果的全部因素(查询条件、实体类、sheet名、导出引擎等)。实现须线程安全。
+ * <p>
+ *
+ * @see DiskExportCache
+ */
+public interface ExportCache {
+
+    /**
+     * 打开缓存文件(打开成功才算命中)
+     *
+     * @param key 缓存键
+     * @return 缓存文件的输入流(由调用方关闭), 未命中、已过期或文件无法打开时返回null
+     */
+    InputStream open(String key);
+
+    /**
+     * 放入生成完成的文件(文件由缓存接管, 调用后不应再使用)
+     *
+     * @param key  缓存键
+     * @param file 导出结果文件
+     * @throws IOException 文件无法移入缓存
+     */
+    void put(String key, File file) throws IOException;
+
+    /**
+     * 移除缓存(如数据已变更)
+     *
+     * @param key 缓存键
+     */
+    void remove(String key);
+}
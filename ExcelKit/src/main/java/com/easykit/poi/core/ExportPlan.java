@@ -0,0 +1,184 @@
+package com.easykit.poi.core;
+
+import com.easykit.poi.annotation.ExportConfig;
+import com.easykit.poi.pojo.ExportColumns;
+import com.easykit.poi.pojo.ExportItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ * 实体类的导出计划: 解析后的导出列、属性读取器以及列宽。
+ * 每个Class只解析一次并全局缓存, 创建后不可变, 可在多个导出之间并发共享。
+ * 实体类存在编译期生成的导出计划(GeneratedExportPlan)时直接使用, 不再反射扫描注解。
+ * <p>
+ */
+public final class ExportPlan {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExportPlan.class);
+    private static final ClassValue<ExportPlan> CACHE = new ClassValue<ExportPlan>() {
+        @Override
+        protected ExportPlan computeValue(Class<?> type) {
+            return build(type);
+        }
+    };
+
+    private final Class<?> mClass;
+    private final List<ExportItem> mExportItems;
+    private final PropertyGetter[] mGetters;
+    private final ConvertExpression[] mConverts;
+    private final short[] mWidths;
+    private RowReader mRowReader = null;
+
+    private ExportPlan(Class<?> clazz, List<ExportItem> exportItems, PropertyGetter[] getters) {
+        this(clazz, exportItems, getters, null);
+    }
+
+    private ExportPlan(Class<?> clazz, List<ExportItem> exportItems, PropertyGetter[] getters, ConvertExpression[] converts) {
+        this.mClass = clazz;
+        this.mExportItems = Collections.unmodifiableList(exportItems);
+        this.mGetters = getters;
+        this.mConverts = new ConvertExpression[exportItems.size()];
+        for (int i = 0; i < mConverts.length; i++) {
+            mConverts[i] = converts != null && converts[i] != null ? converts[i] : ConvertExpression.compile(exportItems.get(i).getConvert());
+        }
+        this.mWidths = new short[exportItems.size()];
+        for (int i = 0; i < mWidths.length; i++) {
+            mWidths[i] = exportItems.get(i).getWidth();
+        }
+    }
+
+    /**
+     * 获取实体类的导出计划(首次调用时解析并缓存)
+     *
+     * @param clazz 实体Class对象
+     * @return 导出计划
+     */
+    public static ExportPlan of(Class<?> clazz) {
+        return CACHE.get(clazz);
+    }
+
+    private static ExportPlan build(Class<?> clazz) {
+        ExportPlan generated = loadGenerated(clazz);
+        if (generated != null) {
+            return generated;
+        }
+
+        // 导出列查询。
+        ExportConfig currentExportConfig = null;
+        List<ExportItem> exportItems = new ArrayList<ExportItem>();
+        for (Field field : clazz.getDeclaredFields()) {
+
+            currentExportConfig = field.getAnnotation(ExportConfig.class);
+            if (currentExportConfig != null) {
+                exportItems.add(new ExportItem()
+                        .setField(field.getName())
+                        .setDisplay("field".equals(currentExportConfig.value()) ? field.getName() : currentExportConfig.value())
+                        .setWidth(currentExportConfig.width())
+                        .setConvert(currentExportConfig.convert())
+//                        .setColor(currentExportConfig.color())
+                        .setRange(currentExportConfig.range())
+                        .setReplace(currentExportConfig.replace())
+                        .setType(currentExportConfig.type())
+                        .setFormat(currentExportConfig.format())
+                        .setSharedString(currentExportConfig.sharedString()));
+            }
+        }
+
+        // 预编译属性读取器, 行循环中不再进行反射查找
+        PropertyGetter[] getters = new PropertyGetter[exportItems.size()];
+        for (int i = 0; i < getters.length; i++) {
+            getters[i] = PropertyGetters.compile(clazz, exportItems.get(i).getField());
+        }
+        return new ExportPlan(clazz, exportItems, getters);
+    }
+
+    // 优先使用注解处理器生成的导出计划: 仅加载一个类, 不扫描注解
+    private static ExportPlan loadGenerated(Class<?> clazz) {
+        GeneratedExportPlan generated;
+        try {
+            Class<?> planClass = Class.forName(clazz.getName() + GeneratedExportPlan.CLASS_SUFFIX, true, clazz.getClassLoader());
+            generated = planClass.asSubclass(GeneratedExportPlan.class).getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (Exception e) {
+            LOGGER.warn("加载{}的生成类失败({}), 改为运行时解析.", clazz.getName(), e.toString());
+            return null;
+        }
+
+        List<ExportItem> exportItems = new ArrayList<ExportItem>(generated.exportItems());
+        PropertyGetter[] getters = generated.getters();
+        for (int i = 0; i < getters.length; i++) {
+            if (getters[i] == null) {
+                getters[i] = PropertyGetters.compile(clazz, exportItems.get(i).getField());
+            }
+        }
+        ExportPlan plan = new ExportPlan(clazz, exportItems, getters, generated.converts());
+        // 所有列均在编译期生成了读取代码时, 生成类同时实现整行读取
+        if (generated instanceof RowReader) {
+            plan.mRowReader = (RowReader) generated;
+        }
+        return plan;
+    }
+
+    /**
+     * 根据列定义创建导出计划(无实体类, 数据行为Map、Object[]或List), 每次导出创建一次
+     *
+     * @param columns 列定义
+     * @return 导出计划
+     */
+    public static ExportPlan of(ExportColumns columns) {
+        List<ExportItem> exportItems = new ArrayList<ExportItem>(columns.getColumns());
+        PropertyGetter[] getters = new PropertyGetter[exportItems.size()];
+        for (int i = 0; i < getters.length; i++) {
+            getters[i] = PropertyGetters.forRow(exportItems.get(i).getField(), i);
+        }
+        return new ExportPlan(null, exportItems, getters);
+    }
+
+    /**
+     * @return 实体Class对象, 按列定义创建时为null
+     */
+    public Class<?> getExportClass() {
+        return mClass;
+    }
+
+    public List<ExportItem> getExportItems() {
+        return mExportItems;
+    }
+
+    public int size() {
+        return mExportItems.size();
+    }
+
+    public ExportItem getExportItem(int index) {
+        return mExportItems.get(index);
+    }
+
+    public PropertyGetter getGetter(int index) {
+        return mGetters[index];
+    }
+
+    /**
+     * @param index 列索引
+     * @return 预编译的转换表达式, 未配置convert时为null
+     */
+    public ConvertExpression getConvert(int index) {
+        return mConverts[index];
+    }
+
+    /**
+     * @return 编译期生成的整行读取器, 不存在时为null(逐列调用PropertyGetter)
+     */
+    public RowReader getRowReader() {
+        return mRowReader;
+    }
+
+    public short getWidth(int index) {
+        return mWidths[index];
+    }
+}
@@ -0,0 +1,134 @@
+package com.easykit.poi.core;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * 导出进度: 已写出行数、已完成sheet数、已输出字节数及剩余时间估算, 并提供协作式取消。
+ * 计数由导出线程(及并行sheet线程)更新, 可在任意线程中读取。
+ * <p>
+ */
+public class ExportProgress {
+    private final long mTotalRows;
+    private final AtomicLong mRowsWritten = new AtomicLong();
+    private final AtomicLong mBytesWritten = new AtomicLong();
+    private volatile int mSheetsCompleted = 0;
+    private volatile long mStartTime = 0;
+    private volatile long mEndTime = 0;
+    private volatile boolean mCancelled = false;
+
+    /**
+     * @param totalRows 数据总行数, 未知时为-1(无法估算剩余时间)
+     */
+    public ExportProgress(long totalRows) {
+        this.mTotalRows = totalRows;
+    }
+
+    public void start() {
+        mStartTime = System.currentTimeMillis();
+    }
+
+    public void finish() {
+        mEndTime = System.currentTimeMillis();
+    }
+
+    public void addRows(int rows) {
+        mRowsWritten.addAndGet(rows);
+    }
+
+    public synchronized void addSheet() {
+        mSheetsCompleted++;
+    }
+
+    public void cancel() {
+        mCancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return mCancelled;
+    }
+
+    /**
+     * 已取消时终止导出(在批次之间调用)
+     *
+     * @throws CancellationException 导出已取消
+     */
+    public void checkCancelled() {
+        if (mCancelled) {
+            throw new CancellationException("导出已取消");
+        }
+    }
+
+    /**
+     * 统计写入输出流的字节数
+     */
+    public OutputStream wrap(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                mBytesWritten.incrementAndGet();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                mBytesWritten.addAndGet(len);
+            }
+        };
+    }
+
+    public long getTotalRows() {
+        return mTotalRows;
+    }
+
+    public long getRowsWritten() {
+        return mRowsWritten.get();
+    }
+
+    public int getSheetsCompleted() {
+        return mSheetsCompleted;
+    }
+
+    public long getBytesWritten() {
+        return mBytesWritten.get();
+    }
+
+    /**
+     * 已耗时(毫秒), 未开始时为0
+     */
+    public long getElapsedMillis() {
+        if (mStartTime == 0) {
+            return 0;
+        }
+        return (mEndTime == 0 ? System.currentTimeMillis() : mEndTime) - mStartTime;
+    }
+
+    /**
+     * 完成百分比(0-100), 总行数未知时为-1
+     */
+    public double getPercent() {
+        if (mTotalRows <= 0) {
+            return -1;
+        }
+        return Math.min(100D, getRowsWritten() * 100D / mTotalRows);
+    }
+
+    /**
+     * 按已写出行的速度估算剩余时间(毫秒), 总行数未知或尚未写出数据时为-1
+     */
+    public long getEstimatedRemainingMillis() {
+        long rows = getRowsWritten();
+        if (mEndTime != 0) {
+            return 0;
+        }
+        if (mTotalRows <= 0 || rows == 0) {
+            return -1;
+        }
+        return getElapsedMillis() * Math.max(0, mTotalRows - rows) / rows;
+    }
+}
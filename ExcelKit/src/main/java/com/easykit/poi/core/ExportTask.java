@@ -0,0 +1,29 @@
+package com.easykit.poi.core;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+/**
+ * <p>
+ * 异步导出句柄: get()返回导出结果(true-操作成功,false-操作失败), getProgress()查询进度。
+ * cancel()会在当前批次写完后停止读取数据并删除临时文件。
+ * <p>
+ */
+public class ExportTask extends FutureTask<Boolean> {
+    private final ExportProgress mProgress;
+
+    public ExportTask(Callable<Boolean> callable, ExportProgress progress) {
+        super(callable);
+        this.mProgress = progress;
+    }
+
+    public ExportProgress getProgress() {
+        return mProgress;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        mProgress.cancel();
+        return super.cancel(mayInterruptIfRunning);
+    }
+}
@@ -0,0 +1,34 @@
+package com.easykit.poi.core;
+
+import com.easykit.poi.pojo.ExportItem;
+
+import java.util.List;
+
+/**
+ * <p>
+ * 编译期生成的导出计划(由ExcelKit-processor注解处理器为每个含@ExportConfig字段的实体类生成,
+ * 类名为实体类的二进制名加"_ExcelKitPlan"后缀)。存在生成类时ExportPlan直接使用其导出列、读取器及转换器,
+ * 不再在运行时扫描注解和编译读取器。所有列均可直接读取时, 生成类同时实现RowReader。
+ * <p>
+ */
+public interface GeneratedExportPlan {
+    /**
+     * 生成类名后缀
+     */
+    String CLASS_SUFFIX = "_ExcelKitPlan";
+
+    /**
+     * @return 导出列, 与@ExportConfig字段的声明顺序一致
+     */
+    List<ExportItem> exportItems();
+
+    /**
+     * @return 各列的读取器(直接调用getter), 元素为null时在运行时编译
+     */
+    PropertyGetter[] getters();
+
+    /**
+     * @return 各列内联的转换器("s:"表达式), 元素为null时在运行时按表达式编译
+     */
+    ConvertExpression[] converts();
+}
@@ -0,0 +1,45 @@
+package com.easykit.poi.core;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>
+ * 按类名缓存转换器/下拉数据实例: 线程安全, 有容量上限且不会整体清空。
+ * 超出容量后新类型不再缓存(每次创建新实例), 已缓存的实例不受影响。
+ * <p>
+ *
+ * @param <T> 实例类型
+ */
+public class InstanceCache<T> {
+    private final Class<T> mType;
+    private final int mMaxSize;
+    private final ConcurrentMap<String, T> mInstances = new ConcurrentHashMap<String, T>();
+
+    public InstanceCache(Class<T> type, int maxSize) {
+        this.mType = type;
+        this.mMaxSize = maxSize;
+    }
+
+    /**
+     * 获取指定类的实例
+     *
+     * @param className 实现类全名
+     * @return 实例
+     * @throws ReflectiveOperationException 类不存在或无法实例化(构造方法抛出的异常包装为InvocationTargetException)
+     * @throws ClassCastException           类未实现指定的类型
+     */
+    public T get(String className) throws ReflectiveOperationException {
+        T instance = mInstances.get(className);
+        if (instance == null) {
+            instance = Class.forName(className).asSubclass(mType).getDeclaredConstructor().newInstance();
+            if (mInstances.size() < mMaxSize) {
+                T existing = mInstances.putIfAbsent(className, instance);
+                if (existing != null) {
+                    instance = existing;
+                }
+            }
+        }
+        return instance;
+    }
+}
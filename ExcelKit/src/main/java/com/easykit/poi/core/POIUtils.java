@@ -0,0 +1,478 @@
+/**
+
+ * Copyright (c) 2017, 吴汶泽 (wuwz@live.com).
+
+ *
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+
+ * you may not use this file except in compliance with the License.
+
+ * You may obtain a copy of the License at
+
+ *
+
+ *      http://www.apache.org/licenses/LICENSE-2.0
+
+ *
+
+ * Unless required by applicable law or agreed to in writing, software
+
+ * distributed under the License is distributed on an "AS IS" BASIS,
+
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+
+ * See the License for the specific language governing permissions and
+
+ * limitations under the License.
+
+ */
+package com.easykit.poi.core;
+
+import org.apache.poi.ss.usermodel.DataValidation;
+import org.apache.poi.ss.usermodel.DataValidationConstraint;
+import org.apache.poi.ss.usermodel.DataValidationHelper;
+import org.apache.poi.ss.usermodel.Name;
+import org.apache.poi.ss.util.CellRangeAddressList;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.TempFile;
+import org.apache.poi.xssf.streaming.SXSSFCell;
+import org.apache.poi.xssf.streaming.SXSSFRow;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * <p>
+ * Apache POI SXSS相关API的简易封装
+ * <p>
+ * 
+ * @author wuwz
+ * @since 2017年4月10日
+ */
+public class POIUtils {
+	private static final Logger LOGGER = LoggerFactory.getLogger(POIUtils.class);
+	// 临时文件目录(null为系统默认)
+	private static volatile File mTempDirectory = null;
+	// POI实际使用的SXSSF临时文件目录(探测结果)
+	private static volatile File mPoiTempDirectory = null;
+	private static final String SXSSF_PROBE_PREFIX = "excelkit-probe";
+
+	public static SXSSFWorkbook newSXSSFWorkbook(int rowAccessWindowSize) {
+		return new SXSSFWorkbook(rowAccessWindowSize);
+	}
+
+	public static SXSSFWorkbook newSXSSFWorkbook() {
+		return newSXSSFWorkbook(Const.DEFAULT_ROW_ACCESS_WINDOW_SIZE);
+	}
+	
+	/**
+	 * 设置临时文件目录(如tmpfs或本地高速磁盘), 为进程级设置, 建议在应用启动时调用。
+	 * XML/CSV引擎及ExcelKit自身的临时文件始终写入该目录; SXSSF的临时文件通过POI的公开API
+	 * TempFile.setTempFileCreationStrategy(POI 3.11+)设置。当前使用的POI 3.10.1中SXSSF直接调用
+	 * File.createTempFile()写入java.io.tmpdir, 而JDK在首次创建临时文件时即缓存该目录, 运行时修改java.io.tmpdir不生效,
+	 * 此时只能通过启动参数-Djava.io.tmpdir指定, 并输出警告。
+	 * @param directory 临时文件目录
+	 */
+	public static synchronized void setTempDirectory(File directory) {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IllegalArgumentException("无法创建临时文件目录: " + directory);
+		}
+		mTempDirectory = directory;
+		mPoiTempDirectory = null;
+		if (setPoiTempStrategy(directory)) {
+			mPoiTempDirectory = directory;
+		} else {
+			LOGGER.warn("当前POI版本不支持TempFile.setTempFileCreationStrategy, SXSSF临时文件仍写入{}, 请通过启动参数-Djava.io.tmpdir指定.",
+					poiTempDirectory());
+		}
+	}
+
+	// POI 3.11+: TempFile.setTempFileCreationStrategy(new DefaultTempFileCreationStrategy(directory))
+	private static boolean setPoiTempStrategy(File directory) {
+		try {
+			Class<?> strategyType = Class.forName("org.apache.poi.util.TempFileCreationStrategy");
+			Object strategy = Class.forName("org.apache.poi.util.DefaultTempFileCreationStrategy")
+					.getConstructor(File.class).newInstance(directory);
+			TempFile.class.getMethod("setTempFileCreationStrategy", strategyType).invoke(null, strategy);
+			return true;
+		} catch (ClassNotFoundException e) {
+			return false;
+		} catch (NoSuchMethodException e) {
+			return false;
+		} catch (Exception e) {
+			LOGGER.warn("调用TempFile.setTempFileCreationStrategy失败: {}", e.toString());
+			return false;
+		}
+	}
+
+	/**
+	 * 在临时文件目录中创建临时文件
+	 */
+	public static File createTempFile(String prefix, String suffix) throws IOException {
+		return File.createTempFile(prefix, suffix, mTempDirectory);
+	}
+
+	// SXSSF实际使用的临时文件目录: 通过公开API创建探测文件确定(POI 3.11+使用TempFile, 3.10及以下使用File.createTempFile)
+	private static File poiTempDirectory() {
+		File directory = mPoiTempDirectory;
+		if (directory == null) {
+			try {
+				File probe = isTempStrategySupported() ? TempFile.createTempFile(SXSSF_PROBE_PREFIX, ".tmp")
+						: File.createTempFile(SXSSF_PROBE_PREFIX, ".tmp");
+				directory = probe.getAbsoluteFile().getParentFile();
+				probe.delete();
+			} catch (Exception e) {
+				LOGGER.warn("无法确定SXSSF临时文件目录: {}", e.toString());
+			}
+			mPoiTempDirectory = directory;
+		}
+		return directory;
+	}
+
+	private static boolean isTempStrategySupported() {
+		try {
+			Class.forName("org.apache.poi.util.TempFileCreationStrategy");
+			return true;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	public static SXSSFSheet newSXSSFSheet(SXSSFWorkbook wb,String sheetName) {
+		return (SXSSFSheet) wb.createSheet(sheetName);
+	}
+	
+	public static SXSSFRow newSXSSFRow(SXSSFSheet sheet,int index) {
+		return (SXSSFRow) sheet.createRow(index);
+	}
+	
+	public static SXSSFCell newSXSSFCell(SXSSFRow row, int index) {
+		return (SXSSFCell) row.createCell(index);
+	}
+
+	/**
+	 * 设定单元格宽度 (手动/自动)
+	 * @param sheet 工作薄对象
+	 * @param index 单元格索引
+	 * @param width 指定宽度,-1为自适应
+	 * @param value 自适应需要单元格内容进行计算
+	 */
+	public static void setColumnWidth(SXSSFSheet sheet,int index, short width, String value) {
+		sheet.setColumnWidth(index, columnWidth(width, value));
+	}
+
+	/**
+	 * 计算单元格宽度 (手动/自动)
+	 * @param width 指定宽度,-1为自适应
+	 * @param value 自适应需要单元格内容进行计算
+	 * @return 列宽(单位: 1/256个字符宽度)
+	 */
+	public static int columnWidth(short width, String value) {
+		if (width != -1) {
+			return (int) (width * 35.7);
+		}
+		int displayWidth = value == null ? 0 : ColumnWidths.displayWidth(value);
+		return displayWidth == 0 ? ColumnWidths.DEFAULT_COLUMN_WIDTH : ColumnWidths.toColumnWidth(displayWidth);
+	}
+
+	/**
+	 * 设置浏览器下载的响应头(须在写出任何数据之前调用)
+	 * @param response 响应对象
+	 * @param fileName 文件名(无需后缀)
+	 */
+	public static void setDownloadHeaders(HttpServletResponse response, String fileName) throws UnsupportedEncodingException {
+		setDownloadHeaders(response, fileName, Const.XLSX_CONTENT_TYPE, Const.XLSX_SUFFIX);
+	}
+
+	/**
+	 * 设置浏览器下载的响应头(须在写出任何数据之前调用)
+	 * @param response 响应对象
+	 * @param fileName 文件名(无需后缀)
+	 * @param contentType 文件类型
+	 * @param suffix 文件后缀
+	 */
+	public static void setDownloadHeaders(HttpServletResponse response, String fileName, String contentType, String suffix)
+			throws UnsupportedEncodingException {
+		response.setContentType(contentType);
+		response.setHeader("Content-disposition", "attachment; filename=" + URLEncoder.encode(String.format("%s%s", fileName, suffix), "UTF-8"));
+	}
+	
+	/**
+	 * 写出工作薄到浏览器或输出流. 写出失败时异常抛给调用方, 且不关闭输出流、不提交响应,
+	 * 以便调用方在响应尚未提交时返回错误信息.
+	 */
+	public static void writeByLocalOrBrowser(HttpServletResponse response, String fileName, SXSSFWorkbook wb,
+			OutputStream out) throws Exception {
+		try{
+			if(response != null) {
+				// response对象不为空,响应到浏览器下载
+				setDownloadHeaders(response, fileName);
+				if (out == null) {
+					out = response.getOutputStream();
+				}
+			}
+			wb.write(out);
+			out.flush();
+		}finally{
+			// 删除SXSSF临时文件
+			wb.dispose();
+		}
+		out.close();
+		if(response != null){
+			response.flushBuffer();
+		}
+	}
+	/**
+	 * 将本地生成的Excel文件写出到浏览器: 以FileChannel.transferTo写出, 支持单个Range请求(断点续传),
+	 * 通过If-Range校验文件未变化. 多个Range或文件已变化时返回完整文件.
+	 * @param request 请求对象(用于读取Range/If-Range)
+	 * @param response 响应对象
+	 * @param file 本地文件
+	 * @param fileName 下载文件名(无需后缀)
+	 */
+	public static void writeFileToBrowser(HttpServletRequest request, HttpServletResponse response, File file, String fileName)
+			throws IOException {
+		writeFileToBrowser(request, response, file, fileName, Const.XLSX_CONTENT_TYPE, Const.XLSX_SUFFIX);
+	}
+
+	/**
+	 * 将本地生成的文件写出到浏览器(可用于CSV/TSV等其他格式)
+	 * @param contentType 文件类型
+	 * @param suffix 文件后缀
+	 */
+	public static void writeFileToBrowser(HttpServletRequest request, HttpServletResponse response, File file, String fileName,
+			String contentType, String suffix) throws IOException {
+		long length = file.length();
+		long lastModified = file.lastModified();
+		String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+		setDownloadHeaders(response, fileName, contentType, suffix);
+		response.setHeader("Accept-Ranges", "bytes");
+		response.setHeader("ETag", etag);
+		response.setDateHeader("Last-Modified", lastModified);
+
+		long start = 0;
+		long end = length - 1;
+		String range = request.getHeader("Range");
+		if (range != null && isCurrentFile(request, etag, lastModified)) {
+			long[] bounds = parseRange(range, length);
+			if (bounds == null) {
+				response.setHeader("Content-Range", "bytes */" + length);
+				response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+				return;
+			}
+			if (bounds.length == 2) {
+				start = bounds[0];
+				end = bounds[1];
+				response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+				response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+			}
+		}
+		response.setContentLengthLong(end - start + 1);
+
+		FileInputStream in = new FileInputStream(file);
+		try {
+			FileChannel channel = in.getChannel();
+			WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+			long position = start;
+			while (position <= end) {
+				long n = channel.transferTo(position, end - position + 1, target);
+				if (n <= 0) {
+					throw new EOFException("文件在写出过程中被截断: " + file);
+				}
+				position += n;
+			}
+		} finally {
+			in.close();
+		}
+		response.flushBuffer();
+	}
+
+	// If-Range为ETag或日期, 与当前文件不一致时忽略Range
+	private static boolean isCurrentFile(HttpServletRequest request, String etag, long lastModified) {
+		String ifRange = request.getHeader("If-Range");
+		if (ifRange == null) {
+			return true;
+		}
+		if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+			return ifRange.equals(etag);
+		}
+		try {
+			return request.getDateHeader("If-Range") / 1000 == lastModified / 1000;
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * 解析Range请求头
+	 * @return {start, end}; 空数组表示忽略Range返回完整文件; null表示范围无法满足
+	 */
+	static long[] parseRange(String range, long length) {
+		if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+			return new long[0];
+		}
+		String spec = range.substring("bytes=".length()).trim();
+		int dash = spec.indexOf('-');
+		if (dash < 0) {
+			return new long[0];
+		}
+		try {
+			long start;
+			long end;
+			if (dash == 0) {
+				// 最后N个字节
+				long suffix = Long.parseLong(spec.substring(1));
+				if (suffix <= 0) {
+					return null;
+				}
+				start = Math.max(0, length - suffix);
+				end = length - 1;
+			} else {
+				start = Long.parseLong(spec.substring(0, dash));
+				end = dash == spec.length() - 1 ? length - 1 : Math.min(length - 1, Long.parseLong(spec.substring(dash + 1)));
+				if (start >= length) {
+					return null;
+				}
+				if (end < start) {
+					return new long[0];
+				}
+			}
+			return length > 0 ? new long[]{start, end} : null;
+		} catch (NumberFormatException e) {
+			return new long[0];
+		}
+	}
+
+	/**
+	 * @param column 列索引
+	 * @return 该列下拉列表数据的名称
+	 */
+	public static String rangeName(int column) {
+		return Const.RANGE_NAME_PREFIX + CellReference.convertNumToColString(column);
+	}
+
+	/**
+	 * @param column 列索引(隐藏sheet中与数据列相同的列)
+	 * @param size 下拉列表数据个数
+	 * @return 隐藏sheet中该列数据的绝对引用
+	 */
+	public static String rangeReference(int column, int size) {
+		String col = CellReference.convertNumToColString(column);
+		return "'" + Const.RANGE_SHEET_NAME + "'!$" + col + "$1:$" + col + "$" + size;
+	}
+
+	/**
+	 * 将下拉列表数据写入隐藏sheet(每列一个列表, 与数据列位置相同), 并为每列定义名称.
+	 * 应在所有数据sheet创建之后调用, 使隐藏sheet位于最后.
+	 * @param wb 工作薄
+	 * @param ranges 各列的下拉列表数据(null或空表示该列没有下拉列表)
+	 */
+	public static void createRangeSheet(SXSSFWorkbook wb, String[][] ranges) {
+		int maxSize = 0;
+		for (String[] range : ranges) {
+			maxSize = range != null ? Math.max(maxSize, range.length) : maxSize;
+		}
+		if (maxSize == 0) {
+			return;
+		}
+		SXSSFSheet sheet = newSXSSFSheet(wb, Const.RANGE_SHEET_NAME);
+		for (int i = 0; i < maxSize; i++) {
+			SXSSFRow row = newSXSSFRow(sheet, i);
+			for (int j = 0; j < ranges.length; j++) {
+				if (ranges[j] != null && i < ranges[j].length) {
+					row.createCell(j).setCellValue(ranges[j][i]);
+				}
+			}
+		}
+		for (int j = 0; j < ranges.length; j++) {
+			if (ranges[j] != null && ranges[j].length > 0) {
+				Name name = wb.createName();
+				name.setNameName(rangeName(j));
+				name.setRefersToFormula(rangeReference(j, ranges[j].length));
+			}
+		}
+		wb.setSheetHidden(wb.getSheetIndex(sheet), true);
+	}
+
+	/**
+	 * 设置某些列的值只能从隐藏sheet中的下拉列表选取(列表长度不受显式列表255个字符的限制).
+	 * @param sheet 要设置的sheet.
+	 * @param rangeName 下拉列表数据的名称(见createRangeSheet)
+	 * @param firstRow 开始行
+	 * @param endRow 结束行
+	 * @param firstCol 开始列
+	 * @param endCol 结束列
+	 * @return 设置好的sheet.
+	 */
+	public static SXSSFSheet setRangeValidation(SXSSFSheet sheet, String rangeName, int firstRow, int endRow, int firstCol,
+			int endCol) {
+		DataValidationHelper validationHelper = sheet.getDataValidationHelper();
+		DataValidationConstraint constraint = validationHelper.createFormulaListConstraint(rangeName);
+		CellRangeAddressList regions = new CellRangeAddressList(firstRow, endRow, firstCol, endCol);
+		DataValidation validation = validationHelper.createValidation(constraint, regions);
+		validation.setSuppressDropDownArrow(true);
+		validation.createErrorBox("tip", "请从下拉列表选取");
+		validation.setShowErrorBox(true);
+		sheet.addValidationData(validation);
+		return sheet;
+	}
+
+	/**
+	 * 设置某些列的值只能输入预制的数据,显示下拉框.
+	 * @param sheet 要设置的sheet.
+	 * @param textlist 下拉框显示的内容
+	 * @param firstRow 开始行
+	 * @param endRow 结束行
+	 * @param firstCol   开始列
+	 * @param endCol  结束列
+	 * @return 设置好的sheet.
+	 */
+	public static SXSSFSheet setHSSFValidation(SXSSFSheet sheet,
+											  String[] textlist, int firstRow, int endRow, int firstCol,
+											  int endCol) {
+		DataValidationHelper validationHelper = sheet.getDataValidationHelper();
+		// 加载下拉列表内容
+		DataValidationConstraint explicitListConstraint = validationHelper.createExplicitListConstraint(textlist);
+		// 设置数据有效性加载在哪个单元格上,四个参数分别是：起始行、终止行、起始列、终止列
+		CellRangeAddressList regions = new CellRangeAddressList(firstRow,endRow, firstCol, endCol);
+		// 数据有效性对象
+		DataValidation validation = validationHelper.createValidation(explicitListConstraint, regions);
+		validation.setSuppressDropDownArrow(true);
+		validation.createErrorBox("tip","请从下拉列表选取");
+		//错误警告框
+		validation.setShowErrorBox(true);
+		sheet.addValidationData(validation);
+		return sheet;
+	}
+
+	public static void checkExcelFile(File file) {
+		if(file == null || !file.exists()) {
+			throw new IllegalArgumentException("excel文件不存在.");
+		}
+		
+		checkExcelFile(file.getAbsolutePath());
+	}
+	public static void checkExcelFile(String file) {
+		if(!file.endsWith(Const.XLSX_SUFFIX)) {
+			throw new IllegalArgumentException("抱歉,目前ExcelKit仅支持.xlsx格式的文件.");
+		}
+	}
+
+	
+}
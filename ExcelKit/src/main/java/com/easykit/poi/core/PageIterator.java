@@ -0,0 +1,54 @@
+package com.easykit.poi.core;
+
+import com.easykit.poi.hanlder.PageHandler;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * 将分页拉取回调适配为Iterator, 仅在当前页消费完后才拉取下一页
+ * <p>
+ */
+public class PageIterator<T> implements Iterator<T> {
+    private final PageHandler<T> mPageHandler;
+    private int mPageIndex = 0;
+    private Iterator<T> mCurrentPage = null;
+    private boolean mFinished = false;
+
+    public PageIterator(PageHandler<T> pageHandler) {
+        this.mPageHandler = pageHandler;
+    }
+
+    public static <T> PageIterator<T> of(PageHandler<T> pageHandler) {
+        return new PageIterator<T>(pageHandler);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!mFinished && (mCurrentPage == null || !mCurrentPage.hasNext())) {
+            List<T> page = mPageHandler.handler(mPageIndex++);
+            if (page == null || page.isEmpty()) {
+                mFinished = true;
+                mCurrentPage = null;
+            } else {
+                mCurrentPage = page.iterator();
+            }
+        }
+        return !mFinished;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return mCurrentPage.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+}
@@ -0,0 +1,19 @@
+package com.easykit.poi.core;
+
+/**
+ * <p>
+ * 预编译的属性读取器, 导出时每个单元格仅执行一次直接调用, 不再进行反射查找
+ * <p>
+ *
+ * @see PropertyGetters#compile(Class, String)
+ */
+public interface PropertyGetter {
+
+    /**
+     * 读取属性值
+     *
+     * @param bean 数据对象
+     * @return 属性原始值(未做字符串转换)
+     */
+    Object get(Object bean);
+}
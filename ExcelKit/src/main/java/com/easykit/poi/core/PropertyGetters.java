@@ -0,0 +1,173 @@
+package com.easykit.poi.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * PropertyGetter工厂: 将getter方法编译为LambdaMetafactory生成的实现类,
+ * 无法生成时退化为MethodHandle调用, 两者在行循环中均无反射查找开销。
+ * <p>
+ */
+public final class PropertyGetters {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PropertyGetters.class);
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType GETTER_SIGNATURE = MethodType.methodType(Object.class, Object.class);
+
+    private PropertyGetters() {}
+
+    /**
+     * 编译指定属性的读取器
+     *
+     * @param clazz    实体Class对象
+     * @param property 属性名
+     * @return 属性读取器, 属性不存在时返回始终为null的读取器
+     */
+    public static PropertyGetter compile(Class<?> clazz, String property) {
+        try {
+            Method readMethod = findReadMethod(clazz, property);
+            if (readMethod != null) {
+                return compile(clazz, readMethod);
+            }
+
+            // 没有可用的getter方法时直接读取字段
+            Field field = findField(clazz, property);
+            if (field != null) {
+                field.setAccessible(true);
+                return new MethodHandleGetter(LOOKUP.unreflectGetter(field));
+            }
+        } catch (Exception e) {
+            LOGGER.error("编译" + clazz.getName() + "." + property + "的读取器失败.", e);
+            return NULL_GETTER;
+        }
+
+        LOGGER.error("获取{}.{}的读取方法失败, 导出值将为空.", clazz.getName(), property);
+        return NULL_GETTER;
+    }
+
+    private static PropertyGetter compile(Class<?> clazz, Method readMethod) throws IllegalAccessException {
+        if (!Modifier.isPublic(readMethod.getDeclaringClass().getModifiers())) {
+            readMethod.setAccessible(true);
+        }
+        MethodHandle handle = LOOKUP.unreflect(readMethod);
+
+        // 生成的实现类定义在当前ClassLoader中, 仅当实体类对其可见时才可使用
+        if (Modifier.isPublic(readMethod.getDeclaringClass().getModifiers()) && isVisible(readMethod.getDeclaringClass())) {
+            try {
+                CallSite site = LambdaMetafactory.metafactory(LOOKUP, "get",
+                        MethodType.methodType(PropertyGetter.class), GETTER_SIGNATURE, handle, handle.type().wrap());
+                return (PropertyGetter) site.getTarget().invoke();
+            } catch (Throwable e) {
+                LOGGER.debug("LambdaMetafactory不可用({}), 使用MethodHandle读取{}.", e.toString(), readMethod);
+            }
+        }
+        return new MethodHandleGetter(handle);
+    }
+
+    private static Method findReadMethod(Class<?> clazz, String property) throws IntrospectionException {
+        BeanInfo beanInfo = Introspector.getBeanInfo(clazz);
+        for (PropertyDescriptor descriptor : beanInfo.getPropertyDescriptors()) {
+            if (property.equals(descriptor.getName())) {
+                return descriptor.getReadMethod();
+            }
+        }
+        return null;
+    }
+
+    private static Field findField(Class<?> clazz, String property) {
+        for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+            try {
+                return c.getDeclaredField(property);
+            } catch (NoSuchFieldException e) {
+                // 继续查找父类
+            }
+        }
+        return null;
+    }
+
+    private static boolean isVisible(Class<?> clazz) {
+        try {
+            return Class.forName(clazz.getName(), false, PropertyGetters.class.getClassLoader()) == clazz;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 无实体类的数据行读取器: Map按键读取, Object[]/List按列索引读取, 不使用反射
+     *
+     * @param key   Map数据行的键
+     * @param index Object[]/List数据行的列索引
+     * @return 读取器
+     */
+    public static PropertyGetter forRow(String key, int index) {
+        return new RowGetter(key, index);
+    }
+
+    private static final PropertyGetter NULL_GETTER = new PropertyGetter() {
+        @Override
+        public Object get(Object bean) {
+            return null;
+        }
+    };
+
+    private static final class RowGetter implements PropertyGetter {
+        private final String mKey;
+        private final int mIndex;
+
+        RowGetter(String key, int index) {
+            this.mKey = key;
+            this.mIndex = index;
+        }
+
+        @Override
+        public Object get(Object row) {
+            if (row instanceof Map) {
+                return ((Map<?, ?>) row).get(mKey);
+            }
+            if (row instanceof Object[]) {
+                Object[] values = (Object[]) row;
+                return mIndex < values.length ? values[mIndex] : null;
+            }
+            if (row instanceof List) {
+                List<?> values = (List<?>) row;
+                return mIndex < values.size() ? values.get(mIndex) : null;
+            }
+            throw new IllegalArgumentException("不支持的数据行类型: " + (row == null ? null : row.getClass().getName()));
+        }
+    }
+
+    private static final class MethodHandleGetter implements PropertyGetter {
+        private final MethodHandle mHandle;
+
+        MethodHandleGetter(MethodHandle handle) {
+            this.mHandle = handle.asType(GETTER_SIGNATURE);
+        }
+
+        @Override
+        public Object get(Object bean) {
+            try {
+                return mHandle.invokeExact(bean);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.easykit.poi.core;
+
+import com.easykit.poi.annotation.ExportType;
+import com.easykit.poi.pojo.ExportColumns;
+import com.easykit.poi.pojo.ExportItem;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * 将ResultSet适配为Iterator: 每次next()只移动游标一次, 按列定义的顺序以Object[]返回当前行,
+ * 各列的读取方式(getLong/getDouble/getTimestamp...)根据ResultSetMetaData预先确定, 行循环中不再查询元数据。
+ * 数据边读边写, 内存占用与结果集大小无关(需驱动本身按fetchSize分批拉取, 如MySQL需设置useCursorFetch=true,
+ * PostgreSQL需关闭自动提交)。ResultSet及其Statement由调用方负责关闭(或由ExcelKit.setCloseResultSet(true)关闭)。
+ * <p>
+ */
+public class ResultSetIterator implements Iterator<Object[]> {
+    private static final int KIND_STRING = 0;
+    private static final int KIND_INT = 1;
+    private static final int KIND_LONG = 2;
+    private static final int KIND_DOUBLE = 3;
+    private static final int KIND_DECIMAL = 4;
+    private static final int KIND_BOOLEAN = 5;
+    private static final int KIND_DATE = 6;
+    private static final int KIND_TIME = 7;
+    private static final int KIND_TIMESTAMP = 8;
+
+    private final ResultSet mResultSet;
+    private final ExportColumns mExportColumns;
+    private final int[] mColumns;
+    private final int[] mKinds;
+    private boolean mFetched = false;
+    private boolean mHasNext = false;
+
+    /**
+     * @param resultSet 结果集(游标位于第一行之前)
+     * @param columns   导出列, field为查询结果的列名(或别名)
+     * @throws SQLException 列不存在或读取元数据失败
+     */
+    public ResultSetIterator(ResultSet resultSet, ExportColumns columns) throws SQLException {
+        this.mResultSet = resultSet;
+        this.mExportColumns = columns;
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        List<ExportItem> items = columns.getColumns();
+        this.mColumns = new int[items.size()];
+        this.mKinds = new int[items.size()];
+        for (int i = 0; i < mColumns.length; i++) {
+            mColumns[i] = resultSet.findColumn(items.get(i).getField());
+            mKinds[i] = kindOf(metaData.getColumnType(mColumns[i]));
+        }
+    }
+
+    /**
+     * @return 导出列
+     */
+    public ExportColumns getColumns() {
+        return mExportColumns;
+    }
+
+    /**
+     * 根据结果集元数据生成导出列: 表头及field为列名(或别名), 数值、布尔、日期列以原生单元格类型写出
+     *
+     * @param metaData 结果集元数据
+     * @return 导出列
+     * @throws SQLException 读取元数据失败
+     */
+    public static ExportColumns columns(ResultSetMetaData metaData) throws SQLException {
+        ExportColumns columns = ExportColumns.create();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            String label = metaData.getColumnLabel(i);
+            ExportItem item = new ExportItem().setField(label).setDisplay(label);
+            switch (kindOf(metaData.getColumnType(i))) {
+                case KIND_INT:
+                case KIND_LONG:
+                case KIND_DOUBLE:
+                case KIND_DECIMAL:
+                    item.setType(ExportType.NUMERIC);
+                    break;
+                case KIND_BOOLEAN:
+                    item.setType(ExportType.BOOLEAN);
+                    break;
+                case KIND_DATE:
+                    item.setType(ExportType.DATE).setFormat("yyyy-MM-dd");
+                    break;
+                case KIND_TIME:
+                    item.setType(ExportType.DATE).setFormat("HH:mm:ss");
+                    break;
+                case KIND_TIMESTAMP:
+                    item.setType(ExportType.DATE);
+                    break;
+                default:
+                    break;
+            }
+            columns.add(item);
+        }
+        return columns;
+    }
+
+    private static int kindOf(int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return KIND_INT;
+            case Types.BIGINT:
+                return KIND_LONG;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return KIND_DOUBLE;
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return KIND_DECIMAL;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return KIND_BOOLEAN;
+            case Types.DATE:
+                return KIND_DATE;
+            case Types.TIME:
+                return KIND_TIME;
+            case Types.TIMESTAMP:
+                return KIND_TIMESTAMP;
+            default:
+                return KIND_STRING;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!mFetched) {
+            try {
+                mHasNext = mResultSet.next();
+            } catch (SQLException e) {
+                throw new IllegalStateException("读取结果集失败: " + e.getMessage(), e);
+            }
+            mFetched = true;
+        }
+        return mHasNext;
+    }
+
+    @Override
+    public Object[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        mFetched = false;
+        try {
+            return readRow();
+        } catch (SQLException e) {
+            throw new IllegalStateException("读取结果集失败: " + e.getMessage(), e);
+        }
+    }
+
+    private Object[] readRow() throws SQLException {
+        ResultSet rs = mResultSet;
+        Object[] row = new Object[mColumns.length];
+        for (int i = 0; i < row.length; i++) {
+            int column = mColumns[i];
+            Object value;
+            switch (mKinds[i]) {
+                case KIND_INT:
+                    value = rs.getInt(column);
+                    break;
+                case KIND_LONG:
+                    value = rs.getLong(column);
+                    break;
+                case KIND_DOUBLE:
+                    value = rs.getDouble(column);
+                    break;
+                case KIND_DECIMAL:
+                    value = rs.getBigDecimal(column);
+                    break;
+                case KIND_BOOLEAN:
+                    value = rs.getBoolean(column);
+                    break;
+                case KIND_DATE:
+                    value = rs.getDate(column);
+                    break;
+                case KIND_TIME:
+                    value = rs.getTime(column);
+                    break;
+                case KIND_TIMESTAMP:
+                    value = rs.getTimestamp(column);
+                    break;
+                default:
+                    value = rs.getString(column);
+                    break;
+            }
+            // 基本类型的getXxx()对NULL返回0/false, 需以wasNull()区分
+            row[i] = rs.wasNull() ? null : value;
+        }
+        return row;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+}
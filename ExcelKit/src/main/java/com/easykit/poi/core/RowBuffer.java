@@ -0,0 +1,123 @@
+package com.easykit.poi.core;
+
+import com.easykit.poi.pojo.ExportItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>
+ * 一批待写出的数据行: 先读取属性原始值, 再按列完成转换(批量转换器每列每批只调用一次),
+ * 转换后的列以String保存, 其余列保留原始值供按类型写出。缓冲区在批次之间复用。
+ * <p>
+ */
+public class RowBuffer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RowBuffer.class);
+
+    private final ExportPlan mPlan;
+    private final Object[][] mValues;
+    private int mSize = 0;
+
+    public RowBuffer(ExportPlan plan, int capacity) {
+        this.mPlan = plan;
+        this.mValues = new Object[capacity][plan.size()];
+    }
+
+    /**
+     * 从数据源读取一批数据行的原始值
+     *
+     * @param data  数据迭代器
+     * @param limit 本批最多读取的行数(不超过容量)
+     * @return 读取到的行数
+     */
+    public int fill(Iterator<?> data, int limit) {
+        clear();
+        limit = Math.min(limit, mValues.length);
+        RowReader reader = mPlan.getRowReader();
+        while (mSize < limit && data.hasNext()) {
+            Object rowData = data.next();
+            Object[] row = mValues[mSize++];
+            if (reader != null) {
+                try {
+                    reader.read(rowData, row);
+                    continue;
+                } catch (Exception e) {
+                    // 逐列重新读取, 以便定位出错的列
+                }
+            }
+            for (int j = 0; j < row.length; j++) {
+                ExportItem exportItem = mPlan.getExportItem(j);
+                if (!"".equals(exportItem.getReplace())) {
+                    // 替换值始终以文本写出
+                    row[j] = exportItem.getReplace();
+                    continue;
+                }
+                try {
+                    row[j] = mPlan.getGetter(j).get(rowData);
+                } catch (Exception e) {
+                    row[j] = null;
+                    LOGGER.error("获取" + exportItem.getField() + "的值失败.", e);
+                }
+            }
+        }
+        return mSize;
+    }
+
+    /**
+     * 转换本批数据中配置了convert的列
+     */
+    public void convert() {
+        for (int j = 0; j < mPlan.size(); j++) {
+            ConvertExpression convert = mPlan.getConvert(j);
+            if (convert == null || !"".equals(mPlan.getExportItem(j).getReplace())) {
+                continue;
+            }
+
+            if (convert.isBatch()) {
+                // 收集去重值, 一次调用完成整批转换
+                Set<String> distinct = new HashSet<String>();
+                for (int i = 0; i < mSize; i++) {
+                    if (mValues[i][j] != null) {
+                        distinct.add(mValues[i][j].toString());
+                    }
+                }
+                Map<String, String> converted = distinct.isEmpty() ? null : convert.convertAll(distinct);
+                for (int i = 0; i < mSize; i++) {
+                    if (mValues[i][j] != null) {
+                        String oldValue = mValues[i][j].toString();
+                        String newValue = converted.get(oldValue);
+                        mValues[i][j] = newValue != null ? newValue : oldValue;
+                    }
+                }
+            } else {
+                for (int i = 0; i < mSize; i++) {
+                    mValues[i][j] = convert.convert(mValues[i][j]);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * @param index 本批内的行索引
+     * @return 该行各列的值
+     */
+    public Object[] row(int index) {
+        return mValues[index];
+    }
+
+    public void clear() {
+        for (int i = 0; i < mSize; i++) {
+            Arrays.fill(mValues[i], null);
+        }
+        mSize = 0;
+    }
+}
@@ -0,0 +1,329 @@
+package com.easykit.poi.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>
+ * 流水线导出的数据端: 读取(fetch)和转换(convert)两个阶段分别在线程池中运行, 阶段之间以有界队列连接,
+ * 写出阶段(调用take()的线程)处理当前批次的同时, 下一批数据已在读取和转换。
+ * RowBuffer在各阶段之间循环复用, 内存中最多保留 2 x queueCapacity + 2 批数据。
+ * 每批数据不会跨越sheet边界(按sheetSize对齐)。
+ * <p>
+ * 线程池空闲线程不足、拒绝任务或阶段在STAGE_START_TIMEOUT_MILLIS内未开始运行时, 该阶段改由调用take()的线程逐批执行,
+ * 导出不会因线程池饱和而永久阻塞。
+ * close()中断各阶段并等待其退出(最长CLOSE_TIMEOUT_MILLIS), 返回后读取阶段不再访问数据迭代器(如ResultSet)。
+ * <p>
+ */
+public class RowPipeline {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RowPipeline.class);
+    // 流水线需要的线程数(读取、转换)
+    public static final int REQUIRED_THREADS = 2;
+    // 阶段在线程池中等待开始运行的最长时间, 超时后由调用线程执行
+    private static final long STAGE_START_TIMEOUT_MILLIS = 1000;
+    // 等待已转换批次时检查阶段状态的间隔
+    private static final long POLL_MILLIS = 100;
+    // 关闭时等待线程池中的阶段退出的最长时间
+    private static final long CLOSE_TIMEOUT_MILLIS = 10000;
+
+    private final Iterator<?> mData;
+    private final int mSheetSize;
+    private final BlockingQueue<RowBuffer> mFree;
+    private final BlockingQueue<RowBuffer> mFetched;
+    private final BlockingQueue<RowBuffer> mConverted;
+    // 结束标记
+    private final RowBuffer mEnd;
+    // 阶段由线程池或调用线程认领后才执行, 保证只执行一次
+    private final AtomicBoolean mFetchClaimed = new AtomicBoolean();
+    private final AtomicBoolean mConvertClaimed = new AtomicBoolean();
+    // 阶段退出时计数: 线程池中运行的阶段在结束时, 由调用线程执行或不再执行的阶段在认领时
+    private final CountDownLatch mStagesExited = new CountDownLatch(REQUIRED_THREADS);
+    private FutureTask<Void> mFetchTask;
+    private FutureTask<Void> mConvertTask;
+    // 由调用线程执行的阶段
+    private boolean mInlineFetch = false;
+    private boolean mInlineConvert = false;
+    private boolean mFetchEnded = false;
+    private int mSheetRows = 0;
+    private long mStartTime;
+    private boolean mFinished = false;
+
+    /**
+     * @param data          数据迭代器
+     * @param plan          导出计划
+     * @param batchSize     每批行数
+     * @param sheetSize     每个sheet的行数
+     * @param queueCapacity 阶段之间的队列容量(批数)
+     */
+    public RowPipeline(Iterator<?> data, ExportPlan plan, int batchSize, int sheetSize, int queueCapacity) {
+        this.mData = data;
+        this.mSheetSize = sheetSize;
+        int buffers = 2 * queueCapacity + 2;
+        this.mFree = new ArrayBlockingQueue<RowBuffer>(buffers);
+        this.mFetched = new ArrayBlockingQueue<RowBuffer>(buffers + 1);
+        this.mConverted = new ArrayBlockingQueue<RowBuffer>(buffers + 1);
+        for (int i = 0; i < buffers; i++) {
+            mFree.add(new RowBuffer(plan, Math.max(1, Math.min(batchSize, sheetSize))));
+        }
+        this.mEnd = new RowBuffer(plan, 0);
+    }
+
+    /**
+     * 线程池是否可能同时运行流水线的各阶段(仅能判断ThreadPoolExecutor, 其余线程池视为可以)
+     *
+     * @param executor 线程池
+     * @return false-最大线程数不足
+     */
+    public static boolean hasCapacity(Executor executor) {
+        return !(executor instanceof ThreadPoolExecutor)
+                || ((ThreadPoolExecutor) executor).getMaximumPoolSize() >= REQUIRED_THREADS;
+    }
+
+    /**
+     * 在线程池中启动读取和转换阶段, 空闲线程不足或任务被拒绝时由调用线程执行
+     */
+    public void start(Executor executor) {
+        mStartTime = System.currentTimeMillis();
+        mFetchTask = new FutureTask<Void>(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                if (mFetchClaimed.compareAndSet(false, true)) {
+                    try {
+                        runFetch();
+                    } finally {
+                        mStagesExited.countDown();
+                    }
+                }
+                return null;
+            }
+        });
+        mConvertTask = new FutureTask<Void>(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                if (mConvertClaimed.compareAndSet(false, true)) {
+                    try {
+                        runConvert();
+                    } finally {
+                        mStagesExited.countDown();
+                    }
+                }
+                return null;
+            }
+        });
+
+        if (executor instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+            if (pool.getMaximumPoolSize() - pool.getActiveCount() < REQUIRED_THREADS) {
+                LOGGER.warn("流水线线程池空闲线程不足(需要{}个), 读取和转换改由当前线程执行.", REQUIRED_THREADS);
+                claimInline();
+                return;
+            }
+        }
+        try {
+            executor.execute(mFetchTask);
+            executor.execute(mConvertTask);
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("流水线任务被线程池拒绝, 未开始的阶段改由当前线程执行.");
+            claimInline();
+        }
+    }
+
+    /**
+     * 取出下一批已转换的数据, 写出后须调用release()归还
+     *
+     * @return 数据批次, 全部读取完毕时返回null
+     * @throws Exception 读取或转换阶段的异常
+     */
+    public RowBuffer take() throws Exception {
+        if (mFinished) {
+            return null;
+        }
+        RowBuffer rows;
+        while (true) {
+            boolean progressed = false;
+            if (mInlineFetch) {
+                progressed |= fetchOne();
+            }
+            if (mInlineConvert) {
+                progressed |= convertAvailable();
+            }
+            rows = progressed ? mConverted.poll() : mConverted.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if (rows != null) {
+                break;
+            }
+            checkStages();
+        }
+
+        if (rows == mEnd) {
+            mFinished = true;
+            // 阶段异常在结束标记之后抛出: 转换阶段正常结束时读取阶段必然已结束
+            checkFailure(mConvertTask);
+            checkFailure(mFetchTask);
+            return null;
+        }
+        return rows;
+    }
+
+    public void release(RowBuffer rows) {
+        rows.clear();
+        mFree.offer(rows);
+    }
+
+    /**
+     * 停止各阶段并等待其退出(导出结束、失败或取消时调用)。
+     * 读取阶段在数据迭代器中阻塞(如ResultSet.next())时无法被中断, 最多等待CLOSE_TIMEOUT_MILLIS
+     */
+    public void close() {
+        if (mFetchTask == null) {
+            return;
+        }
+        // 尚未开始运行的阶段不再运行
+        if (mFetchClaimed.compareAndSet(false, true)) {
+            mStagesExited.countDown();
+        }
+        if (mConvertClaimed.compareAndSet(false, true)) {
+            mStagesExited.countDown();
+        }
+        mFetchTask.cancel(true);
+        mConvertTask.cancel(true);
+        try {
+            if (!mStagesExited.await(CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                LOGGER.warn("流水线阶段在{}ms内未退出, 读取阶段可能仍在访问数据.", CLOSE_TIMEOUT_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runFetch() throws InterruptedException {
+        try {
+            while (mData.hasNext()) {
+                RowBuffer rows = mFree.take();
+                fill(rows);
+                mFetched.put(rows);
+            }
+        } finally {
+            mFetched.put(mEnd);
+        }
+    }
+
+    private void runConvert() throws InterruptedException {
+        try {
+            RowBuffer rows;
+            while ((rows = mFetched.take()) != mEnd) {
+                rows.convert();
+                mConverted.put(rows);
+            }
+        } finally {
+            mConverted.put(mEnd);
+        }
+    }
+
+    private void fill(RowBuffer rows) {
+        mSheetRows += rows.fill(mData, mSheetSize - mSheetRows);
+        if (mSheetRows >= mSheetSize) {
+            mSheetRows = 0;
+        }
+    }
+
+    // 调用线程执行读取阶段: 读取一批(无空闲缓冲时不读取)
+    private boolean fetchOne() {
+        if (mFetchEnded) {
+            return false;
+        }
+        boolean ended = true;
+        try {
+            if (!mData.hasNext()) {
+                mFetchEnded = true;
+                mFetched.offer(mEnd);
+                return true;
+            }
+            RowBuffer rows = mFree.poll();
+            if (rows == null) {
+                ended = false;
+                return false;
+            }
+            fill(rows);
+            mFetched.offer(rows);
+            ended = false;
+            return true;
+        } finally {
+            if (ended && !mFetchEnded) {
+                // 读取失败: 结束后续阶段
+                mFetchEnded = true;
+                mFetched.offer(mEnd);
+            }
+        }
+    }
+
+    // 调用线程执行转换阶段: 转换所有已读取的批次
+    private boolean convertAvailable() {
+        boolean progressed = false;
+        RowBuffer rows;
+        while ((rows = mFetched.poll()) != null) {
+            if (rows != mEnd) {
+                rows.convert();
+            }
+            mConverted.offer(rows);
+            progressed = true;
+        }
+        return progressed;
+    }
+
+    // 阶段失败时抛出异常; 阶段超时仍未开始运行时改由调用线程执行
+    private void checkStages() throws Exception {
+        if (mFetchTask.isDone() && !mFetchTask.isCancelled()) {
+            checkFailure(mFetchTask);
+        }
+        if (mConvertTask.isDone() && !mConvertTask.isCancelled()) {
+            checkFailure(mConvertTask);
+        }
+        if (System.currentTimeMillis() - mStartTime > STAGE_START_TIMEOUT_MILLIS
+                && (!mFetchClaimed.get() || !mConvertClaimed.get())) {
+            LOGGER.warn("流水线阶段在{}ms内未开始运行(线程池已饱和), 改由当前线程执行.", STAGE_START_TIMEOUT_MILLIS);
+            claimInline();
+        }
+    }
+
+    private void claimInline() {
+        if (mFetchClaimed.compareAndSet(false, true)) {
+            mFetchTask.cancel(false);
+            mInlineFetch = true;
+            mStagesExited.countDown();
+        }
+        if (mConvertClaimed.compareAndSet(false, true)) {
+            mConvertTask.cancel(false);
+            mInlineConvert = true;
+            mStagesExited.countDown();
+        }
+    }
+
+    private static void checkFailure(FutureTask<Void> task) throws Exception {
+        if (task.isCancelled()) {
+            // 由调用线程执行的阶段, 异常已直接抛出
+            return;
+        }
+        try {
+            task.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+}
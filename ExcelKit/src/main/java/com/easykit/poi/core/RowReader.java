@@ -0,0 +1,20 @@
+package com.easykit.poi.core;
+
+/**
+ * <p>
+ * 编译期生成的整行读取器: 按列顺序直接调用各属性的getter写入一行,
+ * 行循环中只有一次接口调用, 其余均为可内联的直接调用。
+ * <p>
+ *
+ * @see GeneratedExportPlan
+ */
+public interface RowReader {
+
+    /**
+     * 读取一行的原始值(配置了replace的列写入替换值)
+     *
+     * @param bean 数据对象
+     * @param row  输出行, 长度与导出列数相同
+     */
+    void read(Object bean, Object[] row);
+}
@@ -0,0 +1,163 @@
+package com.easykit.poi.core;
+
+import com.easykit.poi.annotation.ExportType;
+import com.easykit.poi.hanlder.ExportHandler;
+import com.easykit.poi.pojo.ExportItem;
+import com.easykit.poi.pojo.StyleSpec;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * 工作薄级别的样式注册表: 按样式属性去重CellStyle和Font, 表头样式每个工作薄只解析一次,
+ * 避免逐单元格创建样式导致styles.xml膨胀甚至超出Excel样式数量上限(文件损坏)。
+ * <p>
+ */
+public class StyleRegistry {
+    private final SXSSFWorkbook mWorkbook;
+    private final DataFormat mDataFormat;
+    private final Map<StyleSpec, CellStyle> mStyles = new HashMap<StyleSpec, CellStyle>();
+    private final Map<Object, Font> mFonts = new HashMap<Object, Font>();
+    private CellStyle mHeadStyle;
+    private boolean mHeadStyleResolved = false;
+
+    public StyleRegistry(SXSSFWorkbook wb) {
+        this.mWorkbook = wb;
+        this.mDataFormat = wb.createDataFormat();
+    }
+
+    public SXSSFWorkbook getWorkbook() {
+        return mWorkbook;
+    }
+
+    /**
+     * 获取表头样式, 每个工作薄仅调用一次ExportHandler.headCellStyle
+     *
+     * @param handler 导出设置
+     * @return 表头样式, 可能为null
+     */
+    public synchronized CellStyle headStyle(ExportHandler handler) {
+        if (!mHeadStyleResolved) {
+            mHeadStyle = handler.headCellStyle(mWorkbook);
+            mHeadStyleResolved = true;
+        }
+        return mHeadStyle;
+    }
+
+    /**
+     * 解析每列的正文样式(ExportHandler.bodyCellStyle或列的数据格式), 每个工作薄每列只调用一次
+     *
+     * @param plan    导出计划
+     * @param handler 导出设置
+     * @return 每列的样式, 无需样式的列为null
+     */
+    public CellStyle[] bodyStyles(ExportPlan plan, ExportHandler handler) {
+        CellStyle[] bodyStyles = new CellStyle[plan.size()];
+        for (int i = 0; i < bodyStyles.length; i++) {
+            ExportItem exportItem = plan.getExportItem(i);
+            String format = !"".equals(exportItem.getFormat()) ? exportItem.getFormat()
+                    : exportItem.getType() == ExportType.DATE ? Const.DEFAULT_DATE_FORMAT : null;
+
+            StyleSpec spec = handler.bodyCellStyle(exportItem);
+            if (spec != null) {
+                if (spec.getDataFormat() == null && format != null) {
+                    spec = spec.copy().setDataFormat(format);
+                }
+                bodyStyles[i] = style(spec);
+            } else if (format != null) {
+                bodyStyles[i] = dataFormatStyle(format);
+            }
+        }
+        return bodyStyles;
+    }
+
+    /**
+     * 获取指定数据格式的样式
+     *
+     * @param format 数据格式, 如"yyyy-MM-dd"、"#,##0.00"
+     * @return 当前工作薄中该格式唯一的样式
+     */
+    public CellStyle dataFormatStyle(String format) {
+        return style(new StyleSpec().setDataFormat(format));
+    }
+
+    /**
+     * 获取与样式描述对应的样式, 属性相同的描述共享同一个CellStyle
+     *
+     * @param spec 样式描述
+     * @return 当前工作薄中唯一的样式
+     */
+    public synchronized CellStyle style(StyleSpec spec) {
+        CellStyle style = mStyles.get(spec);
+        if (style == null) {
+            style = createStyle(spec);
+            mStyles.put(spec.copy(), style);
+        }
+        return style;
+    }
+
+    private CellStyle createStyle(StyleSpec spec) {
+        CellStyle style = mWorkbook.createCellStyle();
+        if (spec.getDataFormat() != null) {
+            style.setDataFormat(mDataFormat.getFormat(spec.getDataFormat()));
+        }
+        if (spec.getAlignment() != null) {
+            style.setAlignment(spec.getAlignment());
+        }
+        if (spec.getVerticalAlignment() != null) {
+            style.setVerticalAlignment(spec.getVerticalAlignment());
+        }
+        if (spec.getFillForegroundColor() != null) {
+            style.setFillForegroundColor(spec.getFillForegroundColor());
+        }
+        if (spec.getFillBackgroundColor() != null) {
+            style.setFillBackgroundColor(spec.getFillBackgroundColor());
+        }
+        if (spec.getFillPattern() != null) {
+            style.setFillPattern(spec.getFillPattern());
+        }
+        if (spec.getBorder() != null) {
+            style.setBorderTop(spec.getBorder());
+            style.setBorderRight(spec.getBorder());
+            style.setBorderBottom(spec.getBorder());
+            style.setBorderLeft(spec.getBorder());
+        }
+        if (spec.getWrapText() != null) {
+            style.setWrapText(spec.getWrapText());
+        }
+        if (spec.hasFont()) {
+            style.setFont(font(spec));
+        }
+        return style;
+    }
+
+    private Font font(StyleSpec spec) {
+        Object key = spec.fontKey();
+        Font font = mFonts.get(key);
+        if (font == null) {
+            font = mWorkbook.createFont();
+            if (spec.getFontColor() != null) {
+                font.setColor(spec.getFontColor());
+            }
+            if (spec.getFontBold() != null) {
+                font.setBoldweight(spec.getFontBold() ? Font.BOLDWEIGHT_BOLD : Font.BOLDWEIGHT_NORMAL);
+            }
+            if (spec.getFontHeightInPoints() != null) {
+                font.setFontHeightInPoints(spec.getFontHeightInPoints());
+            }
+            if (spec.getFontName() != null) {
+                font.setFontName(spec.getFontName());
+            }
+            if (spec.getFontItalic() != null) {
+                font.setItalic(spec.getFontItalic());
+            }
+            mFonts.put(key, font);
+        }
+        return font;
+    }
+}
@@ -51,8 +51,9 @@ import org.xml.sax.helpers.XMLReaderFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * <p>
@@ -116,11 +117,18 @@ public class XlsxReader extends DefaultHandler {
 		mStylesTable = xssfReader.getStylesTable();
 		SharedStringsTable sst = xssfReader.getSharedStringsTable();
 		XMLReader parser = this.fetchSheetParser(sst);
-		Iterator<InputStream> sheets = xssfReader.getSheetsData();
+		Set<String> hiddenSheets = hiddenSheetNames(xssfReader);
+		XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) xssfReader.getSheetsData();
 		while (sheets.hasNext()) {
+			InputStream sheet = sheets.next();
+			String sheetName = sheets.getSheetName();
+			if (Const.RANGE_SHEET_NAME.equals(sheetName) && hiddenSheets.contains(sheetName)) {
+				// 导出时写入的下拉列表数据, 不属于业务数据
+				sheet.close();
+				continue;
+			}
 			mCurrentRowIndex = 0;
 			mSheetIndex++;
-			InputStream sheet = sheets.next();
 			InputSource sheetSource = new InputSource(sheet);
 			parser.parse(sheetSource);
 			sheet.close();
@@ -195,6 +203,34 @@ public class XlsxReader extends DefaultHandler {
 		processBySheet(sheetIndex, OPCPackage.open(is));
 	}
 
+	/**
+	 * 读取workbook.xml中隐藏(state="hidden"或"veryHidden")的sheet名称
+	 */
+	private static Set<String> hiddenSheetNames(XSSFReader xssfReader)
+			throws IOException, OpenXML4JException, SAXException {
+		final Set<String> names = new HashSet<String>();
+		XMLReader parser = XMLReaderFactory.createXMLReader("org.apache.xerces.parsers.SAXParser");
+		parser.setContentHandler(new DefaultHandler() {
+			@Override
+			public void startElement(String uri, String localName, String name, Attributes attributes) {
+				// 未开启命名空间时localName为空
+				if ("sheet".equals(localName == null || localName.isEmpty() ? name : localName)) {
+					String state = attributes.getValue("state");
+					if ("hidden".equals(state) || "veryHidden".equals(state)) {
+						names.add(attributes.getValue("name"));
+					}
+				}
+			}
+		});
+		InputStream workbook = xssfReader.getWorkbookData();
+		try {
+			parser.parse(new InputSource(workbook));
+		} finally {
+			workbook.close();
+		}
+		return names;
+	}
+
 	private XMLReader fetchSheetParser(SharedStringsTable sst) throws SAXException {
 		XMLReader parser = XMLReaderFactory.createXMLReader("org.apache.xerces.parsers.SAXParser");
 		this.mSharedStringsTable = sst;
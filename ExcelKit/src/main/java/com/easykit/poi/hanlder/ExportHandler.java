@@ -29,6 +29,8 @@
  */
 package com.easykit.poi.hanlder;
 
+import com.easykit.poi.pojo.ExportItem;
+import com.easykit.poi.pojo.StyleSpec;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
@@ -39,7 +41,7 @@ import org.apache.poi.xssf.streaming.SXSSFWorkbook;
  */
 public interface ExportHandler {
 	/**
-	 * 设置表头样式
+	 * 设置表头样式(每个工作薄仅调用一次, 所有表头单元格共享返回的样式)
 	 * 
 	 * @param wb
 	 *            当前Wordbook对象
@@ -47,6 +49,17 @@ public interface ExportHandler {
 	 */
 	CellStyle headCellStyle(SXSSFWorkbook wb);
 
+	/**
+	 * 设置正文列样式(每个工作薄每列仅调用一次), 属性相同的样式在工作薄内共享
+	 * 
+	 * @param item
+	 *            导出列
+	 * @return 样式描述, 未设置数据格式时沿用导出列的format, 返回null使用默认样式
+	 */
+	default StyleSpec bodyCellStyle(ExportItem item) {
+		return null;
+	}
+
 	/**
 	 * 设置导出的文件名（无需处理后缀）
 	 * 
@@ -0,0 +1,21 @@
+package com.easykit.poi.hanlder;
+
+import java.util.List;
+
+/**
+ * <p>
+ * 分页数据拉取回调, 用于海量数据的流式导出(每次仅持有一页数据)
+ * <p>
+ *
+ * @param <T> 数据类型
+ */
+public interface PageHandler<T> {
+
+    /**
+     * 拉取指定页的数据
+     *
+     * @param pageIndex 页码,从0开始
+     * @return 当前页数据, 返回null或空集合表示数据已拉取完毕
+     */
+    List<T> handler(int pageIndex);
+}
@@ -0,0 +1,60 @@
+package com.easykit.poi.pojo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ * 无实体类导出的列定义: 与@ExportConfig相同的表头、宽度、转换器、替换值及下拉列表配置,
+ * 数据行可以是Map(按field读取)、Object[]或List(按列的定义顺序读取)。
+ * <p>
+ * <pre>
+ * ExportColumns columns = ExportColumns.create()
+ *         .add("id", "UID")
+ *         .add(new ExportItem().setField("sex").setDisplay("性别").setConvert("s:1=男,2=女"));
+ * ExcelKit.$Builder(columns).toExcel(rows, "sheet", out);
+ * </pre>
+ */
+public class ExportColumns {
+
+    private final List<ExportItem> columns = new ArrayList<ExportItem>();
+
+    public static ExportColumns create() {
+        return new ExportColumns();
+    }
+
+    /**
+     * 添加一列
+     * @param field Map数据行的键
+     * @param display 表头
+     * @return this
+     */
+    public ExportColumns add(String field, String display) {
+        return add(new ExportItem().setField(field).setDisplay(display));
+    }
+
+    /**
+     * 添加一列(宽度、转换器等按ExportItem配置, 未设置的属性与@ExportConfig的默认值相同)
+     * @param column 列定义, field为Map数据行的键
+     * @return this
+     */
+    public ExportColumns add(ExportItem column) {
+        if (column.getField() == null) {
+            throw new IllegalArgumentException("field不能为空");
+        }
+        if (column.getDisplay() == null) {
+            column.setDisplay(column.getField());
+        }
+        columns.add(column);
+        return this;
+    }
+
+    public List<ExportItem> getColumns() {
+        return Collections.unmodifiableList(columns);
+    }
+
+    public int size() {
+        return columns.size();
+    }
+}
@@ -29,15 +29,20 @@
  */
 package com.easykit.poi.pojo;
 
+import com.easykit.poi.annotation.ExportType;
+
 public class ExportItem {
 
 	private String field; // 属性名
 	private String display; // 显示名
-	private short width; // 宽度
-	private String convert;
+	private short width = -1; // 宽度(-1为默认宽度)
+	private String convert = "";
 //	private short color;
-	private String replace;
-	private String  range;//数据有效性 下拉框
+	private String replace = "";
+	private String  range = "";//数据有效性 下拉框
+	private ExportType type = ExportType.STRING; // 单元格类型
+	private String format = ""; // 单元格格式
+	private boolean sharedString = false; // 是否写入共享字符串表
 
 	public String getField() {
 		return field;
@@ -101,4 +106,31 @@ public class ExportItem {
 		this.range = range;
 		return this;
 	}
+
+	public ExportType getType() {
+		return type;
+	}
+
+	public ExportItem setType(ExportType type) {
+		this.type = type;
+		return this;
+	}
+
+	public String getFormat() {
+		return format;
+	}
+
+	public ExportItem setFormat(String format) {
+		this.format = format;
+		return this;
+	}
+
+	public boolean isSharedString() {
+		return sharedString;
+	}
+
+	public ExportItem setSharedString(boolean sharedString) {
+		this.sharedString = sharedString;
+		return this;
+	}
 }
@@ -0,0 +1,190 @@
+package com.easykit.poi.pojo;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * 单元格样式描述(属性值为null表示使用默认值), 由StyleRegistry按属性去重后生成CellStyle
+ * <p>
+ *
+ * @see com.easykit.poi.core.StyleRegistry#style(StyleSpec)
+ */
+public class StyleSpec {
+
+    private String dataFormat; // 数据格式, 如"@"、"yyyy-MM-dd"
+    private Short alignment; // CellStyle.ALIGN_*
+    private Short verticalAlignment; // CellStyle.VERTICAL_*
+    private Short fillForegroundColor;
+    private Short fillBackgroundColor;
+    private Short fillPattern; // CellStyle.SOLID_FOREGROUND等
+    private Short border; // 四边边框 CellStyle.BORDER_*
+    private Boolean wrapText;
+    private Short fontColor;
+    private Boolean fontBold;
+    private Short fontHeightInPoints;
+    private String fontName;
+    private Boolean fontItalic;
+
+    public StyleSpec copy() {
+        return new StyleSpec()
+                .setDataFormat(dataFormat)
+                .setAlignment(alignment)
+                .setVerticalAlignment(verticalAlignment)
+                .setFillForegroundColor(fillForegroundColor)
+                .setFillBackgroundColor(fillBackgroundColor)
+                .setFillPattern(fillPattern)
+                .setBorder(border)
+                .setWrapText(wrapText)
+                .setFontColor(fontColor)
+                .setFontBold(fontBold)
+                .setFontHeightInPoints(fontHeightInPoints)
+                .setFontName(fontName)
+                .setFontItalic(fontItalic);
+    }
+
+    /**
+     * @return 是否需要单独的字体
+     */
+    public boolean hasFont() {
+        return fontColor != null || fontBold != null || fontHeightInPoints != null || fontName != null || fontItalic != null;
+    }
+
+    /**
+     * @return 字体属性键, 用于字体去重
+     */
+    public Object fontKey() {
+        return Arrays.asList(fontColor, fontBold, fontHeightInPoints, fontName, fontItalic);
+    }
+
+    private Object[] attributes() {
+        return new Object[] { dataFormat, alignment, verticalAlignment, fillForegroundColor, fillBackgroundColor,
+                fillPattern, border, wrapText, fontColor, fontBold, fontHeightInPoints, fontName, fontItalic };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof StyleSpec && Arrays.equals(attributes(), ((StyleSpec) o).attributes()));
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(attributes());
+    }
+
+    public String getDataFormat() {
+        return dataFormat;
+    }
+
+    public StyleSpec setDataFormat(String dataFormat) {
+        this.dataFormat = dataFormat;
+        return this;
+    }
+
+    public Short getAlignment() {
+        return alignment;
+    }
+
+    public StyleSpec setAlignment(Short alignment) {
+        this.alignment = alignment;
+        return this;
+    }
+
+    public Short getVerticalAlignment() {
+        return verticalAlignment;
+    }
+
+    public StyleSpec setVerticalAlignment(Short verticalAlignment) {
+        this.verticalAlignment = verticalAlignment;
+        return this;
+    }
+
+    public Short getFillForegroundColor() {
+        return fillForegroundColor;
+    }
+
+    public StyleSpec setFillForegroundColor(Short fillForegroundColor) {
+        this.fillForegroundColor = fillForegroundColor;
+        return this;
+    }
+
+    public Short getFillBackgroundColor() {
+        return fillBackgroundColor;
+    }
+
+    public StyleSpec setFillBackgroundColor(Short fillBackgroundColor) {
+        this.fillBackgroundColor = fillBackgroundColor;
+        return this;
+    }
+
+    public Short getFillPattern() {
+        return fillPattern;
+    }
+
+    public StyleSpec setFillPattern(Short fillPattern) {
+        this.fillPattern = fillPattern;
+        return this;
+    }
+
+    public Short getBorder() {
+        return border;
+    }
+
+    public StyleSpec setBorder(Short border) {
+        this.border = border;
+        return this;
+    }
+
+    public Boolean getWrapText() {
+        return wrapText;
+    }
+
+    public StyleSpec setWrapText(Boolean wrapText) {
+        this.wrapText = wrapText;
+        return this;
+    }
+
+    public Short getFontColor() {
+        return fontColor;
+    }
+
+    public StyleSpec setFontColor(Short fontColor) {
+        this.fontColor = fontColor;
+        return this;
+    }
+
+    public Boolean getFontBold() {
+        return fontBold;
+    }
+
+    public StyleSpec setFontBold(Boolean fontBold) {
+        this.fontBold = fontBold;
+        return this;
+    }
+
+    public Short getFontHeightInPoints() {
+        return fontHeightInPoints;
+    }
+
+    public StyleSpec setFontHeightInPoints(Short fontHeightInPoints) {
+        this.fontHeightInPoints = fontHeightInPoints;
+        return this;
+    }
+
+    public String getFontName() {
+        return fontName;
+    }
+
+    public StyleSpec setFontName(String fontName) {
+        this.fontName = fontName;
+        return this;
+    }
+
+    public Boolean getFontItalic() {
+        return fontItalic;
+    }
+
+    public StyleSpec setFontItalic(Boolean fontItalic) {
+        this.fontItalic = fontItalic;
+        return this;
+    }
+}
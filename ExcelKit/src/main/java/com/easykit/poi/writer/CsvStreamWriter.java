@@ -0,0 +1,186 @@
+package com.easykit.poi.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>
+ * 轻量的CSV/TSV输出缓冲: 字段直接写入可复用的字符缓冲区, 仅在包含分隔符、双引号或换行时加引号(RFC 4180),
+ * 字段内的双引号写为两个双引号, 行以CRLF结束。编码由OutputStreamWriter完成。
+ * 编码器不自动写出BOM(如UTF-16按UTF-16BE编码), BOM只由bom()写出, 同一编码的多段输出可直接拼接。
+ * <p>
+ */
+public class CsvStreamWriter {
+    private static final int DEFAULT_BUFFER_SIZE = 32 * 1024;
+
+    private final Writer mOut;
+    private final char mDelimiter;
+    private final char[] mBuffer;
+    private int mPos = 0;
+    private boolean mRowStart = true;
+
+    public CsvStreamWriter(OutputStream out, Charset charset, char delimiter) {
+        this.mOut = new OutputStreamWriter(out, withoutBom(charset));
+        this.mDelimiter = delimiter;
+        this.mBuffer = new char[DEFAULT_BUFFER_SIZE];
+    }
+
+    /**
+     * 编码本身要求BOM(UTF-16及带BOM的UTF-16LE/UTF-32变体): 不论是否开启BOM都应写出
+     */
+    public static boolean requiresBom(Charset charset) {
+        return withoutBom(charset) != charset;
+    }
+
+    // 会自动写出BOM的编码替换为字节序相同、不写BOM的编码
+    private static Charset withoutBom(Charset charset) {
+        String name = charset.name();
+        if ("UTF-16".equalsIgnoreCase(name)) {
+            return StandardCharsets.UTF_16BE;
+        }
+        if ("x-UTF-16LE-BOM".equalsIgnoreCase(name)) {
+            return StandardCharsets.UTF_16LE;
+        }
+        if ("X-UTF-32BE-BOM".equalsIgnoreCase(name)) {
+            return Charset.forName("UTF-32BE");
+        }
+        if ("X-UTF-32LE-BOM".equalsIgnoreCase(name)) {
+            return Charset.forName("UTF-32LE");
+        }
+        return charset;
+    }
+
+    /**
+     * 写出字节顺序标记(须在写出任何字段之前调用)
+     */
+    public CsvStreamWriter bom() throws IOException {
+        put('\uFEFF');
+        return this;
+    }
+
+    /**
+     * 写出文本字段(按需加引号), null写为空字段
+     */
+    public CsvStreamWriter field(String value) throws IOException {
+        separate();
+        if (value == null) {
+            return this;
+        }
+        int length = value.length();
+        boolean quote = false;
+        for (int i = 0; i < length && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == mDelimiter || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            write(value);
+            return this;
+        }
+        put('"');
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                put('"');
+            }
+            put(c);
+        }
+        put('"');
+        return this;
+    }
+
+    /**
+     * 写出无需加引号的字段(数值、日期等)
+     */
+    public CsvStreamWriter rawField(String value) throws IOException {
+        separate();
+        write(value);
+        return this;
+    }
+
+    /**
+     * 写出十进制整数字段
+     */
+    public CsvStreamWriter number(long value) throws IOException {
+        separate();
+        if (mBuffer.length - mPos < 20) {
+            flushBuffer();
+        }
+        if (value == Long.MIN_VALUE) {
+            write(Long.toString(value));
+            return this;
+        }
+        if (value < 0) {
+            mBuffer[mPos++] = '-';
+            value = -value;
+        }
+        int start = mPos;
+        do {
+            mBuffer[mPos++] = (char) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+        // 反转数字
+        for (int i = start, j = mPos - 1; i < j; i++, j--) {
+            char tmp = mBuffer[i];
+            mBuffer[i] = mBuffer[j];
+            mBuffer[j] = tmp;
+        }
+        return this;
+    }
+
+    /**
+     * 结束当前行
+     */
+    public CsvStreamWriter endRow() throws IOException {
+        put('\r');
+        put('\n');
+        mRowStart = true;
+        return this;
+    }
+
+    /**
+     * 将缓冲区及编码器中的数据写入底层输出流
+     */
+    public void flush() throws IOException {
+        flushBuffer();
+        mOut.flush();
+    }
+
+    private void separate() throws IOException {
+        if (!mRowStart) {
+            put(mDelimiter);
+        }
+        mRowStart = false;
+    }
+
+    private void write(String value) throws IOException {
+        int length = value.length();
+        int offset = 0;
+        while (offset < length) {
+            if (mPos == mBuffer.length) {
+                flushBuffer();
+            }
+            int n = Math.min(length - offset, mBuffer.length - mPos);
+            value.getChars(offset, offset + n, mBuffer, mPos);
+            mPos += n;
+            offset += n;
+        }
+    }
+
+    private void put(char c) throws IOException {
+        if (mPos == mBuffer.length) {
+            flushBuffer();
+        }
+        mBuffer[mPos++] = c;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (mPos > 0) {
+            mOut.write(mBuffer, 0, mPos);
+            mPos = 0;
+        }
+    }
+}
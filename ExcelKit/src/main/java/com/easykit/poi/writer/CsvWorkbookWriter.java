@@ -0,0 +1,256 @@
+package com.easykit.poi.writer;
+
+import com.easykit.poi.annotation.ExportType;
+import com.easykit.poi.core.CellValues;
+import com.easykit.poi.core.Const;
+import com.easykit.poi.core.ExportPlan;
+import com.easykit.poi.core.POIUtils;
+import com.easykit.poi.core.RowBuffer;
+import com.easykit.poi.pojo.ExportItem;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <p>
+ * CSV/TSV导出: 使用与Excel导出相同的导出计划(@ExportConfig、转换器及替换值), 各sheet的数据依次写入同一个文件,
+ * 仅第一个sheet写出表头。数值按原值写出, 日期按format(SimpleDateFormat语法, 默认yyyy-MM-dd HH:mm:ss)格式化。
+ * 并行生成多个sheet时各sheet先写入临时文件(不含BOM), 结束时按顺序合并, BOM只在输出开头写出一次。
+ * <p>
+ */
+public class CsvWorkbookWriter implements WorkbookWriter {
+    private final ExportPlan mPlan;
+    private final WriterOptions mOptions;
+    private final char mDelimiter;
+    private final OutputStream mOut;
+    private final CsvStreamWriter mCsv;
+    private final List<CsvSheetWriter> mSheets = new ArrayList<CsvSheetWriter>();
+    private CsvSheetWriter mLiveSheet = null;
+    private long mSpilledBytes = 0;
+
+    public CsvWorkbookWriter(ExportPlan plan, OutputStream out, WriterOptions options, char delimiter) throws IOException {
+        this.mPlan = plan;
+        this.mOptions = options;
+        this.mDelimiter = delimiter;
+        this.mOut = out;
+        this.mCsv = new CsvStreamWriter(out, options.getCsvCharset(), delimiter);
+        if (options.isCsvBom() || CsvStreamWriter.requiresBom(options.getCsvCharset())) {
+            mCsv.bom();
+        }
+    }
+
+    @Override
+    public synchronized SheetWriter createSheet(String sheetName) throws IOException {
+        boolean first = mSheets.isEmpty();
+        CsvSheetWriter sheet;
+        if (mOptions.isSpoolSheets()) {
+            File spoolFile = POIUtils.createTempFile("excelkit-sheet", mOptions.isCompressTempFiles() ? ".csv.gz" : ".csv");
+            OutputStream spoolOut = new FileOutputStream(spoolFile);
+            if (mOptions.isCompressTempFiles()) {
+                spoolOut = new GZIPOutputStream(spoolOut, 64 * 1024);
+            }
+            sheet = new CsvSheetWriter(first, new CsvStreamWriter(spoolOut, mOptions.getCsvCharset(), mDelimiter), spoolOut, spoolFile);
+        } else {
+            if (mLiveSheet != null) {
+                throw new IllegalStateException("上一个sheet尚未结束");
+            }
+            sheet = new CsvSheetWriter(first, mCsv, null, null);
+            mLiveSheet = sheet;
+        }
+        mSheets.add(sheet);
+        return sheet;
+    }
+
+    @Override
+    public void close() throws IOException {
+        mCsv.flush();
+        // 暂存的sheet数据按顺序追加(已按相同编码写出且不含BOM, 直接复制字节)
+        byte[] buffer = new byte[64 * 1024];
+        for (CsvSheetWriter sheet : mSheets) {
+            if (sheet.mSpoolFile != null) {
+                InputStream in = new FileInputStream(sheet.mSpoolFile);
+                if (mOptions.isCompressTempFiles()) {
+                    in = new GZIPInputStream(in, 64 * 1024);
+                }
+                try {
+                    int n;
+                    while ((n = in.read(buffer)) != -1) {
+                        mOut.write(buffer, 0, n);
+                    }
+                } finally {
+                    in.close();
+                }
+                sheet.mSpoolFile.delete();
+            }
+        }
+    }
+
+    @Override
+    public void dispose() {
+        for (CsvSheetWriter sheet : mSheets) {
+            if (sheet.mSpoolFile != null) {
+                sheet.closeQuietly();
+                sheet.mSpoolFile.delete();
+            }
+        }
+    }
+
+    @Override
+    public synchronized long getSpilledBytes() {
+        return mSpilledBytes;
+    }
+
+    private class CsvSheetWriter implements SheetWriter {
+        private final boolean mFirst;
+        private final CsvStreamWriter mCsv;
+        private final OutputStream mSpoolOut;
+        private final File mSpoolFile;
+        private final SimpleDateFormat[] mDateFormats;
+        private int mRowCount = 0;
+
+        CsvSheetWriter(boolean first, CsvStreamWriter csv, OutputStream spoolOut, File spoolFile) {
+            this.mFirst = first;
+            this.mCsv = csv;
+            this.mSpoolOut = spoolOut;
+            this.mSpoolFile = spoolFile;
+            this.mDateFormats = new SimpleDateFormat[mPlan.size()];
+        }
+
+        @Override
+        public void writeHeader() throws IOException {
+            // 所有sheet写入同一个文件, 表头只写一次
+            if (!mFirst) {
+                return;
+            }
+            for (int i = 0; i < mPlan.size(); i++) {
+                mCsv.field(mPlan.getExportItem(i).getDisplay());
+            }
+            mCsv.endRow();
+        }
+
+        @Override
+        public void writeRows(RowBuffer rows) throws IOException {
+            for (int i = 0; i < rows.size(); i++) {
+                Object[] values = rows.row(i);
+                for (int j = 0; j < values.length; j++) {
+                    ExportItem exportItem = mPlan.getExportItem(j);
+                    // 替换值和转换后的值始终以文本写出
+                    if (!"".equals(exportItem.getReplace()) || mPlan.getConvert(j) != null) {
+                        mCsv.field((String) values[j]);
+                    } else {
+                        writeTypedField(j, values[j], exportItem);
+                    }
+                }
+                mCsv.endRow();
+            }
+            mRowCount += rows.size();
+        }
+
+        // 按声明的类型写出, 无法转换为声明类型的值按文本写出
+        private void writeTypedField(int column, Object value, ExportItem exportItem) throws IOException {
+            if (value == null) {
+                mCsv.field(null);
+                return;
+            }
+            ExportType type = exportItem.getType();
+            if (type == ExportType.AUTO) {
+                type = CellValues.typeOf(value);
+            }
+
+            switch (type) {
+                case NUMERIC:
+                    Number number = CellValues.toNumber(value);
+                    if (number != null) {
+                        writeNumber(number);
+                        return;
+                    }
+                    break;
+                case BOOLEAN:
+                    Boolean bool = CellValues.toBoolean(value);
+                    if (bool != null) {
+                        mCsv.rawField(bool ? "TRUE" : "FALSE");
+                        return;
+                    }
+                    break;
+                case DATE:
+                    Date date = CellValues.toDate(value);
+                    if (date != null) {
+                        mCsv.field(dateFormat(column, exportItem).format(date));
+                        return;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            mCsv.field(value.toString());
+        }
+
+        private void writeNumber(Number number) throws IOException {
+            if (number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte) {
+                mCsv.number(number.longValue());
+            } else if (number instanceof BigDecimal) {
+                mCsv.rawField(((BigDecimal) number).toPlainString());
+            } else if (number instanceof Double) {
+                double d = number.doubleValue();
+                if (d == (long) d && Math.abs(d) < 1e15) {
+                    mCsv.number((long) d);
+                } else {
+                    String text = Double.toString(d);
+                    // 避免科学计数法
+                    mCsv.rawField(text.indexOf('E') >= 0 && !Double.isInfinite(d) ? BigDecimal.valueOf(d).toPlainString() : text);
+                }
+            } else {
+                mCsv.field(number.toString());
+            }
+        }
+
+        private SimpleDateFormat dateFormat(int column, ExportItem exportItem) {
+            if (mDateFormats[column] == null) {
+                String format = exportItem.getFormat();
+                try {
+                    mDateFormats[column] = new SimpleDateFormat("".equals(format) ? Const.DEFAULT_DATE_FORMAT : format);
+                } catch (IllegalArgumentException e) {
+                    mDateFormats[column] = new SimpleDateFormat(Const.DEFAULT_DATE_FORMAT);
+                }
+            }
+            return mDateFormats[column];
+        }
+
+        @Override
+        public int getRowCount() {
+            return mRowCount;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (mSpoolFile != null) {
+                mCsv.flush();
+                mSpoolOut.close();
+                synchronized (CsvWorkbookWriter.this) {
+                    mSpilledBytes += mSpoolFile.length();
+                }
+            } else {
+                mLiveSheet = null;
+            }
+        }
+
+        void closeQuietly() {
+            try {
+                mSpoolOut.close();
+            } catch (IOException e) {
+                // 仅用于释放文件句柄
+            }
+        }
+    }
+}
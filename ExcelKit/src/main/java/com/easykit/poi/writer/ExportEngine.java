@@ -0,0 +1,23 @@
+package com.easykit.poi.writer;
+
+/**
+ * 导出引擎
+ */
+public enum ExportEngine {
+    /**
+     * Apache POI SXSSF(默认)
+     */
+    SXSSF,
+    /**
+     * 直接输出SpreadsheetML: 不创建行/单元格对象, sheet数据直接写入zip输出流, 无临时文件
+     */
+    XML,
+    /**
+     * 逗号分隔文本(.csv): 无样式/压缩开销, 所有sheet的数据依次写入同一个文件
+     */
+    CSV,
+    /**
+     * 制表符分隔文本(.tsv)
+     */
+    TSV
+}
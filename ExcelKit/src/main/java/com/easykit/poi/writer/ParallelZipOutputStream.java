@@ -0,0 +1,541 @@
+package com.easykit.poi.writer;
+
+import com.easykit.poi.core.POIUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * <p>
+ * 分块并行压缩的zip输出流(参考pigz): 每个条目的数据按BLOCK_SIZE切块, 各块在线程池中独立DEFLATE,
+ * 以前一块末尾32KB作为预置字典以保持压缩率, 块尾以SYNC_FLUSH对齐字节后按顺序拼接为一个完整的DEFLATE流。
+ * CRC32在写入线程中顺序计算, 条目大小通过数据描述符(data descriptor)写出。
+ * 压缩级别为0时写出STORED条目: 条目数据先暂存(超过STAGE_MEMORY_SIZE时写入临时文件), 结束时连同CRC和大小一起写出, 不使用线程池。
+ * 仅继承ZipOutputStream的类型以便替换使用, 不使用父类的压缩实现; 条目大小、偏移或条目数超出zip格式限制时与
+ * ZipOutputStream相同写出ZIP64记录。
+ * 写出失败后流不再可用, 未完成的压缩任务被取消, Deflater在finish()/close()或失败时释放。
+ * <p>
+ */
+public class ParallelZipOutputStream extends ZipOutputStream {
+    private static final int BLOCK_SIZE = 128 * 1024;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    // 空的最终块(固定Huffman编码, 仅含块结束符)
+    private static final byte[] FINAL_BLOCK = {0x03, 0x00};
+    // 超出后写出ZIP64记录
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    // 通用标志位: 3-大小在数据描述符中, 11-UTF-8文件名
+    private static final int FLAG_DATA_DESCRIPTOR = 0x0008;
+    private static final int FLAG_UTF8 = 0x0800;
+    // STORED条目在内存中暂存的最大字节数, 超出后写入临时文件
+    private static final int STAGE_MEMORY_SIZE = 1024 * 1024;
+
+    private final OutputStream mOut;
+    private final Executor mExecutor;
+    private final int mLevel;
+    private final int mMaxInFlight;
+    private final boolean mStored;
+    private final ConcurrentLinkedQueue<Deflater> mDeflaters = new ConcurrentLinkedQueue<Deflater>();
+    private final ArrayDeque<FutureTask<byte[]>> mInFlight = new ArrayDeque<FutureTask<byte[]>>();
+    private final List<Entry> mEntries = new ArrayList<Entry>();
+    private final CRC32 mCrc = new CRC32();
+
+    private Entry mEntry = null;
+    private byte[] mBlock = new byte[BLOCK_SIZE];
+    private int mBlockLength = 0;
+    private byte[] mDictionary = null;
+    private long mWritten = 0;
+    private boolean mFinished = false;
+    private boolean mFailed = false;
+    // STORED条目的暂存数据
+    private ByteArrayOutputStream mStage = null;
+    private File mStageFile = null;
+    private OutputStream mStageOut = null;
+    // Deflater已释放, 之后归还的Deflater直接释放
+    private volatile boolean mReleased = false;
+
+    /**
+     * @param out      目标输出流
+     * @param level    压缩级别(0-9, Deflater.DEFAULT_COMPRESSION为默认级别), 0为STORED
+     * @param executor 压缩线程池(级别为0时不使用, 可为null)
+     * @param threads  同时压缩的块数
+     */
+    public ParallelZipOutputStream(OutputStream out, int level, Executor executor, int threads) {
+        super(out);
+        if (executor == null && level != Deflater.NO_COMPRESSION) {
+            throw new IllegalArgumentException("executor不能为空");
+        }
+        this.mOut = out;
+        this.mLevel = level;
+        this.mStored = level == Deflater.NO_COMPRESSION;
+        this.mExecutor = executor;
+        this.mMaxInFlight = Math.max(1, threads) * 2;
+    }
+
+    @Override
+    public void putNextEntry(ZipEntry e) throws IOException {
+        ensureOpen();
+        if (mEntry != null) {
+            closeEntry();
+        }
+        Entry entry = new Entry(e.getName().getBytes("UTF-8"), dosTime(e.getTime() == -1 ? System.currentTimeMillis() : e.getTime()),
+                mStored ? ZipEntry.STORED : ZipEntry.DEFLATED, mStored ? FLAG_UTF8 : FLAG_UTF8 | FLAG_DATA_DESCRIPTOR);
+        if (mStored) {
+            // 本地文件头在条目结束时写出
+            mStage = new ByteArrayOutputStream(64 * 1024);
+            mStageOut = mStage;
+        } else {
+            // 大小未知, 在数据描述符中写出
+            entry.mOffset = mWritten;
+            writeLocalHeader(entry);
+        }
+
+        mEntry = entry;
+        mCrc.reset();
+        mDictionary = null;
+        mBlockLength = 0;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (mEntry == null) {
+            throw new IOException("no current ZIP entry");
+        }
+        mCrc.update(b, off, len);
+        mEntry.mSize += len;
+        if (mStored) {
+            stage(b, off, len);
+            return;
+        }
+        while (len > 0) {
+            int n = Math.min(len, BLOCK_SIZE - mBlockLength);
+            System.arraycopy(b, off, mBlock, mBlockLength, n);
+            mBlockLength += n;
+            off += n;
+            len -= n;
+            if (mBlockLength == BLOCK_SIZE) {
+                submitBlock();
+            }
+        }
+    }
+
+    @Override
+    public void closeEntry() throws IOException {
+        ensureOpen();
+        if (mEntry == null) {
+            return;
+        }
+        mEntry.mCrc = mCrc.getValue();
+        if (mStored) {
+            writeStaged(mEntry);
+        } else {
+            if (mBlockLength > 0) {
+                submitBlock();
+            }
+            while (!mInFlight.isEmpty()) {
+                writeCompressed(mInFlight.poll());
+            }
+            writeCompressedBytes(FINAL_BLOCK);
+
+            // 数据描述符(与ZipOutputStream相同, 大小超过4GB时为ZIP64格式)
+            boolean zip64 = mEntry.mSize >= ZIP64_MAGIC || mEntry.mCompressedSize >= ZIP64_MAGIC;
+            ByteBuffer descriptor = header(zip64 ? 24 : 16);
+            descriptor.putInt(0x08074b50);
+            descriptor.putInt((int) mEntry.mCrc);
+            if (zip64) {
+                descriptor.putLong(mEntry.mCompressedSize);
+                descriptor.putLong(mEntry.mSize);
+            } else {
+                descriptor.putInt((int) mEntry.mCompressedSize);
+                descriptor.putInt((int) mEntry.mSize);
+            }
+            writeHeader(descriptor);
+        }
+        mEntries.add(mEntry);
+        mEntry = null;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (mFinished || mFailed) {
+            return;
+        }
+        try {
+            closeEntry();
+            long centralStart = mWritten;
+            for (Entry entry : mEntries) {
+                writeCentralHeader(entry);
+            }
+            writeEnd(centralStart, mWritten - centralStart);
+            mOut.flush();
+        } finally {
+            mFinished = true;
+            release();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            // 写出失败后调用close()时finish()不再写出, 在此释放
+            release();
+            mOut.close();
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        final byte[] block = mBlockLength == BLOCK_SIZE ? mBlock : Arrays.copyOf(mBlock, mBlockLength);
+        final int length = mBlockLength;
+        final byte[] dictionary = mDictionary;
+        // 下一块以本块末尾32KB为字典
+        mDictionary = Arrays.copyOfRange(block, Math.max(0, length - DICTIONARY_SIZE), length);
+        mBlock = new byte[BLOCK_SIZE];
+        mBlockLength = 0;
+
+        FutureTask<byte[]> task = new FutureTask<byte[]>(new Callable<byte[]>() {
+            @Override
+            public byte[] call() {
+                return deflate(block, length, dictionary);
+            }
+        });
+        mInFlight.add(task);
+        try {
+            mExecutor.execute(task);
+        } catch (RuntimeException e) {
+            fail();
+            throw new IOException("提交压缩任务失败", e);
+        }
+        // 控制同时压缩的块数, 按顺序写出已完成的块
+        while (mInFlight.size() >= mMaxInFlight) {
+            writeCompressed(mInFlight.poll());
+        }
+    }
+
+    private byte[] deflate(byte[] block, int length, byte[] dictionary) {
+        Deflater deflater = mDeflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(mLevel, true);
+        }
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(block, 0, length);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(length / 3 + 64);
+            byte[] buffer = new byte[16 * 1024];
+            int n;
+            do {
+                n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                out.write(buffer, 0, n);
+            } while (n == buffer.length || !deflater.needsInput());
+            return out.toByteArray();
+        } finally {
+            deflater.reset();
+            mDeflaters.offer(deflater);
+            if (mReleased) {
+                // 流已释放(任务被取消但仍在运行): 不再复用
+                endDeflaters();
+            }
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (mFailed) {
+            throw new IOException("压缩输出已失败");
+        }
+        if (mFinished) {
+            throw new IOException("压缩输出已结束");
+        }
+    }
+
+    // 写出失败: 之后的写入抛出异常, close()只释放资源
+    private void fail() {
+        mFailed = true;
+        release();
+    }
+
+    // 取消未完成的压缩任务并释放Deflater及暂存文件
+    private void release() {
+        FutureTask<byte[]> task;
+        while ((task = mInFlight.poll()) != null) {
+            task.cancel(true);
+        }
+        mReleased = true;
+        endDeflaters();
+        def.end();
+        deleteStage();
+    }
+
+    private void endDeflaters() {
+        Deflater deflater;
+        while ((deflater = mDeflaters.poll()) != null) {
+            deflater.end();
+        }
+    }
+
+    private void writeCompressed(FutureTask<byte[]> task) throws IOException {
+        byte[] data;
+        try {
+            data = task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail();
+            throw new IOException("压缩被中断", e);
+        } catch (ExecutionException e) {
+            fail();
+            throw new IOException("压缩失败", e.getCause());
+        }
+        writeCompressedBytes(data);
+    }
+
+    private void writeCompressedBytes(byte[] data) throws IOException {
+        writeBytes(data, 0, data.length);
+        mEntry.mCompressedSize += data.length;
+    }
+
+    private void writeBytes(byte[] b, int off, int len) throws IOException {
+        try {
+            mOut.write(b, off, len);
+        } catch (IOException e) {
+            fail();
+            throw e;
+        } catch (RuntimeException e) {
+            fail();
+            throw e;
+        }
+        mWritten += len;
+    }
+
+    // 暂存STORED条目的数据, 超过STAGE_MEMORY_SIZE后转存到临时文件
+    private void stage(byte[] b, int off, int len) throws IOException {
+        try {
+            if (mStageFile == null && mStage.size() + len > STAGE_MEMORY_SIZE) {
+                mStageFile = POIUtils.createTempFile("excelkit-zip", ".tmp");
+                mStageOut = new BufferedOutputStream(new FileOutputStream(mStageFile), 64 * 1024);
+                mStage.writeTo(mStageOut);
+                mStage = null;
+            }
+            mStageOut.write(b, off, len);
+        } catch (IOException e) {
+            fail();
+            throw e;
+        }
+    }
+
+    // 写出STORED条目: 本地文件头(含CRC和大小) + 暂存的数据
+    private void writeStaged(Entry entry) throws IOException {
+        entry.mCompressedSize = entry.mSize;
+        entry.mOffset = mWritten;
+        writeLocalHeader(entry);
+        if (mStageFile == null) {
+            byte[] data = mStage.toByteArray();
+            mStage = null;
+            mStageOut = null;
+            writeBytes(data, 0, data.length);
+            return;
+        }
+        mStageOut.close();
+        mStageOut = null;
+        InputStream in = new FileInputStream(mStageFile);
+        try {
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                writeBytes(buffer, 0, n);
+            }
+        } finally {
+            in.close();
+            deleteStage();
+        }
+    }
+
+    private void deleteStage() {
+        if (mStageOut != null) {
+            try {
+                mStageOut.close();
+            } catch (IOException e) {
+                // 仅用于释放文件句柄
+            }
+            mStageOut = null;
+        }
+        mStage = null;
+        if (mStageFile != null) {
+            mStageFile.delete();
+            mStageFile = null;
+        }
+    }
+
+    // 本地文件头: DEFLATED条目的大小在数据描述符中; STORED条目大小超过4GB时大小写入ZIP64扩展字段
+    private void writeLocalHeader(Entry entry) throws IOException {
+        boolean zip64 = mStored && entry.mSize >= ZIP64_MAGIC;
+        ByteBuffer header = header(30 + entry.mName.length + (zip64 ? 20 : 0));
+        header.putInt(0x04034b50);
+        header.putShort((short) (zip64 ? 45 : 20));
+        header.putShort((short) entry.mFlag);
+        header.putShort((short) entry.mMethod);
+        header.putInt((int) entry.mDosTime);
+        if (mStored) {
+            header.putInt((int) entry.mCrc);
+            header.putInt((int) (zip64 ? ZIP64_MAGIC : entry.mCompressedSize));
+            header.putInt((int) (zip64 ? ZIP64_MAGIC : entry.mSize));
+        } else {
+            header.putInt(0);
+            header.putInt(0);
+            header.putInt(0);
+        }
+        header.putShort((short) entry.mName.length);
+        header.putShort((short) (zip64 ? 20 : 0));
+        header.put(entry.mName);
+        if (zip64) {
+            header.putShort((short) ZIP64_EXTRA_ID);
+            header.putShort((short) 16);
+            header.putLong(entry.mSize);
+            header.putLong(entry.mCompressedSize);
+        }
+        writeHeader(header);
+    }
+
+    // 中央目录文件头: 大小或偏移超过4GB时写入ZIP64扩展字段(按原始大小、压缩后大小、偏移的顺序)
+    private void writeCentralHeader(Entry entry) throws IOException {
+        int extra = (entry.mSize >= ZIP64_MAGIC ? 8 : 0) + (entry.mCompressedSize >= ZIP64_MAGIC ? 8 : 0)
+                + (entry.mOffset >= ZIP64_MAGIC ? 8 : 0);
+        int version = extra > 0 ? 45 : 20;
+        ByteBuffer header = header(46 + entry.mName.length + (extra > 0 ? 4 + extra : 0));
+        header.putInt(0x02014b50);
+        header.putShort((short) version);
+        header.putShort((short) version);
+        header.putShort((short) entry.mFlag);
+        header.putShort((short) entry.mMethod);
+        header.putInt((int) entry.mDosTime);
+        header.putInt((int) entry.mCrc);
+        header.putInt((int) Math.min(entry.mCompressedSize, ZIP64_MAGIC));
+        header.putInt((int) Math.min(entry.mSize, ZIP64_MAGIC));
+        header.putShort((short) entry.mName.length);
+        header.putShort((short) (extra > 0 ? 4 + extra : 0));
+        header.putShort((short) 0);
+        header.putShort((short) 0);
+        header.putShort((short) 0);
+        header.putInt(0);
+        header.putInt((int) Math.min(entry.mOffset, ZIP64_MAGIC));
+        header.put(entry.mName);
+        if (extra > 0) {
+            header.putShort((short) ZIP64_EXTRA_ID);
+            header.putShort((short) extra);
+            if (entry.mSize >= ZIP64_MAGIC) {
+                header.putLong(entry.mSize);
+            }
+            if (entry.mCompressedSize >= ZIP64_MAGIC) {
+                header.putLong(entry.mCompressedSize);
+            }
+            if (entry.mOffset >= ZIP64_MAGIC) {
+                header.putLong(entry.mOffset);
+            }
+        }
+        writeHeader(header);
+    }
+
+    // 中央目录结束记录: 条目数、目录大小或偏移超出限制时先写出ZIP64结束记录及定位符
+    private void writeEnd(long centralStart, long centralSize) throws IOException {
+        int count = mEntries.size();
+        boolean zip64 = count >= ZIP64_MAGIC_COUNT || centralSize >= ZIP64_MAGIC || centralStart >= ZIP64_MAGIC;
+        if (zip64) {
+            long zip64End = mWritten;
+            ByteBuffer record = header(56 + 20);
+            record.putInt(0x06064b50);
+            record.putLong(56 - 12);
+            record.putShort((short) 45);
+            record.putShort((short) 45);
+            record.putInt(0);
+            record.putInt(0);
+            record.putLong(count);
+            record.putLong(count);
+            record.putLong(centralSize);
+            record.putLong(centralStart);
+            // ZIP64结束记录定位符
+            record.putInt(0x07064b50);
+            record.putInt(0);
+            record.putLong(zip64End);
+            record.putInt(1);
+            writeHeader(record);
+        }
+        ByteBuffer end = header(22);
+        end.putInt(0x06054b50);
+        end.putShort((short) 0);
+        end.putShort((short) 0);
+        end.putShort((short) Math.min(count, ZIP64_MAGIC_COUNT));
+        end.putShort((short) Math.min(count, ZIP64_MAGIC_COUNT));
+        end.putInt((int) Math.min(centralSize, ZIP64_MAGIC));
+        end.putInt((int) Math.min(centralStart, ZIP64_MAGIC));
+        end.putShort((short) 0);
+        writeHeader(end);
+    }
+
+    // 头部先在数组中组装, 一次写出
+    private static ByteBuffer header(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void writeHeader(ByteBuffer header) throws IOException {
+        writeBytes(header.array(), 0, header.position());
+    }
+
+    private static long dosTime(long time) {
+        Calendar c = Calendar.getInstance();
+        c.setTimeInMillis(time);
+        int year = c.get(Calendar.YEAR);
+        if (year < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return ((long) (year - 1980) << 25) | ((long) (c.get(Calendar.MONTH) + 1) << 21) | ((long) c.get(Calendar.DAY_OF_MONTH) << 16)
+                | ((long) c.get(Calendar.HOUR_OF_DAY) << 11) | ((long) c.get(Calendar.MINUTE) << 5) | (c.get(Calendar.SECOND) >> 1);
+    }
+
+    private static class Entry {
+        private final byte[] mName;
+        private final long mDosTime;
+        private final int mMethod;
+        private final int mFlag;
+        private long mOffset;
+        private long mCrc;
+        private long mSize = 0;
+        private long mCompressedSize = 0;
+
+        Entry(byte[] name, long dosTime, int method, int flag) {
+            this.mName = name;
+            this.mDosTime = dosTime;
+            this.mMethod = method;
+            this.mFlag = flag;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.easykit.poi.writer;
+
+import com.easykit.poi.annotation.ExportType;
+import com.easykit.poi.core.CellValues;
+import com.easykit.poi.core.ColumnWidths;
+import com.easykit.poi.core.Const;
+import com.easykit.poi.core.ExportPlan;
+import com.easykit.poi.core.POIUtils;
+import com.easykit.poi.core.RowBuffer;
+import com.easykit.poi.core.StyleRegistry;
+import com.easykit.poi.hanlder.ExportHandler;
+import com.easykit.poi.pojo.ExportItem;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.xssf.streaming.SXSSFCell;
+import org.apache.poi.xssf.streaming.SXSSFRow;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * <p>
+ * 基于Apache POI SXSSF的工作薄写出器
+ * <p>
+ */
+public class SXSSFWorkbookWriter implements WorkbookWriter {
+    // 按内存预算计算的窗口范围
+    private static final int MIN_WINDOW_SIZE = 16;
+    private static final int MAX_WINDOW_SIZE = 100000;
+    // 行/单元格对象的估算开销(字节)
+    private static final int ROW_OVERHEAD = 96;
+    private static final int CELL_OVERHEAD = 64;
+
+    private final ExportPlan mPlan;
+    private final String[][] mRanges;
+    private final OutputStream mOut;
+    private final SXSSFWorkbook mWorkbook;
+    private final StyleRegistry mStyles;
+    private final CellStyle mHeadStyle;
+    private final CellStyle[] mBodyStyles;
+    // AUTO类型列中日期值的默认样式(无AUTO列时为null)
+    private final CellStyle mDefaultDateStyle;
+    private final long mMemoryBudget;
+    private final int mAutoWidthSampleRows;
+    private final List<SXSSFSheet> mSheets = new ArrayList<SXSSFSheet>();
+
+    public SXSSFWorkbookWriter(ExportPlan plan, ExportHandler handler, String[][] ranges, OutputStream out, WriterOptions options) {
+        this.mPlan = plan;
+        this.mRanges = ranges;
+        this.mOut = out;
+        // 创建新的工作薄。
+        this.mWorkbook = POIUtils.newSXSSFWorkbook(options.getRowAccessWindowSize());
+        this.mMemoryBudget = options.getMemoryBudget();
+        this.mAutoWidthSampleRows = options.getAutoWidthSampleRows();
+        this.mWorkbook.setCompressTempFiles(options.isCompressTempFiles());
+        this.mStyles = new StyleRegistry(mWorkbook);
+        this.mHeadStyle = mStyles.headStyle(handler);
+        this.mBodyStyles = mStyles.bodyStyles(plan, handler);
+        boolean autoType = false;
+        for (int i = 0; i < plan.size(); i++) {
+            autoType |= plan.getExportItem(i).getType() == ExportType.AUTO;
+        }
+        this.mDefaultDateStyle = autoType ? mStyles.dataFormatStyle(Const.DEFAULT_DATE_FORMAT) : null;
+    }
+
+    @Override
+    public SheetWriter createSheet(String sheetName) {
+        SXSSFSheet sheet = POIUtils.newSXSSFSheet(mWorkbook, sheetName);
+        mSheets.add(sheet);
+        return new SXSSFSheetWriter(sheet);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // 下拉列表数据只写入一次, 各sheet的数据验证通过名称引用
+        POIUtils.createRangeSheet(mWorkbook, mRanges);
+        mWorkbook.write(mOut);
+    }
+
+    @Override
+    public void dispose() {
+        mSheets.clear();
+        // 删除临时文件
+        mWorkbook.dispose();
+    }
+
+    /**
+     * POI 3.10.1的SXSSF没有获取sheet临时文件的公开API, 无法统计, 始终返回0
+     */
+    @Override
+    public long getSpilledBytes() {
+        return 0;
+    }
+
+    private class SXSSFSheetWriter implements SheetWriter {
+        private final SXSSFSheet mSheet;
+        private int mRowCount = 0;
+        // 已观察行的估算总大小, 用于按内存预算计算窗口
+        private long mSampledBytes = 0;
+        private long mSampledRows = 0;
+        // 按正文计算列宽(列宽在工作薄写出时才输出, 故可在sheet结束时设置)
+        private final ColumnWidths mWidths;
+
+        SXSSFSheetWriter(SXSSFSheet sheet) {
+            this.mSheet = sheet;
+            this.mWidths = mAutoWidthSampleRows != 0 ? new ColumnWidths(mPlan.size(), mAutoWidthSampleRows) : null;
+        }
+
+        // 创建表头
+        @Override
+        public void writeHeader() {
+            SXSSFRow headerRow = POIUtils.newSXSSFRow(mSheet, 0);
+            for (int i = 0; i < mPlan.size(); i++) {
+                SXSSFCell cell = POIUtils.newSXSSFCell(headerRow, i);
+//                POIUtils.setColumnWidth(mSheet, i, mPlan.getWidth(i), mPlan.getExportItem(i).getDisplay());
+                POIUtils.setColumnWidth(mSheet, i, (short)-1, mPlan.getExportItem(i).getDisplay());
+                cell.setCellValue(mPlan.getExportItem(i).getDisplay());
+                if (mWidths != null) {
+                    mWidths.update(i, mPlan.getExportItem(i).getDisplay());
+                }
+                if (mHeadStyle != null) {
+                    cell.setCellStyle(mHeadStyle);
+                }
+            }
+        }
+
+        @Override
+        public void writeRows(RowBuffer rows) {
+            if (mMemoryBudget > 0) {
+                resizeWindow(rows);
+            }
+            for (int i = 0; i < rows.size(); i++) {
+                if (mWidths != null && mWidths.isSampling()) {
+                    mWidths.updateRow(rows.row(i));
+                }
+                writeBodyRow(POIUtils.newSXSSFRow(mSheet, ++mRowCount), rows.row(i));
+            }
+        }
+
+        // 按已观察的平均行大小计算窗口: 窄行增大窗口以减少刷盘次数, 宽行缩小窗口以避免堆内存峰值
+        private void resizeWindow(RowBuffer rows) {
+            for (int i = 0; i < rows.size(); i++) {
+                mSampledBytes += estimateRowBytes(rows.row(i));
+            }
+            mSampledRows += rows.size();
+            if (mSampledRows > 0) {
+                long averageRowBytes = Math.max(1, mSampledBytes / mSampledRows);
+                long windowSize = Math.max(MIN_WINDOW_SIZE, Math.min(MAX_WINDOW_SIZE, mMemoryBudget / averageRowBytes));
+                mSheet.setRandomAccessWindowSize((int) windowSize);
+            }
+        }
+
+        private void writeBodyRow(SXSSFRow bodyRow, Object[] values) {
+            for (int j = 0; j < mPlan.size(); j++) {
+                ExportItem exportItem = mPlan.getExportItem(j);
+                SXSSFCell cell = POIUtils.newSXSSFCell(bodyRow, j);
+
+                // 替换值和转换后的值始终以文本写出
+                if (!"".equals(exportItem.getReplace()) || mPlan.getConvert(j) != null) {
+                    setStringCellValue(cell, (String) values[j]);
+                } else {
+                    setTypedCellValue(cell, values[j], exportItem.getType(), mBodyStyles[j] == null);
+                }
+
+                // 单元格宽度
+//                POIUtils.setColumnWidth(mSheet, j, mPlan.getWidth(j), cellValue);
+//                POIUtils.setColumnWidth(mSheet, j, (short)-1, cellValue);
+
+                if (mBodyStyles[j] != null) {
+                    cell.setCellStyle(mBodyStyles[j]);
+                }
+            }
+        }
+
+        // 按声明的类型写出原生单元格, 无法转换为声明类型的值按文本写出
+        private void setTypedCellValue(SXSSFCell cell, Object value, ExportType type, boolean defaultDateStyle) {
+            if (value == null) {
+                if (type == ExportType.STRING) {
+                    setStringCellValue(cell, null);
+                }
+                return;
+            }
+            if (type == ExportType.AUTO) {
+                type = CellValues.typeOf(value);
+            }
+
+            switch (type) {
+                case NUMERIC:
+                    Number number = CellValues.toNumber(value);
+                    if (number != null) {
+                        cell.setCellValue(number.doubleValue());
+                        return;
+                    }
+                    break;
+                case BOOLEAN:
+                    Boolean bool = CellValues.toBoolean(value);
+                    if (bool != null) {
+                        cell.setCellValue(bool);
+                        return;
+                    }
+                    break;
+                case DATE:
+                    Date date = CellValues.toDate(value);
+                    if (date != null) {
+                        cell.setCellValue(date);
+                        // 未设置列样式时(AUTO类型)使用默认日期格式
+                        if (defaultDateStyle) {
+                            cell.setCellStyle(mDefaultDateStyle);
+                        }
+                        return;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            setStringCellValue(cell, value.toString());
+        }
+
+        private void setStringCellValue(SXSSFCell cell, String cellValue) {
+            // fix: 当值为“”时,当前index的cell会失效
+            cell.setCellValue("".equals(cellValue) ? null : cellValue);
+            cell.setCellType(SXSSFCell.CELL_TYPE_STRING);
+        }
+
+        @Override
+        public int getRowCount() {
+            return mRowCount;
+        }
+
+        @Override
+        public void finish() {
+            if (mWidths != null) {
+                for (int i = 0; i < mPlan.size(); i++) {
+                    mSheet.setColumnWidth(i, mWidths.getColumnWidth(i));
+                }
+            }
+
+            //设置下拉列表 下拉格式不是针对整列的需要指定生效的行数, 数据量在写完当前sheet后才能确定, 故在此处设置
+            for (int i = 0; i < mPlan.size(); i++) {
+                if (mRanges[i] != null && mRanges[i].length > 0 && mRowCount > 0) {
+                    POIUtils.setRangeValidation(mSheet, POIUtils.rangeName(i), 1, mRowCount, i, i);
+                }
+            }
+
+            //配置自动列宽 @Mark 貌似没什么卵用
+            /*for (int i = 0; i < mPlan.size(); i++) {
+                mSheet.autoSizeColumn(i);
+            }*/
+        }
+    }
+
+    private static long estimateRowBytes(Object[] values) {
+        long bytes = ROW_OVERHEAD;
+        for (Object value : values) {
+            bytes += CELL_OVERHEAD;
+            if (value instanceof CharSequence) {
+                bytes += 40 + 2L * ((CharSequence) value).length();
+            } else if (value != null) {
+                bytes += 16;
+            }
+        }
+        return bytes;
+    }
+}
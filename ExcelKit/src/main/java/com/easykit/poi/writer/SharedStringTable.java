@@ -0,0 +1,114 @@
+package com.easykit.poi.writer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * 共享字符串表(sharedStrings.xml)的写出端实现, 按列进行字典编码:
+ * 标记为sharedString的列始终参与编码; 开启自适应模式后, 其余文本列先采样SAMPLE_SIZE个值,
+ * 新值占比超过一半的(高基数)列改为内联字符串。
+ * 字典条目数和单条长度均有上限, 超出后的新值按内联字符串写出, 内存占用与数据量无关。
+ * <p>
+ */
+public class SharedStringTable {
+    // 自适应模式下每列的采样数
+    static final int SAMPLE_SIZE = 1024;
+    // 超过该长度的文本不进入字典
+    static final int MAX_STRING_LENGTH = 256;
+
+    private static final int INLINE = 0;
+    private static final int SHARED = 1;
+    private static final int SAMPLING = 2;
+
+    private final Map<String, Integer> mIndexes = new HashMap<String, Integer>();
+    private final List<String> mStrings = new ArrayList<String>();
+    private final int mMaxEntries;
+    private final int[] mColumnModes;
+    private final int[] mColumnSamples;
+    private final int[] mColumnMisses;
+    private long mReferences = 0;
+
+    /**
+     * @param sharedColumns 始终编码的列
+     * @param adaptive      其余列是否按采样结果自适应编码
+     * @param maxEntries    字典最大条目数
+     */
+    public SharedStringTable(boolean[] sharedColumns, boolean adaptive, int maxEntries) {
+        this.mMaxEntries = maxEntries;
+        this.mColumnModes = new int[sharedColumns.length];
+        this.mColumnSamples = new int[sharedColumns.length];
+        this.mColumnMisses = new int[sharedColumns.length];
+        for (int i = 0; i < sharedColumns.length; i++) {
+            mColumnModes[i] = sharedColumns[i] ? SHARED : adaptive ? SAMPLING : INLINE;
+        }
+    }
+
+    /**
+     * 是否有列参与编码(均不参与时无需写出sharedStrings.xml)
+     */
+    public boolean isEnabled() {
+        for (int mode : mColumnModes) {
+            if (mode != INLINE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取文本在字典中的索引
+     *
+     * @param column 列索引
+     * @param value  文本值
+     * @return 字典索引, -1表示应按内联字符串写出
+     */
+    public synchronized int indexOf(int column, String value) {
+        int mode = mColumnModes[column];
+        if (mode == INLINE || value.length() > MAX_STRING_LENGTH) {
+            return -1;
+        }
+
+        Integer index = mIndexes.get(value);
+        if (index == null) {
+            if (mode == SAMPLING) {
+                mColumnMisses[column]++;
+            }
+            if (mStrings.size() < mMaxEntries) {
+                index = mStrings.size();
+                mIndexes.put(value, index);
+                mStrings.add(value);
+            }
+        }
+        if (mode == SAMPLING && ++mColumnSamples[column] >= SAMPLE_SIZE) {
+            mColumnModes[column] = mColumnMisses[column] * 2 > SAMPLE_SIZE ? INLINE : SHARED;
+        }
+        if (index == null) {
+            return -1;
+        }
+        mReferences++;
+        return index;
+    }
+
+    /**
+     * 写出sharedStrings.xml
+     */
+    public synchronized void writeTo(XmlStreamWriter xml) throws IOException {
+        xml.raw("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .raw("<sst xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" count=\"").number(mReferences)
+                .raw("\" uniqueCount=\"").number(mStrings.size()).raw("\">");
+        for (String value : mStrings) {
+            boolean preserve = value.length() > 0
+                    && (Character.isWhitespace(value.charAt(0)) || Character.isWhitespace(value.charAt(value.length() - 1)));
+            xml.raw(preserve ? "<si><t xml:space=\"preserve\">" : "<si><t>").text(value).raw("</t></si>");
+        }
+        xml.raw("</sst>");
+    }
+
+    public synchronized int getUniqueCount() {
+        return mStrings.size();
+    }
+}
@@ -0,0 +1,41 @@
+package com.easykit.poi.writer;
+
+import com.easykit.poi.core.RowBuffer;
+
+import java.io.IOException;
+
+/**
+ * <p>
+ * sheet写出器: 表头 -> 数据行(可多次) -> 结束。
+ * 不同sheet的writeRows可在不同线程中并发调用, 同一sheet的调用必须串行。
+ * <p>
+ */
+public interface SheetWriter {
+
+    /**
+     * 写出表头
+     *
+     * @throws IOException 写出失败
+     */
+    void writeHeader() throws IOException;
+
+    /**
+     * 写出一批已转换的数据行
+     *
+     * @param rows 数据行
+     * @throws IOException 写出失败
+     */
+    void writeRows(RowBuffer rows) throws IOException;
+
+    /**
+     * @return 已写出的数据行数(不包含表头)
+     */
+    int getRowCount();
+
+    /**
+     * 结束当前sheet(设置下拉列表等)
+     *
+     * @throws IOException 写出失败
+     */
+    void finish() throws IOException;
+}
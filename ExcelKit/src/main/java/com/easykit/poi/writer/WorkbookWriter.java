@@ -0,0 +1,40 @@
+package com.easykit.poi.writer;
+
+import java.io.IOException;
+
+/**
+ * <p>
+ * 工作薄写出器, 由导出引擎实现
+ * <p>
+ */
+public interface WorkbookWriter {
+
+    /**
+     * 创建新的sheet
+     *
+     * @param sheetName 工作表名字
+     * @return sheet写出器
+     * @throws IOException 写出失败
+     */
+    SheetWriter createSheet(String sheetName) throws IOException;
+
+    /**
+     * 完成工作薄并写出到输出流(不关闭输出流)
+     *
+     * @throws IOException 写出失败
+     */
+    void close() throws IOException;
+
+    /**
+     * 释放临时文件等资源(无论导出成功与否都应调用)
+     */
+    void dispose();
+
+    /**
+     * 写入临时文件的字节数(压缩后), 在dispose()之后获取。
+     * 仅统计写出器自己创建的临时文件(XML/CSV引擎), SXSSF引擎无法统计, 返回0
+     *
+     * @return 字节数
+     */
+    long getSpilledBytes();
+}
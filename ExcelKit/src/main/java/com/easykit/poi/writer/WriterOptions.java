@@ -0,0 +1,145 @@
+package com.easykit.poi.writer;
+
+import com.easykit.poi.core.Const;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
+
+/**
+ * 导出引擎参数
+ */
+public class WriterOptions {
+
+    private boolean spoolSheets = false; // sheet数据是否先写入临时文件(并行生成多个sheet时需要)
+    private boolean sharedStrings = false; // 文本列是否按采样结果自适应写入共享字符串表
+    private int maxSharedStrings = 65536; // 共享字符串表最大条目数
+    private boolean compressTempFiles = false; // 临时文件是否压缩(gzip)
+    private int rowAccessWindowSize = Const.DEFAULT_ROW_ACCESS_WINDOW_SIZE; // SXSSF内存中保留的行数
+    private long memoryBudget = 0; // 每个sheet行数据的内存预算(字节), 大于0时按行大小动态计算SXSSF窗口
+    private Executor pipelineExecutor = null; // 流水线导出: 压缩在该线程池中进行(仅XML引擎)
+    private int autoWidthSampleRows = 0; // 按正文计算列宽的采样行数: 0-仅按表头, ColumnWidths.ALL_ROWS-全部行
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION; // 输出zip的压缩级别(仅XML引擎)
+    private Executor compressionExecutor = null; // 分块并行压缩线程池(仅XML引擎)
+    private int compressionThreads = 1; // 同时压缩的块数
+    private Charset csvCharset = StandardCharsets.UTF_8; // CSV/TSV编码
+    private boolean csvBom = true; // CSV/TSV是否写出BOM(Excel依赖BOM识别UTF-8)
+
+    public boolean isSpoolSheets() {
+        return spoolSheets;
+    }
+
+    public WriterOptions setSpoolSheets(boolean spoolSheets) {
+        this.spoolSheets = spoolSheets;
+        return this;
+    }
+
+    public boolean isSharedStrings() {
+        return sharedStrings;
+    }
+
+    public WriterOptions setSharedStrings(boolean sharedStrings) {
+        this.sharedStrings = sharedStrings;
+        return this;
+    }
+
+    public int getMaxSharedStrings() {
+        return maxSharedStrings;
+    }
+
+    public WriterOptions setMaxSharedStrings(int maxSharedStrings) {
+        this.maxSharedStrings = maxSharedStrings;
+        return this;
+    }
+
+    public boolean isCompressTempFiles() {
+        return compressTempFiles;
+    }
+
+    public WriterOptions setCompressTempFiles(boolean compressTempFiles) {
+        this.compressTempFiles = compressTempFiles;
+        return this;
+    }
+
+    public int getRowAccessWindowSize() {
+        return rowAccessWindowSize;
+    }
+
+    public WriterOptions setRowAccessWindowSize(int rowAccessWindowSize) {
+        this.rowAccessWindowSize = rowAccessWindowSize;
+        return this;
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    public WriterOptions setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+        return this;
+    }
+
+    public int getAutoWidthSampleRows() {
+        return autoWidthSampleRows;
+    }
+
+    public WriterOptions setAutoWidthSampleRows(int autoWidthSampleRows) {
+        this.autoWidthSampleRows = autoWidthSampleRows;
+        return this;
+    }
+
+    public Executor getPipelineExecutor() {
+        return pipelineExecutor;
+    }
+
+    public WriterOptions setPipelineExecutor(Executor pipelineExecutor) {
+        this.pipelineExecutor = pipelineExecutor;
+        return this;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public WriterOptions setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+        return this;
+    }
+
+    public Executor getCompressionExecutor() {
+        return compressionExecutor;
+    }
+
+    public WriterOptions setCompressionExecutor(Executor compressionExecutor) {
+        this.compressionExecutor = compressionExecutor;
+        return this;
+    }
+
+    public int getCompressionThreads() {
+        return compressionThreads;
+    }
+
+    public WriterOptions setCompressionThreads(int compressionThreads) {
+        this.compressionThreads = compressionThreads;
+        return this;
+    }
+
+    public Charset getCsvCharset() {
+        return csvCharset;
+    }
+
+    public WriterOptions setCsvCharset(Charset csvCharset) {
+        this.csvCharset = csvCharset;
+        return this;
+    }
+
+    public boolean isCsvBom() {
+        return csvBom;
+    }
+
+    public WriterOptions setCsvBom(boolean csvBom) {
+        this.csvBom = csvBom;
+        return this;
+    }
+}
@@ -0,0 +1,203 @@
+package com.easykit.poi.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>
+ * 轻量的UTF-8 XML输出缓冲: 转义与编码在同一次遍历中直接写入可复用的字节缓冲区,
+ * 写出过程中不产生中间String/char[]对象。非法的XML控制字符会被忽略。
+ * <p>
+ */
+public class XmlStreamWriter {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    // 单个字符编码/转义后的最大字节数("&quot;")
+    private static final int MAX_CHAR_BYTES = 6;
+    private static final byte[] AMP = bytes("&amp;");
+    private static final byte[] LT = bytes("&lt;");
+    private static final byte[] GT = bytes("&gt;");
+    private static final byte[] QUOT = bytes("&quot;");
+    private static final byte[] TAB = bytes("&#9;");
+    private static final byte[] LF = bytes("&#10;");
+    private static final byte[] CR = bytes("&#13;");
+    // 浮点数不使用科学计数法写出的范围
+    private static final double PLAIN_MIN = 1e-15;
+    private static final double PLAIN_MAX = 1e15;
+
+    private final OutputStream mOut;
+    private final byte[] mBuffer;
+    private int mPos = 0;
+    private long mWritten = 0;
+
+    public XmlStreamWriter(OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    public XmlStreamWriter(OutputStream out, int bufferSize) {
+        this.mOut = out;
+        this.mBuffer = new byte[Math.max(bufferSize, 64)];
+    }
+
+    /**
+     * 将ASCII字符串转换为字节, 供固定的标记片段复用
+     */
+    public static byte[] bytes(String markup) {
+        return markup.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 写出固定的标记片段(不转义)
+     */
+    public XmlStreamWriter raw(byte[] markup) throws IOException {
+        if (markup.length > mBuffer.length - mPos) {
+            flushBuffer();
+            if (markup.length > mBuffer.length) {
+                mOut.write(markup);
+                mWritten += markup.length;
+                return this;
+            }
+        }
+        System.arraycopy(markup, 0, mBuffer, mPos, markup.length);
+        mPos += markup.length;
+        return this;
+    }
+
+    /**
+     * 写出标记片段(不转义)
+     */
+    public XmlStreamWriter raw(String markup) throws IOException {
+        return write(markup, false, false);
+    }
+
+    /**
+     * 写出元素文本(转义&amp;、&lt;、&gt;)
+     */
+    public XmlStreamWriter text(String value) throws IOException {
+        return write(value, true, false);
+    }
+
+    /**
+     * 写出属性值(额外转义双引号)
+     */
+    public XmlStreamWriter attr(String value) throws IOException {
+        return write(value, true, true);
+    }
+
+    /**
+     * 写出十进制整数
+     */
+    public XmlStreamWriter number(long value) throws IOException {
+        if (mBuffer.length - mPos < 20) {
+            flushBuffer();
+        }
+        if (value == Long.MIN_VALUE) {
+            return raw(Long.toString(value));
+        }
+        if (value < 0) {
+            mBuffer[mPos++] = '-';
+            value = -value;
+        }
+        int start = mPos;
+        do {
+            mBuffer[mPos++] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+        // 反转数字
+        for (int i = start, j = mPos - 1; i < j; i++, j--) {
+            byte tmp = mBuffer[i];
+            mBuffer[i] = mBuffer[j];
+            mBuffer[j] = tmp;
+        }
+        return this;
+    }
+
+    /**
+     * 写出浮点数: 整数值按整数写出, 绝对值在1e-15~1e15之间时不使用科学计数法(Double.toString会将1e10写为1.0E10),
+     * 其余值按Double.toString写出(xsd:double格式)
+     */
+    public XmlStreamWriter number(double value) throws IOException {
+        double abs = Math.abs(value);
+        if (abs < PLAIN_MAX && value == Math.rint(value)) {
+            return number((long) value);
+        }
+        if (abs >= PLAIN_MIN && abs < PLAIN_MAX) {
+            return raw(new BigDecimal(Double.toString(value)).toPlainString());
+        }
+        return raw(Double.toString(value));
+    }
+
+    private XmlStreamWriter write(String value, boolean escape, boolean attribute) throws IOException {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (mBuffer.length - mPos < MAX_CHAR_BYTES) {
+                flushBuffer();
+            }
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c >= 0x20) {
+                    if (escape && c == '&') {
+                        put(AMP);
+                    } else if (escape && c == '<') {
+                        put(LT);
+                    } else if (escape && c == '>') {
+                        put(GT);
+                    } else if (attribute && c == '"') {
+                        put(QUOT);
+                    } else {
+                        mBuffer[mPos++] = (byte) c;
+                    }
+                } else if (c == '\t' || c == '\n' || c == '\r') {
+                    if (attribute) {
+                        // 属性值中的空白字符需转义, 否则会被规范化为空格
+                        put(c == '\t' ? TAB : c == '\n' ? LF : CR);
+                    } else {
+                        mBuffer[mPos++] = (byte) c;
+                    }
+                }
+                // 其余控制字符在XML中非法, 直接忽略
+            } else if (c < 0x800) {
+                mBuffer[mPos++] = (byte) (0xC0 | (c >> 6));
+                mBuffer[mPos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c)) {
+                if (i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, value.charAt(++i));
+                    mBuffer[mPos++] = (byte) (0xF0 | (cp >> 18));
+                    mBuffer[mPos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    mBuffer[mPos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    mBuffer[mPos++] = (byte) (0x80 | (cp & 0x3F));
+                }
+                // 不成对的代理字符忽略
+            } else if (!Character.isLowSurrogate(c) && c != 0xFFFE && c != 0xFFFF) {
+                mBuffer[mPos++] = (byte) (0xE0 | (c >> 12));
+                mBuffer[mPos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                mBuffer[mPos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return this;
+    }
+
+    private void put(byte[] escaped) {
+        System.arraycopy(escaped, 0, mBuffer, mPos, escaped.length);
+        mPos += escaped.length;
+    }
+
+    /**
+     * @return 已写出的字节数
+     */
+    public long getWrittenBytes() {
+        return mWritten + mPos;
+    }
+
+    /**
+     * 将缓冲区写入底层输出流(不调用底层输出流的flush)
+     */
+    public void flushBuffer() throws IOException {
+        if (mPos > 0) {
+            mOut.write(mBuffer, 0, mPos);
+            mWritten += mPos;
+            mPos = 0;
+        }
+    }
+}
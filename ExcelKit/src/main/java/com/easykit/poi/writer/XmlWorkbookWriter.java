@@ -0,0 +1,585 @@
+package com.easykit.poi.writer;
+
+import com.easykit.poi.annotation.ExportType;
+import com.easykit.poi.core.AsyncOutputStream;
+import com.easykit.poi.core.CellValues;
+import com.easykit.poi.core.ColumnWidths;
+import com.easykit.poi.core.Const;
+import com.easykit.poi.core.ExportPlan;
+import com.easykit.poi.core.POIUtils;
+import com.easykit.poi.core.RowBuffer;
+import com.easykit.poi.core.StyleRegistry;
+import com.easykit.poi.hanlder.ExportHandler;
+import com.easykit.poi.pojo.ExportItem;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.ss.util.WorkbookUtil;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * <p>
+ * 直接输出SpreadsheetML的工作薄写出器: 不创建行/单元格对象, sheet XML边生成边写入zip输出流,
+ * 仅在并行生成多个sheet时才将sheet数据暂存到临时文件。
+ * 样式仍由StyleRegistry(POI StylesTable)维护, 因此ExportHandler的样式设置同样生效。
+ * <p>
+ */
+public class XmlWorkbookWriter implements WorkbookWriter {
+    private static final String NS_MAIN = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String NS_REL = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+
+    private static final byte[] ROW_START = XmlStreamWriter.bytes("<row r=\"");
+    private static final byte[] ROW_END = XmlStreamWriter.bytes("</row>\n");
+    private static final byte[] CELL_START = XmlStreamWriter.bytes("<c r=\"");
+    private static final byte[] STYLE_ATTR = XmlStreamWriter.bytes("\" s=\"");
+    private static final byte[] INLINE_STR = XmlStreamWriter.bytes("\" t=\"inlineStr\"><is><t>");
+    private static final byte[] INLINE_STR_PRESERVE = XmlStreamWriter.bytes("\" t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+    private static final byte[] INLINE_STR_END = XmlStreamWriter.bytes("</t></is></c>");
+    private static final byte[] SHARED_STR = XmlStreamWriter.bytes("\" t=\"s\"><v>");
+    private static final byte[] BOOLEAN_TRUE = XmlStreamWriter.bytes("\" t=\"b\"><v>1</v></c>");
+    private static final byte[] BOOLEAN_FALSE = XmlStreamWriter.bytes("\" t=\"b\"><v>0</v></c>");
+    private static final byte[] VALUE_START = XmlStreamWriter.bytes("\"><v>");
+    private static final byte[] VALUE_END = XmlStreamWriter.bytes("</v></c>");
+    private static final byte[] EMPTY_CELL_END = XmlStreamWriter.bytes("\"/>");
+    private static final byte[] QUOTE_CLOSE = XmlStreamWriter.bytes("\">");
+
+    private final ExportPlan mPlan;
+    private final String[][] mRanges;
+    private final WriterOptions mOptions;
+    private final ZipOutputStream mZip;
+    // 流水线模式下sheet数据经此流交给后台线程压缩
+    private final AsyncOutputStream mCompressor;
+    private final StyleRegistry mStyles;
+    private final int mHeadStyle;
+    private final int[] mBodyStyles;
+    private final int mDefaultDateStyle;
+    private final byte[][] mColumnRefs;
+    private final SharedStringTable mSharedStrings;
+    private final List<XmlSheetWriter> mSheets = new ArrayList<XmlSheetWriter>();
+    private final Set<String> mSheetNames = new HashSet<String>();
+    private XmlSheetWriter mLiveSheet = null;
+    // 存放下拉列表数据的隐藏sheet序号(0-没有下拉列表)
+    private int mRangeSheetIndex = 0;
+    private long mSpilledBytes = 0;
+
+    public XmlWorkbookWriter(ExportPlan plan, ExportHandler handler, String[][] ranges, OutputStream out, WriterOptions options) {
+        this.mPlan = plan;
+        this.mRanges = ranges;
+        this.mOptions = options;
+        this.mZip = newZip(out, options);
+        this.mCompressor = options.getPipelineExecutor() != null && !options.isSpoolSheets()
+                ? new AsyncOutputStream(mZip, options.getPipelineExecutor(), 64 * 1024, 8) : null;
+
+        // 仅用于维护样式表, 不会创建sheet和临时文件
+        this.mStyles = new StyleRegistry(new SXSSFWorkbook());
+        this.mHeadStyle = styleIndex(mStyles.headStyle(handler));
+        CellStyle[] bodyStyles = mStyles.bodyStyles(plan, handler);
+        this.mBodyStyles = new int[plan.size()];
+        boolean autoType = false;
+        for (int i = 0; i < bodyStyles.length; i++) {
+            mBodyStyles[i] = styleIndex(bodyStyles[i]);
+            autoType |= plan.getExportItem(i).getType() == ExportType.AUTO;
+        }
+        this.mDefaultDateStyle = autoType ? styleIndex(mStyles.dataFormatStyle(Const.DEFAULT_DATE_FORMAT)) : -1;
+
+        this.mColumnRefs = new byte[plan.size()][];
+        for (int i = 0; i < mColumnRefs.length; i++) {
+            mColumnRefs[i] = XmlStreamWriter.bytes(CellReference.convertNumToColString(i));
+        }
+
+        boolean[] sharedColumns = new boolean[plan.size()];
+        for (int i = 0; i < sharedColumns.length; i++) {
+            sharedColumns[i] = plan.getExportItem(i).isSharedString();
+        }
+        SharedStringTable sharedStrings = new SharedStringTable(sharedColumns, options.isSharedStrings(), options.getMaxSharedStrings());
+        this.mSharedStrings = sharedStrings.isEnabled() ? sharedStrings : null;
+    }
+
+    // 级别0写出STORED条目(ZipOutputStream要求预先设置CRC和大小, 无法流式写出)
+    private static ZipOutputStream newZip(OutputStream out, WriterOptions options) {
+        if (options.getCompressionExecutor() != null || options.getCompressionLevel() == Deflater.NO_COMPRESSION) {
+            return new ParallelZipOutputStream(out, options.getCompressionLevel(), options.getCompressionExecutor(), options.getCompressionThreads());
+        }
+        ZipOutputStream zip = new ZipOutputStream(out);
+        zip.setLevel(options.getCompressionLevel());
+        return zip;
+    }
+
+    private static int styleIndex(CellStyle style) {
+        return style == null ? -1 : style.getIndex();
+    }
+
+    @Override
+    public synchronized SheetWriter createSheet(String sheetName) throws IOException {
+        WorkbookUtil.validateSheetName(sheetName);
+        if (!mSheetNames.add(sheetName.toLowerCase())) {
+            throw new IllegalArgumentException("The workbook already contains a sheet of this name");
+        }
+
+        int index = mSheets.size() + 1;
+        XmlSheetWriter sheet;
+        if (mOptions.isSpoolSheets()) {
+            File spoolFile = POIUtils.createTempFile("excelkit-sheet", mOptions.isCompressTempFiles() ? ".xml.gz" : ".xml");
+            OutputStream spoolOut = new FileOutputStream(spoolFile);
+            if (mOptions.isCompressTempFiles()) {
+                spoolOut = new GZIPOutputStream(spoolOut, 64 * 1024);
+            }
+            sheet = new XmlSheetWriter(sheetName, index, spoolOut, spoolFile);
+        } else {
+            if (mLiveSheet != null) {
+                throw new IllegalStateException("上一个sheet尚未结束: " + mLiveSheet.mName);
+            }
+            mZip.putNextEntry(new ZipEntry(sheetPart(index)));
+            sheet = new XmlSheetWriter(sheetName, index, mCompressor != null ? mCompressor : mZip, null);
+            mLiveSheet = sheet;
+        }
+        mSheets.add(sheet);
+        return sheet;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // 暂存的sheet数据按顺序写入zip
+        byte[] buffer = new byte[64 * 1024];
+        for (XmlSheetWriter sheet : mSheets) {
+            if (sheet.mSpoolFile != null) {
+                mZip.putNextEntry(new ZipEntry(sheetPart(sheet.mIndex)));
+                InputStream in = new FileInputStream(sheet.mSpoolFile);
+                if (mOptions.isCompressTempFiles()) {
+                    in = new GZIPInputStream(in, 64 * 1024);
+                }
+                try {
+                    int n;
+                    while ((n = in.read(buffer)) != -1) {
+                        mZip.write(buffer, 0, n);
+                    }
+                } finally {
+                    in.close();
+                }
+                mZip.closeEntry();
+                sheet.mSpoolFile.delete();
+            }
+        }
+
+        if (mCompressor != null) {
+            mCompressor.close();
+        }
+        writeRangeSheet();
+        writeWorkbookParts();
+        mZip.finish();
+    }
+
+    @Override
+    public void dispose() {
+        if (mCompressor != null) {
+            mCompressor.abort();
+        }
+        for (XmlSheetWriter sheet : mSheets) {
+            if (sheet.mSpoolFile != null) {
+                sheet.closeQuietly();
+                sheet.mSpoolFile.delete();
+            }
+        }
+    }
+
+    @Override
+    public synchronized long getSpilledBytes() {
+        return mSpilledBytes;
+    }
+
+    // 下拉列表数据只写入一次隐藏sheet(每列一个列表, 与数据列位置相同), 各sheet的数据验证通过名称引用
+    private void writeRangeSheet() throws IOException {
+        int maxSize = 0;
+        for (String[] range : mRanges) {
+            maxSize = range != null ? Math.max(maxSize, range.length) : maxSize;
+        }
+        if (maxSize == 0) {
+            return;
+        }
+        if (mSheetNames.contains(Const.RANGE_SHEET_NAME)) {
+            throw new IllegalArgumentException("sheet名称与下拉列表的隐藏sheet重复: " + Const.RANGE_SHEET_NAME);
+        }
+        mRangeSheetIndex = mSheets.size() + 1;
+        mZip.putNextEntry(new ZipEntry(sheetPart(mRangeSheetIndex)));
+        XmlStreamWriter xml = new XmlStreamWriter(mZip);
+        xml.raw(XML_DECLARATION).raw("<worksheet xmlns=\"" + NS_MAIN + "\"><sheetData>");
+        for (int i = 0; i < maxSize; i++) {
+            xml.raw(ROW_START).number(i + 1).raw(QUOTE_CLOSE);
+            for (int j = 0; j < mRanges.length; j++) {
+                if (mRanges[j] != null && i < mRanges[j].length && mRanges[j][i] != null) {
+                    xml.raw(CELL_START).raw(mColumnRefs[j]).number(i + 1).raw(INLINE_STR_PRESERVE).text(mRanges[j][i]).raw(INLINE_STR_END);
+                }
+            }
+            xml.raw(ROW_END);
+        }
+        xml.raw("</sheetData></worksheet>").flushBuffer();
+        mZip.closeEntry();
+    }
+
+    private static String sheetPart(int index) {
+        return "xl/worksheets/sheet" + index + ".xml";
+    }
+
+    private void writeWorkbookParts() throws IOException {
+        XmlStreamWriter xml = new XmlStreamWriter(mZip, 8 * 1024);
+
+        mZip.putNextEntry(new ZipEntry("[Content_Types].xml"));
+        xml.raw(XML_DECLARATION)
+                .raw("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+                .raw("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+                .raw("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+                .raw("<Override PartName=\"/docProps/core.xml\" ContentType=\"application/vnd.openxmlformats-package.core-properties+xml\"/>")
+                .raw("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>")
+                .raw("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        if (mSharedStrings != null) {
+            xml.raw("<Override PartName=\"/xl/sharedStrings.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sharedStrings+xml\"/>");
+        }
+        int sheetCount = mRangeSheetIndex > 0 ? mRangeSheetIndex : mSheets.size();
+        for (int i = 1; i <= sheetCount; i++) {
+            xml.raw("<Override PartName=\"/").raw(sheetPart(i))
+                    .raw("\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        xml.raw("</Types>").flushBuffer();
+        mZip.closeEntry();
+
+        mZip.putNextEntry(new ZipEntry("_rels/.rels"));
+        xml.raw(XML_DECLARATION)
+                .raw("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">")
+                .raw("<Relationship Id=\"rId1\" Type=\"" + NS_REL + "/officeDocument\" Target=\"xl/workbook.xml\"/>")
+                .raw("<Relationship Id=\"rId2\" Type=\"http://schemas.openxmlformats.org/package/2006/relationships/metadata/core-properties\" Target=\"docProps/core.xml\"/>")
+                .raw("</Relationships>").flushBuffer();
+        mZip.closeEntry();
+
+        // 核心属性(部分读取方在关闭文件包时要求存在该部件)
+        SimpleDateFormat w3cdtf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+        w3cdtf.setTimeZone(TimeZone.getTimeZone("UTC"));
+        mZip.putNextEntry(new ZipEntry("docProps/core.xml"));
+        xml.raw(XML_DECLARATION)
+                .raw("<cp:coreProperties xmlns:cp=\"http://schemas.openxmlformats.org/package/2006/metadata/core-properties\"")
+                .raw(" xmlns:dc=\"http://purl.org/dc/elements/1.1/\" xmlns:dcterms=\"http://purl.org/dc/terms/\"")
+                .raw(" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">")
+                .raw("<dcterms:created xsi:type=\"dcterms:W3CDTF\">").raw(w3cdtf.format(new Date())).raw("</dcterms:created>")
+                .raw("<dc:creator>Apache POI</dc:creator></cp:coreProperties>").flushBuffer();
+        mZip.closeEntry();
+
+        mZip.putNextEntry(new ZipEntry("xl/workbook.xml"));
+        xml.raw(XML_DECLARATION)
+                .raw("<workbook xmlns=\"" + NS_MAIN + "\" xmlns:r=\"" + NS_REL + "\"><sheets>");
+        for (XmlSheetWriter sheet : mSheets) {
+            xml.raw("<sheet name=\"").attr(sheet.mName).raw("\" sheetId=\"").number(sheet.mIndex)
+                    .raw("\" r:id=\"rId").number(sheet.mIndex).raw("\"/>");
+        }
+        if (mRangeSheetIndex > 0) {
+            xml.raw("<sheet name=\"").attr(Const.RANGE_SHEET_NAME).raw("\" sheetId=\"").number(mRangeSheetIndex)
+                    .raw("\" state=\"hidden\" r:id=\"rId").number(mRangeSheetIndex).raw("\"/>");
+        }
+        xml.raw("</sheets>");
+        if (mRangeSheetIndex > 0) {
+            xml.raw("<definedNames>");
+            for (int i = 0; i < mRanges.length; i++) {
+                if (mRanges[i] != null && mRanges[i].length > 0) {
+                    xml.raw("<definedName name=\"").attr(POIUtils.rangeName(i)).raw("\">")
+                            .text(POIUtils.rangeReference(i, mRanges[i].length)).raw("</definedName>");
+                }
+            }
+            xml.raw("</definedNames>");
+        }
+        xml.raw("</workbook>").flushBuffer();
+        mZip.closeEntry();
+
+        mZip.putNextEntry(new ZipEntry("xl/_rels/workbook.xml.rels"));
+        xml.raw(XML_DECLARATION)
+                .raw("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+        for (int i = 1; i <= sheetCount; i++) {
+            xml.raw("<Relationship Id=\"rId").number(i).raw("\" Type=\"" + NS_REL + "/worksheet\" Target=\"worksheets/sheet")
+                    .number(i).raw(".xml\"/>");
+        }
+        xml.raw("<Relationship Id=\"rId").number(sheetCount + 1).raw("\" Type=\"" + NS_REL + "/styles\" Target=\"styles.xml\"/>");
+        if (mSharedStrings != null) {
+            xml.raw("<Relationship Id=\"rId").number(sheetCount + 2).raw("\" Type=\"" + NS_REL + "/sharedStrings\" Target=\"sharedStrings.xml\"/>");
+        }
+        xml.raw("</Relationships>").flushBuffer();
+        mZip.closeEntry();
+
+        if (mSharedStrings != null) {
+            mZip.putNextEntry(new ZipEntry("xl/sharedStrings.xml"));
+            mSharedStrings.writeTo(xml);
+            xml.flushBuffer();
+            mZip.closeEntry();
+        }
+
+        mZip.putNextEntry(new ZipEntry("xl/styles.xml"));
+        mStyles.getWorkbook().getXSSFWorkbook().getStylesSource().writeTo(new FilterOutputStream(mZip) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        });
+        mZip.closeEntry();
+    }
+
+    private class XmlSheetWriter implements SheetWriter {
+        private final String mName;
+        private final int mIndex;
+        private final OutputStream mOut;
+        private final File mSpoolFile;
+        private final ColumnWidths mWidths;
+        // 列宽采样期间行数据暂存在内存中, 列宽确定后再写出<cols>和暂存的行
+        private ByteArrayOutputStream mPending;
+        private XmlStreamWriter mXml;
+        private int mRowCount = 0;
+
+        XmlSheetWriter(String name, int index, OutputStream out, File spoolFile) {
+            this.mName = name;
+            this.mIndex = index;
+            this.mOut = out;
+            this.mSpoolFile = spoolFile;
+            this.mWidths = new ColumnWidths(mPlan.size(), mOptions.getAutoWidthSampleRows());
+            if (mOptions.getAutoWidthSampleRows() != 0) {
+                this.mPending = new ByteArrayOutputStream(64 * 1024);
+                this.mXml = new XmlStreamWriter(mPending);
+            } else {
+                this.mXml = new XmlStreamWriter(out);
+            }
+        }
+
+        @Override
+        public void writeHeader() throws IOException {
+            for (int i = 0; i < mPlan.size(); i++) {
+                mWidths.update(i, mPlan.getExportItem(i).getDisplay());
+            }
+            if (mPending == null) {
+                writeSheetStart(mXml);
+            }
+
+            mXml.raw(ROW_START).number(1).raw(QUOTE_CLOSE);
+            for (int i = 0; i < mPlan.size(); i++) {
+                writeStringCell(i, 1, mPlan.getExportItem(i).getDisplay(), mHeadStyle);
+            }
+            mXml.raw(ROW_END);
+        }
+
+        private void writeSheetStart(XmlStreamWriter xml) throws IOException {
+            xml.raw(XML_DECLARATION).raw("<worksheet xmlns=\"" + NS_MAIN + "\" xmlns:r=\"" + NS_REL + "\">");
+            xml.raw("<cols>");
+            for (int i = 0; i < mPlan.size(); i++) {
+                xml.raw("<col min=\"").number(i + 1).raw("\" max=\"").number(i + 1)
+                        .raw("\" width=\"").raw(Double.toString(mWidths.getColumnWidth(i) / 256.0)).raw("\" customWidth=\"1\"/>");
+            }
+            xml.raw("</cols><sheetData>\n");
+        }
+
+        // 列宽已确定: 写出sheet开头和暂存的行, 之后的行直接写出
+        private void flushPending() throws IOException {
+            XmlStreamWriter xml = new XmlStreamWriter(mOut);
+            writeSheetStart(xml);
+            xml.flushBuffer();
+            mXml.flushBuffer();
+            mPending.writeTo(mOut);
+            mPending = null;
+            mXml = xml;
+        }
+
+        @Override
+        public void writeRows(RowBuffer rows) throws IOException {
+            for (int i = 0; i < rows.size(); i++) {
+                long rowNum = ++mRowCount + 1;
+                Object[] values = rows.row(i);
+                if (mPending != null) {
+                    mWidths.updateRow(values);
+                }
+                mXml.raw(ROW_START).number(rowNum).raw(QUOTE_CLOSE);
+                for (int j = 0; j < values.length; j++) {
+                    ExportItem exportItem = mPlan.getExportItem(j);
+                    // 替换值和转换后的值始终以文本写出
+                    if (!"".equals(exportItem.getReplace()) || mPlan.getConvert(j) != null) {
+                        writeTextCell(j, rowNum, (String) values[j], mBodyStyles[j]);
+                    } else {
+                        writeTypedCell(j, rowNum, values[j], exportItem.getType());
+                    }
+                }
+                mXml.raw(ROW_END);
+            }
+            if (mPending != null && !mWidths.isSampling()) {
+                flushPending();
+            }
+        }
+
+        // 按声明的类型写出原生单元格, 无法转换为声明类型的值按文本写出
+        private void writeTypedCell(int column, long rowNum, Object value, ExportType type) throws IOException {
+            int style = mBodyStyles[column];
+            if (value == null) {
+                writeStringCell(column, rowNum, null, style);
+                return;
+            }
+            if (type == ExportType.AUTO) {
+                type = CellValues.typeOf(value);
+            }
+
+            switch (type) {
+                case NUMERIC:
+                    Number number = CellValues.toNumber(value);
+                    if (number != null && writeNumberCell(column, rowNum, number, style)) {
+                        return;
+                    }
+                    break;
+                case BOOLEAN:
+                    Boolean bool = CellValues.toBoolean(value);
+                    if (bool != null) {
+                        startCell(column, rowNum, style);
+                        mXml.raw(bool ? BOOLEAN_TRUE : BOOLEAN_FALSE);
+                        return;
+                    }
+                    break;
+                case DATE:
+                    Date date = CellValues.toDate(value);
+                    if (date != null) {
+                        double excelDate = DateUtil.getExcelDate(date);
+                        if (excelDate >= 0) {
+                            // 未设置列样式时(AUTO类型)使用默认日期格式
+                            startCell(column, rowNum, style != -1 ? style : mDefaultDateStyle);
+                            mXml.raw(VALUE_START).number(excelDate).raw(VALUE_END);
+                            return;
+                        }
+                    }
+                    break;
+                default:
+                    break;
+            }
+            writeTextCell(column, rowNum, value.toString(), style);
+        }
+
+        private boolean writeNumberCell(int column, long rowNum, Number number, int style) throws IOException {
+            if (number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte) {
+                startCell(column, rowNum, style);
+                mXml.raw(VALUE_START).number(number.longValue()).raw(VALUE_END);
+                return true;
+            }
+            double d = number.doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                return false;
+            }
+            startCell(column, rowNum, style);
+            // Float使用自身的最短表示, 避免0.1f写出为0.10000000149011612
+            mXml.raw(VALUE_START).number(number instanceof Float ? Double.parseDouble(number.toString()) : d).raw(VALUE_END);
+            return true;
+        }
+
+        private void startCell(int column, long rowNum, int style) throws IOException {
+            mXml.raw(CELL_START).raw(mColumnRefs[column]).number(rowNum);
+            if (style != -1) {
+                mXml.raw(STYLE_ATTR).number(style);
+            }
+        }
+
+        // 正文文本单元格: 优先写为共享字符串, 字典不接收时写为内联字符串
+        private void writeTextCell(int column, long rowNum, String value, int style) throws IOException {
+            if (mSharedStrings != null && value != null && value.length() > 0) {
+                int index = mSharedStrings.indexOf(column, value);
+                if (index != -1) {
+                    startCell(column, rowNum, style);
+                    mXml.raw(SHARED_STR).number(index).raw(VALUE_END);
+                    return;
+                }
+            }
+            writeStringCell(column, rowNum, value, style);
+        }
+
+        private void writeStringCell(int column, long rowNum, String value, int style) throws IOException {
+            if (value == null || value.length() == 0) {
+                // 空值也输出单元格(与SXSSF一致), XlsxReader按单元格位置补齐空列时依赖行内的单元格
+                startCell(column, rowNum, style);
+                mXml.raw(EMPTY_CELL_END);
+                return;
+            }
+            startCell(column, rowNum, style);
+            boolean preserve = Character.isWhitespace(value.charAt(0)) || Character.isWhitespace(value.charAt(value.length() - 1));
+            mXml.raw(preserve ? INLINE_STR_PRESERVE : INLINE_STR).text(value).raw(INLINE_STR_END);
+        }
+
+        @Override
+        public int getRowCount() {
+            return mRowCount;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (mPending != null) {
+                flushPending();
+            }
+            mXml.raw("</sheetData>");
+
+            //设置下拉列表, 生效范围为当前sheet的全部数据行
+            int validations = 0;
+            for (String[] range : mRanges) {
+                validations += range != null && range.length > 0 ? 1 : 0;
+            }
+            if (validations > 0 && mRowCount > 0) {
+                mXml.raw("<dataValidations count=\"").number(validations).raw("\">");
+                for (int i = 0; i < mRanges.length; i++) {
+                    if (mRanges[i] == null || mRanges[i].length == 0) {
+                        continue;
+                    }
+                    mXml.raw("<dataValidation type=\"list\" sqref=\"").raw(mColumnRefs[i]).number(2).raw(":")
+                            .raw(mColumnRefs[i]).number(mRowCount + 1)
+                            .raw("\" errorStyle=\"stop\" allowBlank=\"1\" showDropDown=\"0\" errorTitle=\"tip\" error=\"")
+                            .attr("请从下拉列表选取").raw("\" showErrorMessage=\"1\"><formula1>")
+                            .text(POIUtils.rangeName(i)).raw("</formula1></dataValidation>");
+                }
+                mXml.raw("</dataValidations>");
+            }
+            mXml.raw("</worksheet>");
+            mXml.flushBuffer();
+
+            if (mSpoolFile != null) {
+                mOut.close();
+                synchronized (XmlWorkbookWriter.this) {
+                    mSpilledBytes += mSpoolFile.length();
+                }
+            } else {
+                if (mCompressor != null) {
+                    mCompressor.flush();
+                }
+                mZip.closeEntry();
+                synchronized (XmlWorkbookWriter.this) {
+                    mLiveSheet = null;
+                }
+            }
+        }
+
+        void closeQuietly() {
+            try {
+                mOut.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+}
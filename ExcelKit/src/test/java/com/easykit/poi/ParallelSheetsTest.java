@@ -0,0 +1,98 @@
+package com.easykit.poi;
+
+import com.easykit.poi.hanlder.ReadHandler;
+import com.easykit.poi.pojo.ExportColumns;
+import com.easykit.poi.writer.ExportEngine;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 多sheet并行生成(ExcelKit.setParallelSheets)的输出可被XSSFWorkbook及XlsxReader完整读取
+ */
+public class ParallelSheetsTest {
+    private static final int ROWS = 2500;
+    private static final int SHEET_ROWS = 1000;
+
+    private ExecutorService mExecutor;
+
+    @Before
+    public void setUp() {
+        mExecutor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void xmlEngineWritesSheetsInParallel() throws Exception {
+        assertSheets(export(ExportEngine.XML));
+    }
+
+    @Test
+    public void sxssfEngineFallsBackToSerial() throws Exception {
+        assertSheets(export(ExportEngine.SXSSF));
+    }
+
+    private byte[] export(ExportEngine engine) {
+        List<Object[]> rows = new ArrayList<Object[]>();
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new Object[]{i, "name" + i});
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(ExcelKit.$Builder(ExportColumns.create().add("id", "编号").add("name", "名称"))
+                .setEngine(engine)
+                .setMaxSheetRecords(SHEET_ROWS)
+                .setParallelSheets(mExecutor, 3)
+                .toExcel(rows, "data", out));
+        return out.toByteArray();
+    }
+
+    private static void assertSheets(byte[] xlsx) throws Exception {
+        Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(xlsx));
+        int[] expected = {SHEET_ROWS, SHEET_ROWS, ROWS - 2 * SHEET_ROWS};
+        int next = 0;
+        for (int i = 0; i < expected.length; i++) {
+            Sheet sheet = workbook.getSheetAt(i);
+            assertEquals(i == 0 ? "data" : "data_" + i, sheet.getSheetName());
+            assertEquals(expected[i], sheet.getLastRowNum());
+            // 各sheet的数据按顺序衔接
+            for (int r = 1; r <= sheet.getLastRowNum(); r++, next++) {
+                assertEquals("name" + next, sheet.getRow(r).getCell(1).getStringCellValue());
+            }
+        }
+        assertEquals(ROWS, next);
+
+        final Map<Integer, Integer> counts = new TreeMap<Integer, Integer>();
+        ExcelKit.$Import().readExcel(new ByteArrayInputStream(xlsx), "data.xlsx", new ReadHandler() {
+            @Override
+            public void handler(int sheetIndex, int rowIndex, List<String> row) {
+                if (rowIndex > 0) {
+                    Integer count = counts.get(sheetIndex);
+                    counts.put(sheetIndex, count == null ? 1 : count + 1);
+                }
+            }
+        });
+        assertEquals(expected.length, counts.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(Integer.valueOf(expected[i]), counts.get(i));
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.easykit.poi;
+
+import com.easykit.poi.annotation.ExportType;
+import com.easykit.poi.core.ResultSetIterator;
+import com.easykit.poi.pojo.ExportColumns;
+import com.easykit.poi.pojo.ExportItem;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.SimpleDateFormat;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ExcelKit.toExcel(ResultSet) 的类型映射及资源关闭(内嵌H2数据库)
+ */
+public class ResultSetExportTest {
+    private static final String URL = "jdbc:h2:mem:excelkit;DB_CLOSE_DELAY=-1";
+    private static final String QUERY = "SELECT id, name, birthday, amount, active FROM person ORDER BY id";
+
+    private static Connection sKeepAlive;
+
+    @BeforeClass
+    public static void createDatabase() throws SQLException {
+        sKeepAlive = DriverManager.getConnection(URL);
+        Statement statement = sKeepAlive.createStatement();
+        try {
+            statement.execute("CREATE TABLE person (id BIGINT PRIMARY KEY, name VARCHAR(32), birthday DATE,"
+                    + " amount DECIMAL(12, 2), active BOOLEAN)");
+            statement.execute("INSERT INTO person VALUES (1, 'alice', DATE '1990-05-17', 1234.56, TRUE)");
+            statement.execute("INSERT INTO person VALUES (2, NULL, NULL, NULL, NULL)");
+            statement.execute("INSERT INTO person VALUES (3, 'carol', DATE '2001-12-31', -0.05, FALSE)");
+        } finally {
+            statement.close();
+        }
+    }
+
+    @AfterClass
+    public static void dropDatabase() throws SQLException {
+        sKeepAlive.close();
+    }
+
+    @Test
+    public void columnsFollowMetaData() throws SQLException {
+        Connection connection = DriverManager.getConnection(URL);
+        try {
+            ResultSet resultSet = connection.createStatement().executeQuery(QUERY);
+            List<ExportItem> items = ResultSetIterator.columns(resultSet.getMetaData()).getColumns();
+
+            assertEquals(5, items.size());
+            assertEquals("ID", items.get(0).getField());
+            assertEquals(ExportType.NUMERIC, items.get(0).getType());
+            assertEquals(ExportType.STRING, items.get(1).getType());
+            assertEquals(ExportType.DATE, items.get(2).getType());
+            assertEquals("yyyy-MM-dd", items.get(2).getFormat());
+            assertEquals(ExportType.NUMERIC, items.get(3).getType());
+            assertEquals(ExportType.BOOLEAN, items.get(4).getType());
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void rowValuesKeepTypesAndNulls() throws SQLException {
+        Connection connection = DriverManager.getConnection(URL);
+        try {
+            ResultSet resultSet = connection.createStatement().executeQuery(QUERY);
+            ResultSetIterator rows = new ResultSetIterator(resultSet, ResultSetIterator.columns(resultSet.getMetaData()));
+
+            Object[] first = rows.next();
+            assertEquals(1L, first[0]);
+            assertEquals("alice", first[1]);
+            assertEquals("1990-05-17", new SimpleDateFormat("yyyy-MM-dd").format((java.util.Date) first[2]));
+            assertEquals(new BigDecimal("1234.56"), first[3]);
+            assertEquals(Boolean.TRUE, first[4]);
+
+            // NULL不会被读成0/false
+            assertArrayEquals(new Object[]{2L, null, null, null, null}, rows.next());
+
+            assertEquals(new BigDecimal("-0.05"), rows.next()[3]);
+            assertFalse(rows.hasNext());
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void exportWritesNativeCells() throws Exception {
+        Connection connection = DriverManager.getConnection(URL);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertTrue(ExcelKit.$Builder().toExcel(connection.createStatement().executeQuery(QUERY), "person", out));
+
+            Sheet sheet = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray())).getSheetAt(0);
+            Row header = sheet.getRow(0);
+            assertEquals("BIRTHDAY", header.getCell(2).getStringCellValue());
+
+            Row alice = sheet.getRow(1);
+            assertEquals(Cell.CELL_TYPE_NUMERIC, alice.getCell(2).getCellType());
+            assertEquals("yyyy-MM-dd", alice.getCell(2).getCellStyle().getDataFormatString());
+            assertEquals("1990-05-17", new SimpleDateFormat("yyyy-MM-dd").format(alice.getCell(2).getDateCellValue()));
+            assertEquals(Cell.CELL_TYPE_NUMERIC, alice.getCell(3).getCellType());
+            assertEquals(1234.56, alice.getCell(3).getNumericCellValue(), 0);
+            assertEquals(Cell.CELL_TYPE_BOOLEAN, alice.getCell(4).getCellType());
+
+            Row empty = sheet.getRow(2);
+            assertEquals(2, (int) empty.getCell(0).getNumericCellValue());
+            for (int i = 1; i < 5; i++) {
+                Cell cell = empty.getCell(i);
+                assertTrue("column " + i, cell == null || cell.getCellType() == Cell.CELL_TYPE_BLANK
+                        || "".equals(cell.getStringCellValue()));
+            }
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void derivedColumnsAreNotReused() throws Exception {
+        ExcelKit kit = ExcelKit.$Builder();
+        Connection connection = DriverManager.getConnection(URL);
+        try {
+            assertTrue(kit.toExcel(connection.createStatement().executeQuery(QUERY), "person", new ByteArrayOutputStream()));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertTrue(kit.toExcel(connection.createStatement().executeQuery("SELECT name AS who FROM person"), "names", out));
+
+            Row header = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray())).getSheetAt(0).getRow(0);
+            assertEquals("WHO", header.getCell(0).getStringCellValue());
+            assertEquals(1, header.getLastCellNum());
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void closesResourcesAfterSuccess() throws SQLException {
+        Connection connection = DriverManager.getConnection(URL);
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(QUERY);
+
+        assertTrue(ExcelKit.$Builder().setCloseResultSet(true).toExcel(resultSet, "person", new ByteArrayOutputStream()));
+
+        assertClosed(resultSet, statement, connection);
+    }
+
+    @Test
+    public void closesResourcesWhenWritingFails() throws SQLException {
+        Connection connection = DriverManager.getConnection(URL);
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(QUERY);
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("disk full");
+            }
+        };
+
+        assertFalse(ExcelKit.$Builder().setCloseResultSet(true).toExcel(resultSet, "person", broken));
+
+        assertClosed(resultSet, statement, connection);
+    }
+
+    @Test
+    public void closesResourcesWhenColumnIsMissing() throws SQLException {
+        Connection connection = DriverManager.getConnection(URL);
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(QUERY);
+        ExportColumns columns = ExportColumns.create().add(new ExportItem().setField("missing").setDisplay("missing"));
+
+        assertFalse(ExcelKit.$Builder(columns).setCloseResultSet(true).toExcel(resultSet, "person", new ByteArrayOutputStream()));
+
+        assertClosed(resultSet, statement, connection);
+    }
+
+    @Test
+    public void leavesResourcesOpenByDefault() throws SQLException {
+        Connection connection = DriverManager.getConnection(URL);
+        try {
+            Statement statement = connection.createStatement();
+            ResultSet resultSet = statement.executeQuery(QUERY);
+
+            assertTrue(ExcelKit.$Builder().toExcel(resultSet, "person", new ByteArrayOutputStream()));
+
+            assertFalse(resultSet.isClosed());
+            assertFalse(statement.isClosed());
+            assertFalse(connection.isClosed());
+        } finally {
+            connection.close();
+        }
+    }
+
+    private static void assertClosed(ResultSet resultSet, Statement statement, Connection connection) throws SQLException {
+        assertTrue("ResultSet", resultSet.isClosed());
+        assertTrue("Statement", statement.isClosed());
+        assertTrue("Connection", connection.isClosed());
+    }
+}
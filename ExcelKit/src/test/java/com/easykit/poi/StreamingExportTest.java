@@ -0,0 +1,162 @@
+package com.easykit.poi;
+
+import com.easykit.poi.hanlder.PageHandler;
+import com.easykit.poi.pojo.ExportColumns;
+import com.easykit.poi.writer.ExportEngine;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Iterator/Stream/PageHandler数据源的流式导出, 每写满maxSheetRecords行切换到新的sheet
+ */
+public class StreamingExportTest {
+    private static final int ROWS = 2500;
+    private static final int SHEET_ROWS = 1000;
+    private static final int PAGE_SIZE = 333;
+
+    private ExecutorService mExecutor;
+
+    @Before
+    public void setUp() {
+        mExecutor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void rejectsInvalidSizes() {
+        ExcelKit kit = ExcelKit.$Builder(columns());
+        try {
+            kit.setMaxSheetRecords(null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("size必须大于0", e.getMessage());
+        }
+        try {
+            kit.setMaxSheetRecords(0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("size必须大于0", e.getMessage());
+        }
+        try {
+            kit.setBatchSize(0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("size必须大于0", e.getMessage());
+        }
+        // 无效的设置不影响已有的值
+        assertSheets(export(kit.setBatchSize(300), rows(ROWS).iterator(), ExportEngine.SXSSF), ROWS);
+    }
+
+    @Test
+    public void iteratorRollsOverAtMaxSheetRecords() {
+        for (ExportEngine engine : new ExportEngine[]{ExportEngine.SXSSF, ExportEngine.XML}) {
+            byte[] xlsx = export(kit(), rows(ROWS).iterator(), engine);
+            assertSheets(xlsx, SHEET_ROWS, SHEET_ROWS, ROWS - 2 * SHEET_ROWS);
+        }
+    }
+
+    @Test
+    public void exactMultipleDoesNotAddEmptySheet() {
+        byte[] xlsx = export(kit(), rows(2 * SHEET_ROWS).iterator(), ExportEngine.XML);
+        assertSheets(xlsx, SHEET_ROWS, SHEET_ROWS);
+    }
+
+    @Test
+    public void streamRollsOverAtMaxSheetRecords() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(kit().toExcel(rows(ROWS).stream(), "data", out));
+        assertSheets(out.toByteArray(), SHEET_ROWS, SHEET_ROWS, ROWS - 2 * SHEET_ROWS);
+    }
+
+    @Test
+    public void pageHandlerFetchesPagesUntilEmpty() {
+        final List<Object[]> rows = rows(ROWS);
+        final List<Integer> pages = new ArrayList<Integer>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertTrue(kit().toExcel(new PageHandler<Object[]>() {
+            @Override
+            public List<Object[]> handler(int pageIndex) {
+                pages.add(pageIndex);
+                int from = Math.min(pageIndex * PAGE_SIZE, rows.size());
+                return rows.subList(from, Math.min(from + PAGE_SIZE, rows.size()));
+            }
+        }, "data", out));
+
+        assertSheets(out.toByteArray(), SHEET_ROWS, SHEET_ROWS, ROWS - 2 * SHEET_ROWS);
+        int expectedPages = (ROWS + PAGE_SIZE - 1) / PAGE_SIZE + 1;
+        assertEquals(expectedPages, pages.size());
+        for (int i = 0; i < expectedPages; i++) {
+            assertEquals(Integer.valueOf(i), pages.get(i));
+        }
+    }
+
+    @Test
+    public void pipelineRollsOverAtMaxSheetRecords() {
+        byte[] xlsx = export(kit().setPipeline(mExecutor, 2), rows(ROWS).iterator(), ExportEngine.XML);
+        assertSheets(xlsx, SHEET_ROWS, SHEET_ROWS, ROWS - 2 * SHEET_ROWS);
+    }
+
+    private static ExportColumns columns() {
+        return ExportColumns.create().add("id", "编号").add("name", "名称");
+    }
+
+    // 批大小与sheet大小不对齐
+    private static ExcelKit kit() {
+        return ExcelKit.$Builder(columns()).setMaxSheetRecords(SHEET_ROWS).setBatchSize(300);
+    }
+
+    private static List<Object[]> rows(int count) {
+        List<Object[]> rows = new ArrayList<Object[]>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{i, "name" + i});
+        }
+        return rows;
+    }
+
+    private static byte[] export(ExcelKit kit, Iterator<Object[]> data, ExportEngine engine) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(kit.setEngine(engine).toExcel(data, "data", out));
+        return out.toByteArray();
+    }
+
+    // 各sheet的名称及行数, 数据按顺序衔接
+    private static void assertSheets(byte[] xlsx, int... expected) {
+        try {
+            Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(xlsx));
+            assertEquals(expected.length, workbook.getNumberOfSheets());
+            int next = 0;
+            for (int i = 0; i < expected.length; i++) {
+                Sheet sheet = workbook.getSheetAt(i);
+                assertEquals(i == 0 ? "data" : "data_" + i, sheet.getSheetName());
+                assertEquals(expected[i], sheet.getLastRowNum());
+                for (int r = 1; r <= sheet.getLastRowNum(); r++, next++) {
+                    assertEquals("name" + next, sheet.getRow(r).getCell(1).getStringCellValue());
+                }
+            }
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
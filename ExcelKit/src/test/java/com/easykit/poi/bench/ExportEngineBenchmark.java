@@ -0,0 +1,93 @@
+package com.easykit.poi.bench;
+
+import com.easykit.poi.ExcelKit;
+import com.easykit.poi.entity.User;
+import com.easykit.poi.writer.ExportEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * 导出引擎基准: ExportEngine.SXSSF(原实现) 与 直接输出SpreadsheetML的ExportEngine.XML对比,
+ * 数据与Db相同(20k行)并按rows放大, 每次操作完成一次完整导出(写出到丢弃数据的输出流)。
+ * <pre>
+ * mvn test-compile
+ * java -cp target/test-classes:target/classes:&lt;test classpath&gt; com.easykit.poi.bench.ExportEngineBenchmark [-p rows=20000]
+ * </pre>
+ * <p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExportEngineBenchmark {
+
+    @Param({"20000", "200000"})
+    private int rows;
+
+    private List<User> mUsers;
+
+    @Setup
+    public void setup() {
+        mUsers = new ArrayList<User>(rows);
+        for (int i = 0; i < rows; i++) {
+            mUsers.add(new User().setUid(i).setUsername("Username:" + i).setPassword("123123123")
+                    .setSex(i % 2 == 0 ? 1 : 2).setGradeId(i % 3 == 0 ? 1 : 2).setGendex("下拉框1"));
+        }
+    }
+
+    @Benchmark
+    public long sxssf() {
+        return export(ExportEngine.SXSSF);
+    }
+
+    @Benchmark
+    public long xml() {
+        return export(ExportEngine.XML);
+    }
+
+    private long export(ExportEngine engine) {
+        CountingOutputStream out = new CountingOutputStream();
+        if (!ExcelKit.$Builder(User.class).setEngine(engine).toExcel(mUsers, "users", out)) {
+            throw new IllegalStateException("导出失败");
+        }
+        return out.mCount;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ExportEngineBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long mCount = 0;
+
+        @Override
+        public void write(int b) {
+            mCount++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            mCount += len;
+        }
+    }
+}
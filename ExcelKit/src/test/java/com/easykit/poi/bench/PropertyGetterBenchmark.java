@@ -0,0 +1,83 @@
+package com.easykit.poi.bench;
+
+import com.easykit.poi.core.PropertyGetter;
+import com.easykit.poi.core.PropertyGetters;
+import com.easykit.poi.entity.User;
+import org.apache.commons.beanutils.BeanUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * 属性读取基准: BeanUtils.getProperty(原实现) 与 预编译的PropertyGetter 及直接调用getter的对比,
+ * 每次操作读取一行(6列)。
+ * <pre>
+ * mvn test-compile
+ * java -cp target/test-classes:target/classes:&lt;test classpath&gt; com.easykit.poi.bench.PropertyGetterBenchmark
+ * </pre>
+ * <p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PropertyGetterBenchmark {
+    private static final String[] PROPERTIES = {"uid", "username", "password", "sex", "gradeId", "gendex"};
+
+    private User mUser;
+    private PropertyGetter[] mGetters;
+
+    @Setup
+    public void setup() {
+        mUser = new User().setUid(1).setUsername("Username:1").setPassword("password")
+                .setSex(1).setGradeId(2).setGendex("下拉框1");
+        mGetters = new PropertyGetter[PROPERTIES.length];
+        for (int i = 0; i < PROPERTIES.length; i++) {
+            mGetters[i] = PropertyGetters.compile(User.class, PROPERTIES[i]);
+        }
+    }
+
+    @Benchmark
+    public void beanUtils(Blackhole bh) throws Exception {
+        for (String property : PROPERTIES) {
+            bh.consume(BeanUtils.getProperty(mUser, property));
+        }
+    }
+
+    @Benchmark
+    public void compiledGetter(Blackhole bh) {
+        for (PropertyGetter getter : mGetters) {
+            bh.consume(getter.get(mUser));
+        }
+    }
+
+    @Benchmark
+    public void directCall(Blackhole bh) {
+        bh.consume(mUser.getUid());
+        bh.consume(mUser.getUsername());
+        bh.consume(mUser.getPassword());
+        bh.consume(mUser.getSex());
+        bh.consume(mUser.getGradeId());
+        bh.consume(mUser.getGendex());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PropertyGetterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
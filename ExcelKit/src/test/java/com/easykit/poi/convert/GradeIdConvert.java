@@ -0,0 +1,31 @@
+package com.easykit.poi.convert;
+
+import com.easykit.poi.Db;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 单元格值转换器(支持批量转换: 每批数据只查询一次字典)
+ */
+public class GradeIdConvert implements BatchExportConvert {
+
+    @Override
+    public String handler(Object val) {
+        Integer gradeId = Integer.parseInt(val.toString());
+
+        String gradeName = Db.getGrades().get(gradeId);
+        return gradeName != null ? gradeName : "无记录";
+    }
+
+    @Override
+    public Map<String, String> batchHandler(Set<String> values) {
+        // 模拟 select * from tb_grades where id in (...)
+        Map<String, String> result = new HashMap<String, String>();
+        for (String val : values) {
+            result.put(val, handler(val));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,167 @@
+package com.easykit.poi.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * AsyncOutputStream按顺序写出全部数据, 线程池拒绝/未运行任务时由写入线程写出, abort()等待后台任务退出
+ */
+public class AsyncOutputStreamTest {
+    private static final int BLOCK_SIZE = 16;
+    private static final int BLOCKS = 2;
+
+    private ExecutorService mExecutor;
+
+    @Before
+    public void setUp() {
+        mExecutor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void writesAllBytesInOrder() throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        AsyncOutputStream out = new AsyncOutputStream(target, mExecutor, BLOCK_SIZE, BLOCKS);
+
+        byte[] data = data(1000);
+        write(out, data);
+        out.flush();
+        assertArrayEquals(data, target.toByteArray());
+        out.write(7);
+        out.close();
+
+        assertEquals(data.length + 1, target.size());
+        assertEquals(7, target.toByteArray()[data.length]);
+    }
+
+    @Test
+    public void stalledExecutorWritesInline() throws IOException {
+        // 接受任务但从不运行
+        final List<Runnable> queued = new ArrayList<Runnable>();
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        AsyncOutputStream out = new AsyncOutputStream(target, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                queued.add(command);
+            }
+        }, BLOCK_SIZE, BLOCKS);
+
+        long start = System.currentTimeMillis();
+        byte[] data = data(1000);
+        write(out, data);
+        out.close();
+
+        assertTrue(System.currentTimeMillis() - start >= 1000);
+        assertArrayEquals(data, target.toByteArray());
+        // 迟到的任务不再写出
+        assertEquals(1, queued.size());
+        queued.get(0).run();
+        assertEquals(data.length, target.size());
+    }
+
+    @Test
+    public void rejectingExecutorWritesInline() throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        AsyncOutputStream out = new AsyncOutputStream(target, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        }, BLOCK_SIZE, BLOCKS);
+
+        byte[] data = data(1000);
+        write(out, data);
+        out.close();
+
+        assertArrayEquals(data, target.toByteArray());
+    }
+
+    @Test
+    public void abortWaitsForDrain() throws Exception {
+        SlowOutputStream target = new SlowOutputStream();
+        AsyncOutputStream out = new AsyncOutputStream(target, mExecutor, BLOCK_SIZE, BLOCKS);
+
+        out.write(data(BLOCK_SIZE * BLOCKS));
+        while (!target.mInside) {
+            Thread.sleep(5);
+        }
+        out.abort();
+
+        assertFalse(target.mInside);
+        int writes = target.mWrites;
+        Thread.sleep(300);
+        assertEquals(writes, target.mWrites);
+        // 中止后的数据不再写出
+        assertTrue(writes < BLOCKS);
+        try {
+            out.write(1);
+            fail();
+        } catch (IOException e) {
+            assertEquals("输出已中止", e.getMessage());
+        }
+    }
+
+    private static byte[] data(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        return data;
+    }
+
+    // 以不同长度分多次写入
+    private static void write(AsyncOutputStream out, byte[] data) throws IOException {
+        for (int off = 0, len = 1; off < data.length; off += len, len = len % 37 + 5) {
+            out.write(data, off, Math.min(len, data.length - off));
+        }
+    }
+
+    // 每次写出不响应中断地等待200ms
+    private static class SlowOutputStream extends ByteArrayOutputStream {
+        volatile boolean mInside = false;
+        volatile int mWrites = 0;
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            mInside = true;
+            try {
+                boolean interrupted = false;
+                long end = System.currentTimeMillis() + 200;
+                while (System.currentTimeMillis() < end) {
+                    try {
+                        Thread.sleep(Math.max(1, end - System.currentTimeMillis()));
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                super.write(b, off, len);
+                mWrites++;
+            } finally {
+                mInside = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.easykit.poi.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * AsyncResponseStream的非阻塞写出状态: isReady()切换、空闲时由写入方写出、超时/出错及abort()
+ */
+public class AsyncResponseStreamTest {
+    private static final int BLOCK_SIZE = 4;
+    private static final int BLOCKS = 2;
+
+    private StubResponse mResponse;
+    private StubContext mContext;
+    private AsyncResponseStream mStream;
+
+    @Before
+    public void setUp() throws IOException {
+        mResponse = new StubResponse();
+        mContext = new StubContext(mResponse);
+        mStream = new AsyncResponseStream(mContext.proxy(), BLOCK_SIZE, BLOCKS);
+        assertSame(mStream, mResponse.mOut.mListener);
+        assertSame(mStream, mContext.mListener);
+    }
+
+    @Test
+    public void writesWhenSocketBecomesReadyAgain() throws IOException {
+        mResponse.mOut.mReady = false;
+        mStream.onWritePossible();
+        mStream.write(bytes(0, 8));
+        // socket不可写: 数据留在队列中
+        assertEquals(0, mResponse.mOut.mBody.size());
+
+        mResponse.mOut.mReady = true;
+        mStream.onWritePossible();
+        assertArrayEquals(bytes(0, 8), mResponse.mOut.mBody.toByteArray());
+
+        mStream.write(bytes(8, 2));
+        mStream.complete();
+        assertArrayEquals(bytes(0, 10), mResponse.mOut.mBody.toByteArray());
+        assertEquals(1, mContext.mCompleted);
+    }
+
+    @Test
+    public void writerDrainsWhileIdle() throws IOException {
+        // 队列为空时容器不再回调onWritePossible()
+        mStream.onWritePossible();
+
+        mStream.write(bytes(0, BLOCK_SIZE));
+        assertArrayEquals(bytes(0, BLOCK_SIZE), mResponse.mOut.mBody.toByteArray());
+        mStream.write(bytes(BLOCK_SIZE, 1));
+        mStream.flush();
+        assertArrayEquals(bytes(0, BLOCK_SIZE + 1), mResponse.mOut.mBody.toByteArray());
+        assertEquals(0, mContext.mCompleted);
+
+        mStream.complete();
+        assertEquals(1, mContext.mCompleted);
+    }
+
+    @Test
+    public void completeWaitsForSocket() throws IOException {
+        mResponse.mOut.mReady = false;
+        mStream.onWritePossible();
+        mStream.write(bytes(0, 3));
+        mStream.complete();
+        assertEquals(0, mContext.mCompleted);
+
+        mResponse.mOut.mReady = true;
+        mStream.onWritePossible();
+        assertArrayEquals(bytes(0, 3), mResponse.mOut.mBody.toByteArray());
+        assertEquals(1, mContext.mCompleted);
+    }
+
+    @Test
+    public void fullQueueBlocksWriterUntilWritePossible() throws Exception {
+        mResponse.mOut.mReady = false;
+        mStream.onWritePossible();
+        mStream.write(bytes(0, BLOCK_SIZE * BLOCKS));
+
+        Thread writer = startWriter(bytes(BLOCK_SIZE * BLOCKS, BLOCK_SIZE), new AtomicReference<IOException>());
+        Thread.sleep(200);
+        assertTrue(writer.isAlive());
+
+        mResponse.mOut.mReady = true;
+        mStream.onWritePossible();
+        writer.join(5000);
+        assertFalse(writer.isAlive());
+        mStream.complete();
+        assertArrayEquals(bytes(0, BLOCK_SIZE * (BLOCKS + 1)), mResponse.mOut.mBody.toByteArray());
+    }
+
+    @Test
+    public void timeoutAbortsAndWakesWriter() throws Exception {
+        mResponse.mOut.mReady = false;
+        mStream.onWritePossible();
+        mStream.write(bytes(0, BLOCK_SIZE * BLOCKS));
+        AtomicReference<IOException> failure = new AtomicReference<IOException>();
+        Thread writer = startWriter(bytes(0, BLOCK_SIZE), failure);
+        Thread.sleep(200);
+
+        mStream.onTimeout(new AsyncEvent(mContext.proxy()));
+        writer.join(5000);
+
+        assertFalse(writer.isAlive());
+        assertEquals("下载超时", failure.get().getMessage());
+        assertEquals(1, mContext.mCompleted);
+        assertTrue(mResponse.mReset);
+        assertEquals(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, mResponse.mStatus);
+        assertWriteFails("下载超时");
+    }
+
+    @Test
+    public void errorCompletesContext() throws IOException {
+        IOException reset = new IOException("connection reset");
+        mStream.onError(reset);
+
+        assertEquals(1, mContext.mCompleted);
+        try {
+            mStream.write(1);
+            fail();
+        } catch (IOException e) {
+            assertSame(reset, e);
+        }
+        // 重复的错误回调不再结束异步请求
+        mStream.onError(new AsyncEvent(mContext.proxy(), new IllegalStateException()));
+        assertEquals(1, mContext.mCompleted);
+    }
+
+    @Test
+    public void errorEventWrapsThrowable() {
+        IllegalStateException cause = new IllegalStateException("closed");
+        mStream.onError(new AsyncEvent(mContext.proxy(), cause));
+
+        try {
+            mStream.write(1);
+            fail();
+        } catch (IOException e) {
+            assertEquals("下载失败", e.getMessage());
+            assertSame(cause, e.getCause());
+        }
+    }
+
+    @Test
+    public void abortBeforeCommitReturns500() throws IOException {
+        mStream.write(bytes(0, 2));
+        mStream.abort();
+
+        assertTrue(mResponse.mReset);
+        assertEquals(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, mResponse.mStatus);
+        assertEquals(1, mContext.mCompleted);
+        assertWriteFails("输出已中止");
+    }
+
+    @Test
+    public void abortAfterCommitKeepsStatus() throws IOException {
+        mStream.onWritePossible();
+        mStream.write(bytes(0, BLOCK_SIZE));
+        mResponse.mCommitted = true;
+        mStream.abort();
+
+        assertFalse(mResponse.mReset);
+        assertEquals(HttpServletResponse.SC_OK, mResponse.mStatus);
+        assertEquals(1, mContext.mCompleted);
+        mStream.abort();
+        assertEquals(1, mContext.mCompleted);
+    }
+
+    @Test
+    public void abortAfterCompleteDoesNotCompleteTwice() throws IOException {
+        mStream.onWritePossible();
+        mStream.write(bytes(0, 2));
+        mStream.complete();
+        mResponse.mCommitted = true;
+        mStream.abort();
+
+        assertEquals(1, mContext.mCompleted);
+        assertFalse(mResponse.mReset);
+    }
+
+    private Thread startWriter(final byte[] data, final AtomicReference<IOException> failure) {
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    mStream.write(data);
+                } catch (IOException e) {
+                    failure.set(e);
+                }
+            }
+        });
+        writer.start();
+        return writer;
+    }
+
+    private void assertWriteFails(String message) {
+        try {
+            mStream.write(bytes(0, BLOCK_SIZE));
+            fail();
+        } catch (IOException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    private static byte[] bytes(int from, int length) {
+        byte[] data = new byte[from + length];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i + 1);
+        }
+        return Arrays.copyOfRange(data, from, from + length);
+    }
+
+    private static class StubContext implements InvocationHandler {
+        private final StubResponse mResponse;
+        private Object mListener;
+        private int mCompleted = 0;
+
+        StubContext(StubResponse response) {
+            this.mResponse = response;
+        }
+
+        AsyncContext proxy() {
+            return (AsyncContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class[]{AsyncContext.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            if ("getResponse".equals(name)) {
+                return mResponse.proxy();
+            } else if ("addListener".equals(name)) {
+                mListener = args[0];
+            } else if ("complete".equals(name)) {
+                mCompleted++;
+            } else if (!"getRequest".equals(name)) {
+                throw new UnsupportedOperationException(name);
+            }
+            return null;
+        }
+    }
+
+    private static class StubResponse implements InvocationHandler {
+        private final StubOutputStream mOut = new StubOutputStream();
+        private int mStatus = HttpServletResponse.SC_OK;
+        private boolean mCommitted = false;
+        private boolean mReset = false;
+
+        HttpServletResponse proxy() {
+            return (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class[]{HttpServletResponse.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            if ("getOutputStream".equals(name)) {
+                return mOut;
+            } else if ("isCommitted".equals(name)) {
+                return mCommitted;
+            } else if ("reset".equals(name)) {
+                mReset = true;
+            } else if ("setStatus".equals(name)) {
+                mStatus = (Integer) args[0];
+            } else {
+                throw new UnsupportedOperationException(name);
+            }
+            return null;
+        }
+    }
+
+    private static class StubOutputStream extends ServletOutputStream {
+        private final ByteArrayOutputStream mBody = new ByteArrayOutputStream();
+        private volatile boolean mReady = true;
+        private WriteListener mListener;
+
+        @Override
+        public boolean isReady() {
+            return mReady;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            mListener = listener;
+        }
+
+        @Override
+        public void write(int b) {
+            mBody.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (!mReady) {
+                throw new IllegalStateException("isReady()为false时不能写出");
+            }
+            mBody.write(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.easykit.poi.core;
+
+import com.easykit.poi.ExcelKit;
+import com.easykit.poi.pojo.ExportColumns;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * DiskExportCache的LRU淘汰、有效期、命中/未命中/淘汰计数及缓存目录清理
+ */
+public class DiskExportCacheTest {
+    private File mDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        mDirectory = Files.createTempDirectory("disk-cache-test").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        deleteRecursively(mDirectory);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() throws IOException {
+        DiskExportCache cache = new DiskExportCache(mDirectory, 30, 0);
+        cache.put("a", file(10, 'a'));
+        cache.put("b", file(10, 'b'));
+        cache.put("c", file(10, 'c'));
+        // 访问a后b成为最久未访问的条目
+        close(cache.open("a"));
+        cache.put("d", file(10, 'd'));
+
+        assertNull(cache.open("b"));
+        assertContent(cache.open("a"), 10, 'a');
+        assertContent(cache.open("c"), 10, 'c');
+        assertContent(cache.open("d"), 10, 'd');
+        assertEquals(3, cache.getEntryCount());
+        assertEquals(30, cache.getSize());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(3, cacheFiles().length);
+    }
+
+    @Test
+    public void evictsSeveralEntriesForLargeFile() throws IOException {
+        DiskExportCache cache = new DiskExportCache(mDirectory, 30, 0);
+        cache.put("a", file(10, 'a'));
+        cache.put("b", file(10, 'b'));
+        cache.put("c", file(10, 'c'));
+        cache.put("d", file(25, 'd'));
+
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(25, cache.getSize());
+        assertEquals(3, cache.getEvictionCount());
+    }
+
+    @Test
+    public void fileLargerThanLimitIsNotCached() throws IOException {
+        DiskExportCache cache = new DiskExportCache(mDirectory, 30, 0);
+        File file = file(31, 'x');
+        cache.put("x", file);
+
+        assertFalse(file.exists());
+        assertNull(cache.open("x"));
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    @Test
+    public void expiredEntriesAreEvicted() throws Exception {
+        DiskExportCache cache = new DiskExportCache(mDirectory, 1000, 200);
+        cache.put("a", file(10, 'a'));
+        assertContent(cache.open("a"), 10, 'a');
+
+        Thread.sleep(300);
+        assertNull(cache.open("a"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cacheFiles().length);
+
+        // 写入时同时淘汰其他已过期的条目
+        cache.put("b", file(10, 'b'));
+        Thread.sleep(300);
+        cache.put("c", file(10, 'c'));
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(2, cache.getEvictionCount());
+    }
+
+    @Test
+    public void countsHitsMissesAndEvictions() throws IOException {
+        DiskExportCache cache = new DiskExportCache(mDirectory, 20, 0);
+        assertNull(cache.open("a"));
+        cache.put("a", file(10, 'a'));
+        close(cache.open("a"));
+        close(cache.open("a"));
+        cache.put("b", file(10, 'b'));
+        cache.put("c", file(10, 'c'));
+        assertNull(cache.open("a"));
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.getEvictionCount());
+        // 替换、移除和清空不计入淘汰
+        cache.put("b", file(5, 'B'));
+        cache.remove("c");
+        cache.clear();
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cacheFiles().length);
+    }
+
+    @Test
+    public void hitCountedOnlyWhenFileOpens() throws IOException {
+        DiskExportCache cache = new DiskExportCache(mDirectory, 100, 0);
+        cache.put("a", file(10, 'a'));
+        for (File file : cacheFiles()) {
+            assertTrue(file.delete());
+        }
+
+        assertNull(cache.open("a"));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void cleansOnlyOwnSubdirectory() throws IOException {
+        File foreign = new File(mDirectory, "excelkit-cache-report.xlsx");
+        write(foreign, 3, 'f');
+        File stale = new File(new File(mDirectory, DiskExportCache.SUB_DIRECTORY), "excelkit-cache-stale");
+        assertTrue(stale.getParentFile().mkdirs());
+        write(stale, 3, 's');
+
+        DiskExportCache cache = new DiskExportCache(mDirectory, 100, 0);
+        cache.put("a", file(10, 'a'));
+
+        assertTrue(foreign.exists());
+        assertFalse(stale.exists());
+        assertEquals(1, cacheFiles().length);
+    }
+
+    @Test
+    public void exportIsServedFromCache() {
+        DiskExportCache cache = new DiskExportCache(mDirectory, 1024 * 1024, 0);
+        final int[] reads = {0};
+        List<Object[]> rows = new ArrayList<Object[]>();
+        for (int i = 0; i < 100; i++) {
+            rows.add(new Object[]{i, "name" + i});
+        }
+        final Iterator<Object[]> source = rows.iterator();
+        Iterator<Object[]> counting = new Iterator<Object[]>() {
+            @Override
+            public boolean hasNext() {
+                return source.hasNext();
+            }
+
+            @Override
+            public Object[] next() {
+                reads[0]++;
+                return source.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        assertTrue(exporter(cache).toExcel(counting, "data", first));
+        assertTrue(exporter(cache).toExcel(Arrays.<Object[]>asList(new Object[]{-1, "changed"}).iterator(), "data", second));
+
+        assertEquals(100, reads[0]);
+        assertArrayEquals(first.toByteArray(), second.toByteArray());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    private static ExcelKit exporter(DiskExportCache cache) {
+        return ExcelKit.$Builder(ExportColumns.create().add("id", "编号").add("name", "名称")).setCache(cache, "users");
+    }
+
+    private File[] cacheFiles() {
+        File[] files = new File(mDirectory, DiskExportCache.SUB_DIRECTORY).listFiles();
+        return files == null ? new File[0] : files;
+    }
+
+    private File file(int length, char c) throws IOException {
+        File file = File.createTempFile("disk-cache-entry", ".tmp", mDirectory);
+        write(file, length, c);
+        return file;
+    }
+
+    private static void write(File file, int length, char c) throws IOException {
+        byte[] content = new byte[length];
+        Arrays.fill(content, (byte) c);
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void assertContent(InputStream in, int length, char c) throws IOException {
+        try {
+            byte[] expected = new byte[length];
+            Arrays.fill(expected, (byte) c);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != -1) {
+                out.write(b);
+            }
+            assertArrayEquals(expected, out.toByteArray());
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void close(InputStream in) throws IOException {
+        in.close();
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
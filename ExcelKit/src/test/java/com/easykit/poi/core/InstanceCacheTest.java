@@ -0,0 +1,69 @@
+package com.easykit.poi.core;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * InstanceCache按类名缓存实例, 超出容量后不再缓存, 构造失败时抛出受检的反射异常
+ */
+public class InstanceCacheTest {
+
+    @Test
+    public void cachesUpToMaxSize() throws Exception {
+        InstanceCache<Object> cache = new InstanceCache<Object>(Object.class, 1);
+        Object first = cache.get(StringBuilder.class.getName());
+
+        assertSame(first, cache.get(StringBuilder.class.getName()));
+        // 超出容量的类每次创建新实例
+        assertNotSame(cache.get(Object.class.getName()), cache.get(Object.class.getName()));
+        assertSame(first, cache.get(StringBuilder.class.getName()));
+    }
+
+    @Test
+    public void constructorExceptionIsWrapped() {
+        InstanceCache<Object> cache = new InstanceCache<Object>(Object.class, 16);
+        try {
+            cache.get(FailingConstructor.class.getName());
+            fail();
+        } catch (ReflectiveOperationException e) {
+            assertTrue(e instanceof InvocationTargetException);
+            assertEquals("构造失败", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void missingClassOrConstructor() {
+        InstanceCache<Object> cache = new InstanceCache<Object>(Object.class, 16);
+        try {
+            cache.get("com.easykit.poi.core.Missing");
+            fail();
+        } catch (ReflectiveOperationException e) {
+            assertTrue(e instanceof ClassNotFoundException);
+        }
+        try {
+            cache.get(Integer.class.getName());
+            fail();
+        } catch (ReflectiveOperationException e) {
+            assertTrue(e instanceof NoSuchMethodException);
+        }
+    }
+
+    @Test(expected = ClassCastException.class)
+    public void wrongTypeIsRejected() throws Exception {
+        new InstanceCache<Runnable>(Runnable.class, 16).get(StringBuilder.class.getName());
+    }
+
+    public static class FailingConstructor {
+        public FailingConstructor() throws IOException {
+            throw new IOException("构造失败");
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.easykit.poi.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * POIUtils.writeFileToBrowser 的Range(断点续传)处理
+ */
+public class POIUtilsRangeTest {
+    private static final int LENGTH = 1000;
+
+    private File mFile;
+    private byte[] mContent;
+
+    @Before
+    public void setUp() throws IOException {
+        mContent = new byte[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            mContent[i] = (byte) i;
+        }
+        mFile = File.createTempFile("range-test", ".xlsx");
+        FileOutputStream out = new FileOutputStream(mFile);
+        try {
+            out.write(mContent);
+        } finally {
+            out.close();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        mFile.delete();
+    }
+
+    @Test
+    public void fullFileWithoutRange() throws IOException {
+        StubResponse response = download(new StubRequest());
+
+        assertEquals(HttpServletResponse.SC_OK, response.mStatus);
+        assertEquals(LENGTH, response.mContentLength);
+        assertNull(response.mHeaders.get("Content-Range"));
+        assertEquals("bytes", response.mHeaders.get("Accept-Ranges"));
+        assertArrayEquals(mContent, response.mBody.toByteArray());
+    }
+
+    @Test
+    public void singleRange() throws IOException {
+        StubResponse response = download(new StubRequest().header("Range", "bytes=100-199"));
+
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.mStatus);
+        assertEquals("bytes 100-199/1000", response.mHeaders.get("Content-Range"));
+        assertEquals(100, response.mContentLength);
+        assertArrayEquals(Arrays.copyOfRange(mContent, 100, 200), response.mBody.toByteArray());
+    }
+
+    @Test
+    public void openEndedRange() throws IOException {
+        StubResponse response = download(new StubRequest().header("Range", "bytes=900-"));
+
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.mStatus);
+        assertEquals("bytes 900-999/1000", response.mHeaders.get("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(mContent, 900, LENGTH), response.mBody.toByteArray());
+    }
+
+    @Test
+    public void suffixRange() throws IOException {
+        StubResponse response = download(new StubRequest().header("Range", "bytes=-50"));
+
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.mStatus);
+        assertEquals("bytes 950-999/1000", response.mHeaders.get("Content-Range"));
+        assertEquals(50, response.mContentLength);
+        assertArrayEquals(Arrays.copyOfRange(mContent, 950, LENGTH), response.mBody.toByteArray());
+    }
+
+    @Test
+    public void suffixLongerThanFileReturnsWholeFile() throws IOException {
+        StubResponse response = download(new StubRequest().header("Range", "bytes=-5000"));
+
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.mStatus);
+        assertEquals("bytes 0-999/1000", response.mHeaders.get("Content-Range"));
+        assertArrayEquals(mContent, response.mBody.toByteArray());
+    }
+
+    @Test
+    public void unsatisfiableRange() throws IOException {
+        StubResponse response = download(new StubRequest().header("Range", "bytes=1000-1100"));
+
+        assertEquals(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, response.mError);
+        assertEquals("bytes */1000", response.mHeaders.get("Content-Range"));
+        assertEquals(0, response.mBody.size());
+    }
+
+    @Test
+    public void multipleRangesReturnWholeFile() throws IOException {
+        StubResponse response = download(new StubRequest().header("Range", "bytes=0-9,20-29"));
+
+        assertEquals(HttpServletResponse.SC_OK, response.mStatus);
+        assertArrayEquals(mContent, response.mBody.toByteArray());
+    }
+
+    @Test
+    public void matchingIfRangeHonorsRange() throws IOException {
+        String etag = download(new StubRequest()).mHeaders.get("ETag");
+
+        StubResponse response = download(new StubRequest().header("Range", "bytes=0-9").header("If-Range", etag));
+
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.mStatus);
+        assertArrayEquals(Arrays.copyOfRange(mContent, 0, 10), response.mBody.toByteArray());
+    }
+
+    @Test
+    public void staleIfRangeETagReturnsWholeFile() throws IOException {
+        StubResponse response = download(new StubRequest().header("Range", "bytes=0-9").header("If-Range", "\"stale\""));
+
+        assertEquals(HttpServletResponse.SC_OK, response.mStatus);
+        assertNull(response.mHeaders.get("Content-Range"));
+        assertEquals(LENGTH, response.mContentLength);
+        assertArrayEquals(mContent, response.mBody.toByteArray());
+    }
+
+    @Test
+    public void staleIfRangeDateReturnsWholeFile() throws IOException {
+        StubResponse response = download(new StubRequest().header("Range", "bytes=0-9")
+                .dateHeader("If-Range", mFile.lastModified() - 60 * 1000L));
+
+        assertEquals(HttpServletResponse.SC_OK, response.mStatus);
+        assertArrayEquals(mContent, response.mBody.toByteArray());
+    }
+
+    @Test
+    public void parseRange() {
+        assertArrayEquals(new long[]{0, 99}, POIUtils.parseRange("bytes=0-99", LENGTH));
+        assertArrayEquals(new long[]{500, 999}, POIUtils.parseRange("bytes=500-5000", LENGTH));
+        assertArrayEquals(new long[]{990, 999}, POIUtils.parseRange("bytes=-10", LENGTH));
+        assertNull(POIUtils.parseRange("bytes=-0", LENGTH));
+        assertNull(POIUtils.parseRange("bytes=1000-", LENGTH));
+        assertEquals(0, POIUtils.parseRange("items=0-9", LENGTH).length);
+        assertEquals(0, POIUtils.parseRange("bytes=20-10", LENGTH).length);
+        assertEquals(0, POIUtils.parseRange("bytes=a-b", LENGTH).length);
+    }
+
+    private StubResponse download(StubRequest request) throws IOException {
+        StubResponse response = new StubResponse();
+        POIUtils.writeFileToBrowser(request.proxy(), response.proxy(), mFile, "range-test");
+        return response;
+    }
+
+    private static class StubRequest implements InvocationHandler {
+        private final Map<String, String> mHeaders = new HashMap<String, String>();
+        private final Map<String, Long> mDateHeaders = new HashMap<String, Long>();
+
+        StubRequest header(String name, String value) {
+            mHeaders.put(name, value);
+            return this;
+        }
+
+        StubRequest dateHeader(String name, long value) {
+            mHeaders.put(name, "date");
+            mDateHeaders.put(name, value);
+            return this;
+        }
+
+        HttpServletRequest proxy() {
+            return (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class[]{HttpServletRequest.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if ("getHeader".equals(method.getName())) {
+                return mHeaders.get(args[0]);
+            }
+            if ("getDateHeader".equals(method.getName())) {
+                Long value = mDateHeaders.get(args[0]);
+                if (value == null && mHeaders.containsKey(args[0])) {
+                    throw new IllegalArgumentException("not a date");
+                }
+                return value == null ? -1L : value;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    private static class StubResponse implements InvocationHandler {
+        private final Map<String, String> mHeaders = new HashMap<String, String>();
+        private final ByteArrayOutputStream mBody = new ByteArrayOutputStream();
+        private int mStatus = HttpServletResponse.SC_OK;
+        private int mError = 0;
+        private long mContentLength = -1;
+
+        HttpServletResponse proxy() {
+            return (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class[]{HttpServletResponse.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            if ("setHeader".equals(name)) {
+                mHeaders.put((String) args[0], (String) args[1]);
+            } else if ("setStatus".equals(name)) {
+                mStatus = (Integer) args[0];
+            } else if ("sendError".equals(name)) {
+                mError = (Integer) args[0];
+            } else if ("setContentLengthLong".equals(name)) {
+                mContentLength = (Long) args[0];
+            } else if ("getOutputStream".equals(name)) {
+                return new ServletOutputStream() {
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener listener) {
+                    }
+
+                    @Override
+                    public void write(int b) {
+                        mBody.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) {
+                        mBody.write(b, off, len);
+                    }
+                };
+            } else if (!"setContentType".equals(name) && !"setDateHeader".equals(name) && !"flushBuffer".equals(name)) {
+                throw new UnsupportedOperationException(name);
+            }
+            return null;
+        }
+    }
+}
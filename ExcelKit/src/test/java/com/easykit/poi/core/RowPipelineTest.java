@@ -0,0 +1,243 @@
+package com.easykit.poi.core;
+
+import com.easykit.poi.pojo.ExportColumns;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * RowPipeline按顺序输出全部数据行, 线程池饱和/拒绝任务时由调用线程执行, close()等待各阶段退出
+ */
+public class RowPipelineTest {
+    private static final int ROWS = 2500;
+    private static final int BATCH_SIZE = 100;
+    private static final int SHEET_SIZE = 1000;
+
+    private ExecutorService mExecutor;
+
+    @Before
+    public void setUp() {
+        mExecutor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void completesInPool() throws Exception {
+        CountingIterator data = new CountingIterator(ROWS, 0);
+        RowPipeline pipeline = new RowPipeline(data, plan(), BATCH_SIZE, SHEET_SIZE, 2);
+        pipeline.start(mExecutor);
+
+        assertRows(pipeline);
+        pipeline.close();
+        assertFalse(data.mInside);
+    }
+
+    @Test
+    public void closeWaitsForFetchInsideIterator() throws Exception {
+        CountingIterator data = new CountingIterator(ROWS, 20);
+        RowPipeline pipeline = new RowPipeline(data, plan(), 10, SHEET_SIZE, 2);
+        pipeline.start(mExecutor);
+
+        RowBuffer rows = pipeline.take();
+        assertEquals(10, rows.size());
+        pipeline.release(rows);
+        // 取消时读取阶段仍在迭代器中(next()不响应中断)
+        pipeline.close();
+
+        assertFalse(data.mInside);
+        int calls = data.mCalls;
+        Thread.sleep(300);
+        assertEquals(calls, data.mCalls);
+        assertTrue(calls < ROWS);
+    }
+
+    @Test
+    public void saturatedPoolRunsInline() throws Exception {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>());
+        final CountDownLatch blocked = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < 2; i++) {
+                pool.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            blocked.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+            }
+            while (pool.getActiveCount() < 2) {
+                Thread.sleep(10);
+            }
+            RowPipeline pipeline = new RowPipeline(new CountingIterator(ROWS, 0), plan(), BATCH_SIZE, SHEET_SIZE, 2);
+            pipeline.start(pool);
+
+            assertRows(pipeline);
+            pipeline.close();
+            assertEquals(0, pool.getQueue().size());
+        } finally {
+            blocked.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void stalledExecutorClaimsStagesAfterTimeout() throws Exception {
+        // 接受任务但从不运行
+        final List<Runnable> queued = new ArrayList<Runnable>();
+        CountingIterator data = new CountingIterator(ROWS, 0);
+        RowPipeline pipeline = new RowPipeline(data, plan(), BATCH_SIZE, SHEET_SIZE, 2);
+        pipeline.start(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                queued.add(command);
+            }
+        });
+
+        long start = System.currentTimeMillis();
+        assertRows(pipeline);
+        assertTrue(System.currentTimeMillis() - start >= 1000);
+        pipeline.close();
+
+        // 迟到的任务不再执行
+        int calls = data.mCalls;
+        assertEquals(2, queued.size());
+        for (Runnable task : queued) {
+            task.run();
+        }
+        assertEquals(calls, data.mCalls);
+    }
+
+    @Test
+    public void rejectingExecutorRunsInline() throws Exception {
+        RowPipeline pipeline = new RowPipeline(new CountingIterator(ROWS, 0), plan(), BATCH_SIZE, SHEET_SIZE, 2);
+        pipeline.start(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        });
+
+        assertRows(pipeline);
+        pipeline.close();
+    }
+
+    @Test
+    public void fetchFailureIsThrownFromTake() throws Exception {
+        Iterator<Object[]> data = new CountingIterator(ROWS, 0) {
+            @Override
+            public Object[] next() {
+                if (mCalls == 150) {
+                    throw new IllegalStateException("读取失败");
+                }
+                return super.next();
+            }
+        };
+        RowPipeline pipeline = new RowPipeline(data, plan(), BATCH_SIZE, SHEET_SIZE, 2);
+        pipeline.start(mExecutor);
+        try {
+            RowBuffer rows;
+            while ((rows = pipeline.take()) != null) {
+                pipeline.release(rows);
+            }
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("读取失败", e.getMessage());
+        } finally {
+            pipeline.close();
+        }
+    }
+
+    private static ExportPlan plan() {
+        return ExportPlan.of(ExportColumns.create().add("id", "编号"));
+    }
+
+    // 按顺序取出全部数据行, 每批不跨越sheet边界
+    private static void assertRows(RowPipeline pipeline) throws Exception {
+        int next = 0;
+        RowBuffer rows;
+        while ((rows = pipeline.take()) != null) {
+            assertTrue(rows.size() > 0);
+            assertEquals(next / SHEET_SIZE, (next + rows.size() - 1) / SHEET_SIZE);
+            for (int i = 0; i < rows.size(); i++, next++) {
+                assertEquals(next, rows.row(i)[0]);
+            }
+            pipeline.release(rows);
+        }
+        assertEquals(ROWS, next);
+        assertNull(pipeline.take());
+    }
+
+    // 逐行生成数据, next()可不响应中断地等待delayMillis(模拟ResultSet.next())
+    private static class CountingIterator implements Iterator<Object[]> {
+        private final int mRows;
+        private final long mDelayMillis;
+        volatile int mCalls = 0;
+        volatile boolean mInside = false;
+
+        CountingIterator(int rows, long delayMillis) {
+            this.mRows = rows;
+            this.mDelayMillis = delayMillis;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return mCalls < mRows;
+        }
+
+        @Override
+        public Object[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            mInside = true;
+            try {
+                boolean interrupted = false;
+                long end = System.currentTimeMillis() + mDelayMillis;
+                while (System.currentTimeMillis() < end) {
+                    try {
+                        Thread.sleep(Math.max(1, end - System.currentTimeMillis()));
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                return new Object[]{mCalls++};
+            } finally {
+                mInside = false;
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
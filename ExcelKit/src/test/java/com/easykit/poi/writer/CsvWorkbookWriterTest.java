@@ -0,0 +1,163 @@
+package com.easykit.poi.writer;
+
+import com.easykit.poi.ExcelKit;
+import com.easykit.poi.pojo.ExportColumns;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * CSV/TSV导出: RFC 4180引号规则、BOM只写出一次(含多sheet暂存合并)及UTF-16输出
+ */
+public class CsvWorkbookWriterTest {
+    private static final int ROWS = 2500;
+    private static final int SHEET_ROWS = 1000;
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private ExecutorService mExecutor;
+
+    @Before
+    public void setUp() {
+        mExecutor = Executors.newFixedThreadPool(3);
+    }
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void quotesFieldsPerRfc4180() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvStreamWriter csv = new CsvStreamWriter(out, StandardCharsets.UTF_8, ',');
+        csv.field("plain").field("a,b").field("say \"hi\"").field("line1\r\nline2").field("cr\r").field("lf\n")
+                .field("tab\there").field(null).field("").endRow();
+        csv.number(-42).rawField("1.5").field("中文").endRow();
+        csv.flush();
+
+        assertEquals("plain,\"a,b\",\"say \"\"hi\"\"\",\"line1\r\nline2\",\"cr\r\",\"lf\n\",tab\there,,\r\n"
+                + "-42,1.5,中文\r\n", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void tsvQuotesTabsOnly() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvStreamWriter csv = new CsvStreamWriter(out, StandardCharsets.UTF_8, '\t');
+        csv.field("a\tb").field("a,b").field("q\"").field("x").endRow();
+        csv.flush();
+
+        assertEquals("\"a\tb\"\ta,b\t\"q\"\"\"\tx\r\n", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void exportQuotesValues() {
+        List<Object[]> rows = new ArrayList<Object[]>();
+        rows.add(new Object[]{1, "a,b", "say \"hi\""});
+        rows.add(new Object[]{2, "line1\nline2", "tab\there"});
+        ExcelKit csv = ExcelKit.$Builder(columns()).setEngine(ExportEngine.CSV).setCsvEncoding(StandardCharsets.UTF_8, false);
+        ExcelKit tsv = ExcelKit.$Builder(columns()).setEngine(ExportEngine.TSV).setCsvEncoding(StandardCharsets.UTF_8, false);
+
+        assertEquals("编号,名称,备注\r\n1,\"a,b\",\"say \"\"hi\"\"\"\r\n2,\"line1\nline2\",tab\there\r\n",
+                new String(export(csv, rows), StandardCharsets.UTF_8));
+        assertEquals("编号\t名称\t备注\r\n1\ta,b\t\"say \"\"hi\"\"\"\r\n2\t\"line1\nline2\"\t\"tab\there\"\r\n",
+                new String(export(tsv, rows), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void bomWrittenOnceForSerialSheets() {
+        byte[] bytes = export(ExcelKit.$Builder(columns()).setEngine(ExportEngine.CSV).setMaxSheetRecords(SHEET_ROWS), rows());
+
+        assertRows(bytes, UTF8_BOM, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void bomWrittenOnceForSpooledSheets() {
+        byte[] bytes = export(ExcelKit.$Builder(columns()).setEngine(ExportEngine.CSV).setMaxSheetRecords(SHEET_ROWS)
+                .setParallelSheets(mExecutor, 3), rows());
+        byte[] compressed = export(ExcelKit.$Builder(columns()).setEngine(ExportEngine.CSV).setMaxSheetRecords(SHEET_ROWS)
+                .setParallelSheets(mExecutor, 3).setCompressTempFiles(true), rows());
+
+        assertRows(bytes, UTF8_BOM, StandardCharsets.UTF_8);
+        assertArrayEquals(bytes, compressed);
+    }
+
+    @Test
+    public void bomCanBeDisabled() {
+        byte[] bytes = export(ExcelKit.$Builder(columns()).setEngine(ExportEngine.CSV).setMaxSheetRecords(SHEET_ROWS)
+                .setParallelSheets(mExecutor, 3).setCsvEncoding(StandardCharsets.UTF_8, false), rows());
+
+        assertRows(bytes, new byte[0], StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void utf16WritesSingleBom() {
+        // UTF-16本身要求BOM, 即使未开启BOM也写出(大端)
+        byte[] serial = export(ExcelKit.$Builder(columns()).setEngine(ExportEngine.CSV).setMaxSheetRecords(SHEET_ROWS)
+                .setCsvEncoding(StandardCharsets.UTF_16, false), rows());
+        byte[] spooled = export(ExcelKit.$Builder(columns()).setEngine(ExportEngine.CSV).setMaxSheetRecords(SHEET_ROWS)
+                .setParallelSheets(mExecutor, 3).setCsvEncoding(StandardCharsets.UTF_16, false), rows());
+
+        assertRows(serial, new byte[]{(byte) 0xFE, (byte) 0xFF}, StandardCharsets.UTF_16BE);
+        assertArrayEquals(serial, spooled);
+        assertEquals("编号,名称,备注\r\n0,名称0,", new String(serial, StandardCharsets.UTF_16).substring(0, 16));
+    }
+
+    @Test
+    public void utf16LeWritesLittleEndianBom() {
+        byte[] bytes = export(ExcelKit.$Builder(columns()).setEngine(ExportEngine.TSV).setMaxSheetRecords(SHEET_ROWS)
+                .setParallelSheets(mExecutor, 3).setCsvEncoding(StandardCharsets.UTF_16LE, true), rows());
+
+        assertEquals((byte) 0xFF, bytes[0]);
+        assertEquals((byte) 0xFE, bytes[1]);
+        String text = new String(bytes, 2, bytes.length - 2, StandardCharsets.UTF_16LE);
+        assertEquals(-1, text.indexOf('\uFEFF'));
+        assertTrue(text.startsWith("编号\t名称\t备注\r\n0\t名称0\t"));
+    }
+
+    private static ExportColumns columns() {
+        return ExportColumns.create().add("id", "编号").add("name", "名称").add("remark", "备注");
+    }
+
+    private static List<Object[]> rows() {
+        List<Object[]> rows = new ArrayList<Object[]>();
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new Object[]{i, "名称" + i, i % 10 == 0 ? "a,\"b\"" : null});
+        }
+        return rows;
+    }
+
+    private static byte[] export(ExcelKit kit, List<Object[]> rows) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(kit.toExcel(rows, "data", out));
+        return out.toByteArray();
+    }
+
+    // 开头为bom且其后不再出现BOM, 表头只有一行, 数据行按顺序衔接
+    private static void assertRows(byte[] bytes, byte[] bom, Charset charset) {
+        for (int i = 0; i < bom.length; i++) {
+            assertEquals(bom[i], bytes[i]);
+        }
+        String text = new String(bytes, bom.length, bytes.length - bom.length, charset);
+        assertEquals(-1, text.indexOf('\uFEFF'));
+        String[] lines = text.split("\r\n", -1);
+        assertEquals(1 + ROWS + 1, lines.length);
+        assertEquals("编号,名称,备注", lines[0]);
+        for (int i = 0; i < ROWS; i++) {
+            assertEquals(i + ",名称" + i + "," + (i % 10 == 0 ? "\"a,\"\"b\"\"\"" : ""), lines[i + 1]);
+        }
+        assertEquals("", lines[ROWS + 1]);
+    }
+}
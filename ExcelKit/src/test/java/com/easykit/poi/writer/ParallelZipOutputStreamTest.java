@@ -0,0 +1,287 @@
+package com.easykit.poi.writer;
+
+import com.easykit.poi.ExcelKit;
+import com.easykit.poi.pojo.ExportColumns;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ParallelZipOutputStream的输出与ZipOutputStream的输出内容一致, 可被ZipInputStream/ZipFile/XSSFWorkbook读取
+ */
+public class ParallelZipOutputStreamTest {
+    private ExecutorService mExecutor;
+    private File mFile;
+
+    @Before
+    public void setUp() throws IOException {
+        mExecutor = Executors.newFixedThreadPool(3);
+        mFile = File.createTempFile("parallel-zip-test", ".zip");
+    }
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+        mFile.delete();
+    }
+
+    @Test
+    public void deflatedEntriesMatchSerialStream() throws IOException {
+        Map<String, byte[]> entries = sampleEntries();
+
+        ByteArrayOutputStream serial = new ByteArrayOutputStream();
+        write(new ZipOutputStream(serial), entries);
+        ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+        write(new ParallelZipOutputStream(parallel, Deflater.DEFAULT_COMPRESSION, mExecutor, 3), entries);
+
+        assertEntries(entries, readStream(serial.toByteArray()));
+        assertEntries(entries, readStream(parallel.toByteArray()));
+        Map<String, ZipEntry> central = readFile(parallel.toByteArray(), entries);
+        for (ZipEntry entry : central.values()) {
+            assertEquals(entry.getName(), ZipEntry.DEFLATED, entry.getMethod());
+        }
+    }
+
+    @Test
+    public void levelZeroWritesStoredEntries() throws IOException {
+        Map<String, byte[]> entries = sampleEntries();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(new ParallelZipOutputStream(out, Deflater.NO_COMPRESSION, null, 1), entries);
+
+        assertEntries(entries, readStream(out.toByteArray()));
+        Map<String, ZipEntry> central = readFile(out.toByteArray(), entries);
+        for (Map.Entry<String, byte[]> expected : entries.entrySet()) {
+            ZipEntry entry = central.get(expected.getKey());
+            CRC32 crc = new CRC32();
+            crc.update(expected.getValue());
+            assertEquals(entry.getName(), ZipEntry.STORED, entry.getMethod());
+            assertEquals(entry.getName(), expected.getValue().length, entry.getSize());
+            assertEquals(entry.getName(), expected.getValue().length, entry.getCompressedSize());
+            assertEquals(entry.getName(), crc.getValue(), entry.getCrc());
+        }
+    }
+
+    @Test
+    public void manyEntriesWriteZip64End() throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<String, byte[]>();
+        for (int i = 0; i < 0x10000 + 10; i++) {
+            entries.put("e" + i, new byte[]{(byte) i});
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(new ParallelZipOutputStream(out, Deflater.BEST_SPEED, mExecutor, 3), entries);
+
+        assertEntries(entries, readStream(out.toByteArray()));
+        assertEquals(entries.size(), readFile(out.toByteArray(), entries).size());
+    }
+
+    @Test
+    public void entryLargerThan4GBWritesZip64Sizes() throws IOException {
+        long size = 0x100000000L + 1234567;
+        byte[] chunk = new byte[1024 * 1024];
+        CRC32 crc = new CRC32();
+        OutputStream file = new FileOutputStream(mFile);
+        ParallelZipOutputStream zip = new ParallelZipOutputStream(file, Deflater.BEST_SPEED, mExecutor, 3);
+        try {
+            zip.putNextEntry(new ZipEntry("before"));
+            zip.write(new byte[]{1, 2, 3});
+            zip.putNextEntry(new ZipEntry("large"));
+            for (long written = 0; written < size; ) {
+                int n = (int) Math.min(chunk.length, size - written);
+                zip.write(chunk, 0, n);
+                crc.update(chunk, 0, n);
+                written += n;
+            }
+            zip.putNextEntry(new ZipEntry("after"));
+            zip.write(new byte[]{4, 5, 6});
+        } finally {
+            zip.close();
+        }
+
+        ZipFile zipFile = new ZipFile(mFile);
+        try {
+            ZipEntry large = zipFile.getEntry("large");
+            assertEquals(size, large.getSize());
+            assertEquals(crc.getValue(), large.getCrc());
+            assertArrayEquals(new byte[]{4, 5, 6}, readAll(zipFile.getInputStream(zipFile.getEntry("after"))));
+        } finally {
+            zipFile.close();
+        }
+        // 流式读取时校验ZIP64数据描述符中的大小和CRC
+        ZipInputStream in = new ZipInputStream(new FileInputStream(mFile));
+        try {
+            List<String> names = new ArrayList<String>();
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                long read = 0;
+                int n;
+                while ((n = in.read(chunk)) != -1) {
+                    read += n;
+                }
+                names.add(entry.getName() + ":" + read);
+            }
+            assertEquals(Arrays.asList("before:3", "large:" + size, "after:3"), names);
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void workbookOpensWithXssf() throws IOException {
+        byte[] serial = export(ExcelKit.$Builder(columns()));
+        byte[] parallel = export(ExcelKit.$Builder(columns()).setParallelCompression(mExecutor, 3));
+        byte[] stored = export(ExcelKit.$Builder(columns()).setCompressionLevel(Deflater.NO_COMPRESSION));
+
+        List<String> expected = cells(serial);
+        assertEquals(1 + 8000, expected.size());
+        assertEquals(expected, cells(parallel));
+        assertEquals(expected, cells(stored));
+        for (ZipEntry entry : readFile(stored, null).values()) {
+            assertEquals(entry.getName(), ZipEntry.STORED, entry.getMethod());
+        }
+    }
+
+    private static ExportColumns columns() {
+        return ExportColumns.create().add("id", "编号").add("name", "名称");
+    }
+
+    private static byte[] export(ExcelKit kit) {
+        List<Object[]> rows = new ArrayList<Object[]>();
+        for (int i = 0; i < 8000; i++) {
+            rows.add(new Object[]{i, "名称 & <" + i % 97 + ">"});
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(kit.setEngine(ExportEngine.XML).toExcel(rows, "data", out));
+        return out.toByteArray();
+    }
+
+    private static List<String> cells(byte[] xlsx) throws IOException {
+        Sheet sheet = new XSSFWorkbook(new ByteArrayInputStream(xlsx)).getSheetAt(0);
+        List<String> cells = new ArrayList<String>();
+        for (Row row : sheet) {
+            cells.add(row.getCell(0) + "|" + row.getCell(1));
+        }
+        return cells;
+    }
+
+    // 可压缩、随机及跨越多个压缩块/暂存上限的条目
+    private static Map<String, byte[]> sampleEntries() {
+        Map<String, byte[]> entries = new LinkedHashMap<String, byte[]>();
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < 3 * 1024 * 1024; i++) {
+            text.append("<row r=\"").append(i).append("\"><c t=\"inlineStr\"><is><t>名称").append(i % 100).append("</t></is></c></row>");
+        }
+        byte[] noise = new byte[300 * 1024];
+        random.nextBytes(noise);
+        entries.put("empty", new byte[0]);
+        entries.put("one", new byte[]{42});
+        entries.put("xl/worksheets/sheet1.xml", text.toString().getBytes(StandardCharsets.UTF_8));
+        entries.put("目录/随机.bin", noise);
+        return entries;
+    }
+
+    private static void write(ZipOutputStream zip, Map<String, byte[]> entries) throws IOException {
+        try {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                // 分多次写入
+                byte[] data = entry.getValue();
+                for (int off = 0; off < data.length; off += 70000) {
+                    zip.write(data, off, Math.min(70000, data.length - off));
+                }
+                zip.closeEntry();
+            }
+        } finally {
+            zip.close();
+        }
+    }
+
+    private static Map<String, byte[]> readStream(byte[] zip) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<String, byte[]>();
+        ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip));
+        try {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                entries.put(entry.getName(), readAll(in));
+            }
+        } finally {
+            in.close();
+        }
+        return entries;
+    }
+
+    // 按中央目录读取, expected不为null时校验内容
+    private Map<String, ZipEntry> readFile(byte[] zip, Map<String, byte[]> expected) throws IOException {
+        OutputStream out = new FileOutputStream(mFile);
+        try {
+            out.write(zip);
+        } finally {
+            out.close();
+        }
+        Map<String, ZipEntry> entries = new LinkedHashMap<String, ZipEntry>();
+        ZipFile zipFile = new ZipFile(mFile);
+        try {
+            Enumeration<? extends ZipEntry> e = zipFile.entries();
+            while (e.hasMoreElements()) {
+                ZipEntry entry = e.nextElement();
+                entries.put(entry.getName(), entry);
+                if (expected != null) {
+                    assertArrayEquals(entry.getName(), expected.get(entry.getName()), readAll(zipFile.getInputStream(entry)));
+                }
+            }
+        } finally {
+            zipFile.close();
+        }
+        return entries;
+    }
+
+    private static void assertEntries(Map<String, byte[]> expected, Map<String, byte[]> actual) {
+        assertEquals(new ArrayList<String>(expected.keySet()), new ArrayList<String>(actual.keySet()));
+        for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+            assertArrayEquals(entry.getKey(), entry.getValue(), actual.get(entry.getKey()));
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
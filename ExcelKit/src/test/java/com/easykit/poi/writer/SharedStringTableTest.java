@@ -0,0 +1,199 @@
+package com.easykit.poi.writer;
+
+import com.easykit.poi.ExcelKit;
+import com.easykit.poi.pojo.ExportColumns;
+import com.easykit.poi.pojo.ExportItem;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * SharedStringTable的自适应采样、字典上限及长度上限, 以及开启共享字符串后的文件体积
+ */
+public class SharedStringTableTest {
+    private static final int ROWS = 5000;
+
+    @Test
+    public void lowCardinalityColumnStaysShared() {
+        SharedStringTable table = new SharedStringTable(new boolean[]{false}, true, 65536);
+        for (int i = 0; i < SharedStringTable.SAMPLE_SIZE; i++) {
+            assertEquals(i % 10, table.indexOf(0, "v" + i % 10));
+        }
+        // 采样结束后新值仍进入字典
+        assertEquals(10, table.indexOf(0, "new"));
+        assertEquals(11, table.getUniqueCount());
+    }
+
+    @Test
+    public void highCardinalityColumnBecomesInline() {
+        SharedStringTable table = new SharedStringTable(new boolean[]{false}, true, 65536);
+        for (int i = 0; i < SharedStringTable.SAMPLE_SIZE; i++) {
+            // 采样期间照常编码
+            assertEquals(i, table.indexOf(0, "v" + i));
+        }
+        assertEquals(-1, table.indexOf(0, "new"));
+        assertEquals(-1, table.indexOf(0, "v0"));
+        assertEquals(SharedStringTable.SAMPLE_SIZE, table.getUniqueCount());
+    }
+
+    @Test
+    public void halfNewValuesStaysShared() {
+        // 新值占比恰好一半时不超过阈值
+        assertTrue(sampledShared(SharedStringTable.SAMPLE_SIZE / 2));
+        assertFalse(sampledShared(SharedStringTable.SAMPLE_SIZE / 2 + 1));
+    }
+
+    @Test
+    public void columnsAreSampledIndependently() {
+        SharedStringTable table = new SharedStringTable(new boolean[]{false, false}, true, 65536);
+        for (int i = 0; i < SharedStringTable.SAMPLE_SIZE; i++) {
+            table.indexOf(0, "v" + i);
+            table.indexOf(1, i % 2 == 0 ? "男" : "女");
+        }
+        assertEquals(-1, table.indexOf(0, "男"));
+        // 字典由各列共用
+        assertEquals(SharedStringTable.SAMPLE_SIZE + 2, table.indexOf(1, "other"));
+    }
+
+    @Test
+    public void sharedAndInlineColumnsAreNotSampled() {
+        SharedStringTable table = new SharedStringTable(new boolean[]{true, false}, false, 65536);
+        assertTrue(table.isEnabled());
+        for (int i = 0; i < 2 * SharedStringTable.SAMPLE_SIZE; i++) {
+            assertEquals(i, table.indexOf(0, "v" + i));
+            assertEquals(-1, table.indexOf(1, "v" + i));
+        }
+        assertFalse(new SharedStringTable(new boolean[]{false, false}, false, 65536).isEnabled());
+        assertTrue(new SharedStringTable(new boolean[]{false}, true, 65536).isEnabled());
+    }
+
+    @Test
+    public void entriesBeyondMaxAreInline() {
+        SharedStringTable table = new SharedStringTable(new boolean[]{true}, false, 3);
+        assertEquals(0, table.indexOf(0, "a"));
+        assertEquals(1, table.indexOf(0, "b"));
+        assertEquals(2, table.indexOf(0, "c"));
+        assertEquals(-1, table.indexOf(0, "d"));
+        // 已在字典中的值仍使用索引
+        assertEquals(0, table.indexOf(0, "a"));
+        assertEquals(-1, table.indexOf(0, "d"));
+        assertEquals(3, table.getUniqueCount());
+    }
+
+    @Test
+    public void longStringsAreInline() {
+        SharedStringTable table = new SharedStringTable(new boolean[]{true}, false, 65536);
+        char[] chars = new char[SharedStringTable.MAX_STRING_LENGTH + 1];
+        Arrays.fill(chars, 'x');
+        String longest = new String(chars, 0, SharedStringTable.MAX_STRING_LENGTH);
+
+        assertEquals(0, table.indexOf(0, longest));
+        assertEquals(-1, table.indexOf(0, new String(chars)));
+        assertEquals(1, table.getUniqueCount());
+    }
+
+    @Test
+    public void writesCountsAndEscapedValues() throws IOException {
+        SharedStringTable table = new SharedStringTable(new boolean[]{true}, false, 65536);
+        table.indexOf(0, "a & <b>");
+        table.indexOf(0, " lead");
+        table.indexOf(0, "a & <b>");
+        table.indexOf(0, "d");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XmlStreamWriter xml = new XmlStreamWriter(out);
+        table.writeTo(xml);
+        xml.flushBuffer();
+
+        String sst = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(sst, sst.contains("count=\"4\" uniqueCount=\"3\">"));
+        assertTrue(sst, sst.contains("<si><t>a &amp; &lt;b&gt;</t></si><si><t xml:space=\"preserve\"> lead</t></si><si><t>d</t></si></sst>"));
+    }
+
+    @Test
+    public void sharedStringsShrinkFile() throws IOException {
+        byte[] inline = export(false);
+        byte[] shared = export(true);
+
+        assertEquals(cells(inline), cells(shared));
+        assertTrue(shared.length + " >= " + inline.length, shared.length < inline.length);
+        long inlineSheet = entrySize(inline, "xl/worksheets/sheet1.xml");
+        long sharedSheet = entrySize(shared, "xl/worksheets/sheet1.xml") + entrySize(shared, "xl/sharedStrings.xml");
+        assertTrue(sharedSheet + " >= " + inlineSheet, sharedSheet < inlineSheet);
+        assertEquals(-1, entrySize(inline, "xl/sharedStrings.xml"));
+    }
+
+    private static boolean sampledShared(int newValues) {
+        SharedStringTable table = new SharedStringTable(new boolean[]{false}, true, 65536);
+        for (int i = 0; i < SharedStringTable.SAMPLE_SIZE; i++) {
+            table.indexOf(0, i < newValues ? "v" + i : "v0");
+        }
+        return table.indexOf(0, "after") >= 0;
+    }
+
+    private static byte[] export(boolean sharedStrings) {
+        ExportColumns columns = ExportColumns.create()
+                .add("id", "编号")
+                .add("grade", "年级")
+                .add(new ExportItem().setField("sex").setDisplay("性别"))
+                .add("remark", "备注");
+        List<Object[]> rows = new ArrayList<Object[]>();
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new Object[]{i, "一年级" + (i % 6 + 1) + "班", i % 2 == 0 ? "男" : "女", "备注" + i});
+        }
+        ExcelKit kit = ExcelKit.$Builder(columns).setEngine(ExportEngine.XML);
+        if (sharedStrings) {
+            kit.setSharedStrings(1000);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(kit.toExcel(rows, "data", out));
+        return out.toByteArray();
+    }
+
+    private static List<String> cells(byte[] xlsx) throws IOException {
+        Sheet sheet = new XSSFWorkbook(new ByteArrayInputStream(xlsx)).getSheetAt(0);
+        List<String> cells = new ArrayList<String>();
+        for (Row row : sheet) {
+            cells.add(row.getCell(0) + "|" + row.getCell(1) + "|" + row.getCell(2) + "|" + row.getCell(3));
+        }
+        assertEquals(1 + ROWS, cells.size());
+        return cells;
+    }
+
+    // 条目解压后的字节数, 不存在时返回-1
+    private static long entrySize(byte[] xlsx, String name) throws IOException {
+        ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(xlsx));
+        try {
+            ZipEntry entry;
+            byte[] buffer = new byte[8192];
+            while ((entry = in.getNextEntry()) != null) {
+                if (name.equals(entry.getName())) {
+                    long size = 0;
+                    int n;
+                    while ((n = in.read(buffer)) != -1) {
+                        size += n;
+                    }
+                    return size;
+                }
+            }
+            return -1;
+        } finally {
+            in.close();
+        }
+    }
+}
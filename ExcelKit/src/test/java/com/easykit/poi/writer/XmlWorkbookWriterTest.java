@@ -0,0 +1,177 @@
+package com.easykit.poi.writer;
+
+import com.easykit.poi.ExcelKit;
+import com.easykit.poi.annotation.ExportType;
+import com.easykit.poi.hanlder.ReadHandler;
+import com.easykit.poi.pojo.ExportColumns;
+import com.easykit.poi.pojo.ExportItem;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ExportEngine.XML直接输出的SpreadsheetML可被XSSFWorkbook及XlsxReader读取, 单元格与SXSSF引擎的输出一致
+ */
+public class XmlWorkbookWriterTest {
+    private static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
+    @Test
+    public void cellsMatchSxssf() throws Exception {
+        List<String> expected = cells(export(ExportEngine.SXSSF, 0.25));
+        List<String> actual = cells(export(ExportEngine.XML, 0.25));
+
+        assertEquals(expected, actual);
+        assertEquals(Arrays.asList("n:1.0", "d:2024-02-29 13:45:30", "s:a & b <c> \"q\"", "b:true", "d:2024-02-29 13:45:30"),
+                actual.subList(5, 10));
+        assertEquals(Arrays.asList("n:1.0E10", "", "s:  lead", "b:false", "n:1.0"), actual.subList(10, 15));
+        assertEquals(Arrays.asList("n:0.25", "", "s:trail  ", "b:true", "n:2.0"), actual.subList(15, 20));
+        assertEquals(Arrays.asList("n:-2.5", "", "", "b:false", "n:3.0"), actual.subList(20, 25));
+        assertEquals(Arrays.asList("n:1.23456789012E11", "", "s:line1\nline2", "b:true", "n:4.0"), actual.subList(25, 30));
+        assertEquals(Arrays.asList("n:1.0E-20", "", "s:中文", "b:false", "n:5.0"), actual.subList(30, 35));
+        // 无法转换为数值的值按文本写出
+        assertEquals(Arrays.asList("n:3.5", "", "", "b:true", "n:6.0"), actual.subList(35, 40));
+        assertEquals(Arrays.asList("s:abc", "", "s:x", "b:false", "n:7.0"), actual.subList(40, 45));
+        assertEquals(Arrays.asList("", "", "s:y", "b:true", "n:8.0"), actual.subList(45, 50));
+    }
+
+    @Test
+    public void readerValuesMatchSxssf() throws Exception {
+        List<String> expected = read(export(ExportEngine.SXSSF, 0.25));
+        List<String> actual = read(export(ExportEngine.XML, 0.25));
+
+        assertEquals(expected, actual);
+        assertEquals("[1, 45351.57326388889, a & b <c> \"q\", TRUE, 45351.57326388889]", actual.get(1));
+        assertEquals("[, , y, TRUE, 8]", actual.get(9));
+    }
+
+    @Test
+    public void numbersAreWrittenWithoutExponent() throws Exception {
+        // Float按自身的最短表示写出
+        String sheet = sheetXml(export(ExportEngine.XML, 0.1f));
+
+        assertTrue(sheet, sheet.contains("<v>10000000000</v>"));
+        assertTrue(sheet, sheet.contains("<v>0.1</v>"));
+        assertTrue(sheet, sheet.contains("<v>123456789012</v>"));
+        // 超出范围的值仍使用xsd:double的科学计数法
+        assertTrue(sheet, sheet.contains("<v>1.0E-20</v>"));
+        assertFalse(sheet, sheet.contains("1.0E10"));
+    }
+
+    private static byte[] export(ExportEngine engine, Number fraction) throws Exception {
+        ExportColumns columns = ExportColumns.create()
+                .add(new ExportItem().setField("n").setDisplay("数值").setType(ExportType.NUMERIC))
+                .add(new ExportItem().setField("d").setDisplay("日期").setType(ExportType.DATE).setFormat(DATE_FORMAT))
+                .add(new ExportItem().setField("s").setDisplay("文本").setType(ExportType.STRING))
+                .add(new ExportItem().setField("b").setDisplay("布尔").setType(ExportType.BOOLEAN))
+                .add(new ExportItem().setField("a").setDisplay("自动").setType(ExportType.AUTO));
+        Date date = new SimpleDateFormat(DATE_FORMAT).parse("2024-02-29 13:45:30");
+        Object[] numbers = {1, 1e10, fraction, -2.5, 123456789012L, 1e-20, "3.5", "abc", null};
+        Object[] texts = {"a & b <c> \"q\"", "  lead", "trail  ", "", "line1\nline2", "中文", null, "x", "y"};
+        List<Object[]> rows = new ArrayList<Object[]>();
+        for (int i = 0; i < numbers.length; i++) {
+            rows.add(new Object[]{numbers[i], i == 0 ? date : null, texts[i], i % 2 == 0, i == 0 ? date : i});
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(ExcelKit.$Builder(columns).setEngine(engine).toExcel(rows, "data", out));
+        return out.toByteArray();
+    }
+
+    // 按行依次列出各单元格
+    private static List<String> cells(byte[] xlsx) throws IOException {
+        Sheet sheet = new XSSFWorkbook(new ByteArrayInputStream(xlsx)).getSheetAt(0);
+        List<String> cells = new ArrayList<String>();
+        for (Row row : sheet) {
+            for (int column = 0; column < 5; column++) {
+                cells.add(cell(row.getCell(column)));
+            }
+        }
+        return cells;
+    }
+
+    private static String cell(Cell cell) {
+        if (cell == null) {
+            return "";
+        }
+        switch (cell.getCellType()) {
+            case Cell.CELL_TYPE_NUMERIC:
+                if (DateUtil.isCellDateFormatted(cell)) {
+                    return "d:" + new SimpleDateFormat(DATE_FORMAT).format(cell.getDateCellValue());
+                }
+                return "n:" + cell.getNumericCellValue();
+            case Cell.CELL_TYPE_BOOLEAN:
+                return "b:" + cell.getBooleanCellValue();
+            case Cell.CELL_TYPE_STRING:
+                return cell.getStringCellValue().length() == 0 ? "" : "s:" + cell.getStringCellValue();
+            default:
+                return "";
+        }
+    }
+
+    // XlsxReader读取的各行; 数值统一为最短的十进制表示(SXSSF按Double.toString写出, 如1.0E10)
+    private static List<String> read(byte[] xlsx) {
+        final List<String> rows = new ArrayList<String>();
+        ExcelKit.$Import().setEmptyCellValue("").readExcel(new ByteArrayInputStream(xlsx), "data.xlsx", new ReadHandler() {
+            @Override
+            public void handler(int sheetIndex, int rowIndex, List<String> row) {
+                List<String> values = new ArrayList<String>();
+                for (String value : row) {
+                    values.add(plainNumber(value));
+                }
+                rows.add(values.toString());
+            }
+        });
+        assertEquals(10, rows.size());
+        return rows;
+    }
+
+    private static String plainNumber(String value) {
+        try {
+            BigDecimal number = new BigDecimal(value).stripTrailingZeros();
+            return Math.abs(number.doubleValue()) < 1e15 && Math.abs(number.doubleValue()) >= 1e-15
+                    ? number.toPlainString() : value;
+        } catch (NumberFormatException e) {
+            return value;
+        }
+    }
+
+    private static String sheetXml(byte[] xlsx) throws IOException {
+        ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(xlsx));
+        try {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                if ("xl/worksheets/sheet1.xml".equals(entry.getName())) {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    byte[] buffer = new byte[8192];
+                    int n;
+                    while ((n = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, n);
+                    }
+                    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+                }
+            }
+        } finally {
+            in.close();
+        }
+        throw new AssertionError("sheet1.xml not found");
+    }
+}